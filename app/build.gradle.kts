@@ -32,6 +32,14 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // android.util.Log etc. return defaults in JVM unit tests instead of throwing
+        unitTests.isReturnDefaultValues = true
+        // Benchmarks in the unit tests are skipped unless requested with -Pbenchmark
+        unitTests.all {
+            it.systemProperty("benchmark", project.hasProperty("benchmark"))
+        }
+    }
 }
 
 dependencies {
@@ -50,6 +58,7 @@ dependencies {
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 
     testImplementation("androidx.arch.core:core-testing:2.1.0")
+    testImplementation("com.squareup.okhttp3:mockwebserver:3.14.9")
 
 
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
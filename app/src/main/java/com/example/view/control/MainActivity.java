@@ -16,7 +16,11 @@ import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 
+import com.example.view.control.cloud.ChangeNotifier;
+import com.example.view.control.cloud.CloudSession;
+import com.example.view.control.cloud.OutboxDrainer;
 import com.example.view.control.cloud.RestApiService;
+import com.example.view.control.cloud.SyncScheduler;
 import com.example.view.databinding.ActivityMainBinding;
 
 import java.util.ArrayList;
@@ -28,6 +32,9 @@ public class MainActivity extends AppCompatActivity {
     private BluetoothManager bluetoothManager;
     private BluetoothAdapter bluetoothAdapter;
 
+    // Hält die Verbindung für Änderungshinweise der Cloud, solange die App sichtbar ist
+    private ChangeNotifier changeNotifier;
+
     private final ActivityResultLauncher<String[]> requestPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), permissions -> {
                 boolean allGranted = true;
@@ -45,7 +52,12 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        RestApiService.init(this);
         RestApiService.generateUuid(this);
+        // Sendet Änderungen, die offline gespeichert wurden, und lädt neue Änderungen aus der Cloud
+        OutboxDrainer.getInstance(this).requestSync();
+        SyncScheduler.ensureScheduled(this);
+        changeNotifier = ChangeNotifier.getInstance(this);
 
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
@@ -61,6 +73,18 @@ public class MainActivity extends AppCompatActivity {
         checkPermissionsAndInitialize();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        changeNotifier.start(CloudSession.getInstance(this));
+    }
+
+    @Override
+    protected void onStop() {
+        changeNotifier.stop();
+        super.onStop();
+    }
+
     private void checkPermissionsAndInitialize() {
         List<String> permissions = new ArrayList<>();
 
@@ -0,0 +1,90 @@
+package com.example.view.control.bluetooth;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.util.List;
+
+/**
+ * Receiving side of {@link BatchSender}. Every chunk is stored in one transaction and only
+ * acknowledged after it is committed, so an acknowledged event survives a dropped connection.
+ */
+public class BatchReceiver {
+
+    /**
+     * Stores one chunk, e.g. {@link com.example.view.model.repository.EventRepository#insertReceivedEvents(List)}.
+     */
+    public interface ChunkStore {
+        /**
+         * @return Number of new events, or -1 if the chunk could not be stored.
+         */
+        int store(List<Event> events);
+    }
+
+    private final ChunkStore store;
+
+    public BatchReceiver(ChunkStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Reads the batch announced by {@code start} up to its end frame.
+     *
+     * @return Number of received events.
+     * @throws IOException If the connection failed, a frame was invalid or a chunk could not be
+     *                     stored. Chunks acknowledged before stay stored.
+     */
+    public int receive(ShareProtocol.Frame start, InputStream in, OutputStream out) throws IOException {
+        if (start.getType() != ShareProtocol.TYPE_BATCH_START) {
+            throw new ProtocolException("Batch must begin with a start frame");
+        }
+        int announced = ShareProtocol.readInt(start);
+        int received = 0;
+        int inserted = 0;
+        int nextSequence = 0;
+
+        while (true) {
+            ShareProtocol.Frame frame = ShareProtocol.readFrame(in);
+            if (frame.getType() == ShareProtocol.TYPE_BATCH_END) {
+                if (ShareProtocol.readInt(frame) != nextSequence || received != announced) {
+                    ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+                    throw new ProtocolException("Batch ended after " + received + " of " + announced + " events");
+                }
+                ShareProtocol.writeAck(out, ShareProtocol.ACK_OK);
+                Log.d("BatchReceiver", "Received " + received + " events, " + inserted + " new");
+                return received;
+            }
+            if (frame.getType() != ShareProtocol.TYPE_CHUNK) {
+                ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+                throw new ProtocolException("Unexpected frame type " + frame.getType());
+            }
+            int sequence = ShareProtocol.readInt(frame);
+            if (sequence != nextSequence) {
+                ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+                throw new ProtocolException("Expected chunk " + nextSequence + ", got " + sequence);
+            }
+
+            List<Event> events;
+            try {
+                events = ShareProtocol.decodeChunk(frame);
+            } catch (ProtocolException e) {
+                ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+                throw e;
+            }
+            int stored = store.store(events);
+            if (stored < 0) {
+                ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+                throw new IOException("Could not store chunk " + sequence);
+            }
+            ShareProtocol.writeIntFrame(out, ShareProtocol.TYPE_CHUNK_ACK, sequence);
+            received += events.size();
+            inserted += stored;
+            nextSequence++;
+        }
+    }
+}
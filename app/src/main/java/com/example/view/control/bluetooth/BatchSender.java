@@ -0,0 +1,94 @@
+package com.example.view.control.bluetooth;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams many events over one connection. Events are packed into chunks of up to
+ * {@code chunkSize} events and {@link #MAX_CHUNK_BYTES} bytes; up to {@code window} chunks may be
+ * unacknowledged at a time, so the link stays busy while the receiver commits earlier chunks,
+ * and a slow receiver throttles the sender instead of filling its buffers.
+ */
+public class BatchSender {
+
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+    public static final int DEFAULT_WINDOW = 4;
+
+    private static final int MAX_CHUNK_BYTES = 64 * 1024;
+
+    private final int chunkSize;
+    private final int window;
+
+    public BatchSender() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW);
+    }
+
+    public BatchSender(int chunkSize, int window) {
+        this.chunkSize = chunkSize;
+        this.window = window;
+    }
+
+    /**
+     * Sends all events and waits until the receiver has stored them.
+     *
+     * @return Number of sent events.
+     * @throws IOException If the connection failed or the receiver could not store a chunk.
+     */
+    public int send(List<Event> events, InputStream in, OutputStream out) throws IOException {
+        List<List<byte[]>> chunks = chunk(events);
+        ShareProtocol.writeIntFrame(out, ShareProtocol.TYPE_BATCH_START, events.size());
+
+        int sent = 0;
+        int acknowledged = 0;
+        while (acknowledged < chunks.size()) {
+            while (sent < chunks.size() && sent - acknowledged < window) {
+                ShareProtocol.writeChunk(out, sent, chunks.get(sent));
+                sent++;
+            }
+            ShareProtocol.Frame frame = ShareProtocol.readFrame(in);
+            if (frame.getType() == ShareProtocol.TYPE_CHUNK_ACK) {
+                // Acknowledgements are cumulative
+                acknowledged = Math.max(acknowledged, ShareProtocol.readInt(frame) + 1);
+            } else if (frame.getType() == ShareProtocol.TYPE_ACK) {
+                throw new IOException("Receiver aborted the batch after " + acknowledged + " chunks");
+            } else {
+                throw new ProtocolException("Unexpected frame type " + frame.getType());
+            }
+        }
+
+        ShareProtocol.writeIntFrame(out, ShareProtocol.TYPE_BATCH_END, chunks.size());
+        if (!ShareProtocol.readAck(in)) {
+            throw new IOException("Receiver rejected the batch");
+        }
+        Log.d("BatchSender", "Sent " + events.size() + " events in " + chunks.size() + " chunks");
+        return events.size();
+    }
+
+    private List<List<byte[]>> chunk(List<Event> events) {
+        List<List<byte[]>> chunks = new ArrayList<>();
+        List<byte[]> chunk = new ArrayList<>();
+        int chunkBytes = 0;
+        for (Event event : events) {
+            byte[] encoded = ShareProtocol.encodeEvent(event);
+            if (!chunk.isEmpty() && (chunk.size() >= chunkSize || chunkBytes + encoded.length > MAX_CHUNK_BYTES)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(encoded);
+            chunkBytes += encoded.length + 1;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.view.control.bluetooth;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single database writer for all connections of a {@link ReceiveServer}. Payloads that arrive
+ * while a transaction is running are merged into the next one, up to {@link #MAX_BATCH_EVENTS}
+ * events, so concurrent senders do not compete for the database lock or pay one commit each.
+ * If a merged transaction fails, its payloads are retried one by one so a single bad payload
+ * does not fail the others.
+ */
+public class BatchedEventWriter {
+
+    private static final int MAX_BATCH_EVENTS = 500;
+
+    /**
+     * Writes several payloads in one transaction, e.g.
+     * {@link com.example.view.model.repository.EventRepository#insertReceivedEventPayloads(List)}.
+     */
+    public interface Store {
+        /**
+         * @return Number of new events per payload, in the given order, or null if the
+         * transaction was rolled back.
+         */
+        int[] insert(List<List<Event>> payloads);
+    }
+
+    private static final class Pending {
+        final List<Event> events;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Pending(List<Event> events) {
+            this.events = events;
+        }
+    }
+
+    private final Store store;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    public BatchedEventWriter(Store store) {
+        this.store = store;
+    }
+
+    public synchronized void start() {
+        if (writerThread != null) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::run, "received-events-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer after the running transaction. Payloads still queued fail.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread = null;
+        }
+        for (Pending pending; (pending = queue.poll()) != null; ) {
+            pending.result.complete(-1);
+        }
+    }
+
+    /**
+     * Queues the events and waits until they are committed. Usable as
+     * {@link BatchReceiver.ChunkStore}.
+     *
+     * @return Number of new events, or -1 if they could not be stored. Events that were
+     * already stored are not counted.
+     */
+    public int write(List<Event> events) {
+        Pending pending = new Pending(events);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            return -1;
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            return -1;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            int eventCount = batch.get(0).events.size();
+            for (Pending next; eventCount < MAX_BATCH_EVENTS && (next = queue.poll()) != null; ) {
+                batch.add(next);
+                eventCount += next.events.size();
+            }
+            writeBatch(batch, eventCount);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch, int eventCount) {
+        List<List<Event>> payloads = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            payloads.add(pending.events);
+        }
+        int[] inserted = store.insert(payloads);
+        if (inserted != null) {
+            int newEvents = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(inserted[i]);
+                newEvents += inserted[i];
+            }
+            Log.d("BatchedEventWriter", "Stored " + newEvents + " new of " + eventCount + " events from "
+                    + batch.size() + " payloads");
+            return;
+        }
+        for (Pending pending : batch) {
+            int[] single = batch.size() > 1 ? store.insert(Collections.singletonList(pending.events)) : null;
+            pending.result.complete(single != null ? single[0] : -1);
+        }
+    }
+}
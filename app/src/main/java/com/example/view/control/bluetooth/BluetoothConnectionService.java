@@ -2,100 +2,105 @@ package com.example.view.control.bluetooth;
 // BluetoothConnectionService.java
 
 
-import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.UUID;
+import com.example.view.model.calendar.Event;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Shares events with other devices. Keeps one {@link PeerConnection} per device address, so
+ * repeated shares to the same peer reuse the open RFCOMM socket instead of paying the connect
+ * again, and shares to one peer are written by a single thread.
+ */
 public class BluetoothConnectionService {
     private static final String TAG = "BluetoothConnectionService";
-    private static final UUID MY_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB"); // Standard SerialPortService ID
-    private static BluetoothConnectionService instance;
-    private BluetoothSocket socket;
-    private InputStream inputStream;
-    private OutputStream outputStream;
-    private boolean isConnected = false;
+    private static final long IDLE_TIMEOUT_MILLIS = 30_000L;
+
+    private static final class InstanceHolder {
+        static final BluetoothConnectionService INSTANCE = new BluetoothConnectionService(
+                new BluetoothShareTransport(BluetoothAdapter.getDefaultAdapter()), IDLE_TIMEOUT_MILLIS);
+    }
 
-    private BluetoothConnectionService() {}
+    private final ShareTransport transport;
+    private final long idleTimeoutMillis;
+    private final Map<String, PeerConnection> connections = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService idleScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "share-idle");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Use {@link #getInstance()} on devices; other transports are for tests and benchmarks.
+     */
+    public BluetoothConnectionService(ShareTransport transport, long idleTimeoutMillis) {
+        this.transport = transport;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
 
     public static BluetoothConnectionService getInstance() {
-        if (instance == null) {
-            instance = new BluetoothConnectionService();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
-    @SuppressLint("MissingPermission")
+    /**
+     * Sends only the event ID, for receivers of older versions that fetch the event from the cloud.
+     */
     public void connectToDevice(BluetoothDevice device, String message) {
-        new Thread(() -> {
-            try {
-                socket = device.createRfcommSocketToServiceRecord(MY_UUID);
-                socket.connect();
-
-                outputStream = socket.getOutputStream();
-                inputStream = socket.getInputStream();
-
-                isConnected = true;
-
-                // Send the message
-                write(message.getBytes());
-
-                // Start listening for incoming messages
-                startListening();
+        connectionTo(device.getAddress()).sendRaw(message.getBytes());
+    }
 
-            } catch (IOException e) {
-                Log.e(TAG, "Error connecting to device", e);
-                close();
+    /**
+     * Sends the whole event in one {@link ShareProtocol} frame and waits for the receiver to
+     * acknowledge it, so the share needs neither the cloud nor a second round trip.
+     */
+    public void shareEvent(BluetoothDevice device, Event event) {
+        share(device.getAddress(), Collections.singletonList(event), (delivered, error) -> {
+            if (error == null) {
+                Log.d(TAG, "Event delivered: " + event.getId());
             }
-        }).start();
+        });
     }
 
-    private void startListening() {
-        new Thread(() -> {
-            byte[] buffer = new byte[1024];
-            int bytes;
-
-            while (isConnected) {
-                try {
-                    bytes = inputStream.read(buffer);
-                    String message = new String(buffer, 0, bytes);
-
-                    // Handle received message on main thread
-                    new Handler(Looper.getMainLooper()).post(() -> {
-                        // Handle the received message here
-                        Log.d(TAG, "Received message: " + message);
-                    });
-                } catch (IOException e) {
-                    Log.e(TAG, "Error reading from input stream", e);
-                    break;
-                }
+    /**
+     * Streams all events over one connection, see {@link BatchSender}.
+     */
+    public void shareEvents(BluetoothDevice device, List<Event> events) {
+        long startNanos = System.nanoTime();
+        share(device.getAddress(), events, (delivered, error) -> {
+            if (error == null) {
+                Log.d(TAG, "Delivered " + delivered + " events in "
+                        + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
             }
-        }).start();
+        });
     }
 
-    public void write(byte[] data) {
-        try {
-            outputStream.write(data);
-        } catch (IOException e) {
-            Log.e(TAG, "Error writing to output stream", e);
-        }
+    /**
+     * Queues events for the device with the given address on its pooled connection, see
+     * {@link PeerConnection#share}.
+     */
+    public void share(String address, List<Event> events, PeerConnection.ShareCallback callback) {
+        connectionTo(address).share(events, callback);
     }
 
+    /**
+     * Closes all pooled connections.
+     */
     public void close() {
-        isConnected = false;
-        try {
-            if (socket != null) {
-                socket.close();
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error closing socket", e);
+        for (PeerConnection connection : connections.values()) {
+            connection.close();
         }
     }
-}
\ No newline at end of file
+
+    private PeerConnection connectionTo(String address) {
+        return connections.computeIfAbsent(address, key ->
+                new PeerConnection(key, () -> transport.connect(key), idleScheduler, idleTimeoutMillis));
+    }
+}
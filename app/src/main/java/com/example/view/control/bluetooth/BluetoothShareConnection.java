@@ -0,0 +1,39 @@
+package com.example.view.control.bluetooth;
+
+import android.bluetooth.BluetoothSocket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link ShareConnection} over an RFCOMM socket.
+ */
+public class BluetoothShareConnection implements ShareConnection {
+
+    private final BluetoothSocket socket;
+
+    public BluetoothShareConnection(BluetoothSocket socket) {
+        this.socket = socket;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return socket.isConnected();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
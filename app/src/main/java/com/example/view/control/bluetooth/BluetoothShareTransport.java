@@ -0,0 +1,54 @@
+package com.example.view.control.bluetooth;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothServerSocket;
+import android.bluetooth.BluetoothSocket;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * {@link ShareTransport} over RFCOMM sockets, addressed by the MAC address of the device.
+ */
+public class BluetoothShareTransport implements ShareTransport {
+
+    private static final String SERVICE_NAME = "BluetoothApp";
+    private static final UUID SERVICE_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB"); // Standard SerialPortService ID
+
+    private final BluetoothAdapter adapter;
+
+    public BluetoothShareTransport(BluetoothAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public ShareConnection connect(String address) throws IOException {
+        BluetoothSocket socket = adapter.getRemoteDevice(address).createRfcommSocketToServiceRecord(SERVICE_UUID);
+        try {
+            socket.connect();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return new BluetoothShareConnection(socket);
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public Acceptor listen() throws IOException {
+        BluetoothServerSocket serverSocket = adapter.listenUsingRfcommWithServiceRecord(SERVICE_NAME, SERVICE_UUID);
+        return new Acceptor() {
+            @Override
+            public ShareConnection accept() throws IOException {
+                return new BluetoothShareConnection(serverSocket.accept());
+            }
+
+            @Override
+            public void close() throws IOException {
+                serverSocket.close();
+            }
+        };
+    }
+}
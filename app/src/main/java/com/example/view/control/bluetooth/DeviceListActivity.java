@@ -8,6 +8,7 @@ import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothManager;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.util.Log;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 import android.widget.Toast;
@@ -16,11 +17,22 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
 import com.example.view.R;
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.EventRepository;
+import com.example.view.model.repository.RepositoryCallback;
 
+import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 public class DeviceListActivity extends AppCompatActivity {
+    // Extras for sharing a date range [start, end) and/or a category in one session
+    public static final String EXTRA_SHARE_RANGE_START = "shareRangeStart";
+    public static final String EXTRA_SHARE_RANGE_END = "shareRangeEnd";
+    public static final String EXTRA_SHARE_CATEGORY = "shareCategory";
+
     private BluetoothAdapter bluetoothAdapter;
     private ListView deviceList;
     private ArrayList<BluetoothDevice> devices;
@@ -30,7 +42,13 @@ public class DeviceListActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_device_list);
 
-        String idOfEventToShare = getIntent().getSerializableExtra("idOfEventToShare").toString();
+        Serializable idExtra = getIntent().getSerializableExtra("idOfEventToShare");
+        String idOfEventToShare = idExtra != null ? idExtra.toString() : null;
+        Event eventToShare = (Event) getIntent().getSerializableExtra("eventToShare");
+        // Alternatively a whole date range or category is streamed in one session
+        LocalDateTime shareRangeStart = (LocalDateTime) getIntent().getSerializableExtra(EXTRA_SHARE_RANGE_START);
+        LocalDateTime shareRangeEnd = (LocalDateTime) getIntent().getSerializableExtra(EXTRA_SHARE_RANGE_END);
+        String shareCategory = getIntent().getStringExtra(EXTRA_SHARE_CATEGORY);
 
         deviceList = findViewById(R.id.deviceList);
         devices = new ArrayList<>();
@@ -42,11 +60,39 @@ public class DeviceListActivity extends AppCompatActivity {
 
         deviceList.setOnItemClickListener((parent, view, position, id) -> {
             BluetoothDevice device = devices.get(position);
-            BluetoothConnectionService.getInstance().connectToDevice(device, idOfEventToShare);
+            if (shareRangeStart != null && shareRangeEnd != null || shareCategory != null) {
+                shareEvents(device, shareRangeStart, shareRangeEnd, shareCategory);
+            } else if (eventToShare != null) {
+                BluetoothConnectionService.getInstance().shareEvent(device, eventToShare);
+            } else {
+                BluetoothConnectionService.getInstance().connectToDevice(device, idOfEventToShare);
+            }
             finish();
         });
     }
 
+    private void shareEvents(BluetoothDevice device, LocalDateTime start, LocalDateTime end, String category) {
+        EventRepository repository = new EventRepository(getApplicationContext());
+        RepositoryCallback<List<Event>> callback = events -> {
+            if (events == null) {
+                Log.e("DeviceListActivity", "Could not load events to share");
+                return;
+            }
+            List<Event> eventsToShare = new ArrayList<>();
+            for (Event event : events) {
+                if (category == null || category.equals(event.getCategory())) {
+                    eventsToShare.add(event);
+                }
+            }
+            BluetoothConnectionService.getInstance().shareEvents(device, eventsToShare);
+        };
+        if (start != null && end != null) {
+            repository.getEventsBetweenAsync(start, end, callback);
+        } else {
+            repository.getAllEventsAsync(callback);
+        }
+    }
+
     private void showPairedDevices() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_CONNECT) != PackageManager.PERMISSION_GRANTED) {
             Toast.makeText(this, "Bluetooth permission required", Toast.LENGTH_SHORT).show();
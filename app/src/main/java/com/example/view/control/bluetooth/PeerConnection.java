@@ -0,0 +1,222 @@
+package com.example.view.control.bluetooth;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection to one peer, kept open between shares so repeated shares skip the connect. All
+ * writes go through a single writer thread. Events queued while a share is in flight are merged
+ * into the next one, and an event queued twice is only sent in its latest version. A connection
+ * that turns out to be dead is replaced once; an idle connection is closed after
+ * {@code idleTimeoutMillis}.
+ */
+public class PeerConnection {
+
+    private static final String TAG = "PeerConnection";
+
+    /**
+     * Opens a new connection to the peer.
+     */
+    public interface Dialer {
+        ShareConnection dial() throws IOException;
+    }
+
+    /**
+     * Outcome of a share, called on the writer thread.
+     */
+    public interface ShareCallback {
+        /**
+         * @param delivered Number of distinct events of this share that were delivered, also when
+         *                  it was merged with other shares.
+         */
+        void onShareFinished(int delivered, IOException error);
+    }
+
+    private static final class PendingCallback {
+        final ShareCallback callback;
+        final int eventCount;
+
+        PendingCallback(ShareCallback callback, int eventCount) {
+            this.callback = callback;
+            this.eventCount = eventCount;
+        }
+    }
+
+    private final String address;
+    private final Dialer dialer;
+    private final ScheduledExecutorService idleScheduler;
+    private final long idleTimeoutMillis;
+    private final ThreadPoolExecutor writer;
+
+    private final Map<String, Event> pending = new LinkedHashMap<>();
+    private final List<PendingCallback> pendingCallbacks = new ArrayList<>();
+    private boolean drainScheduled;
+
+    // Only touched on the writer thread; close() and the idle timeout hand their work to it
+    private ShareConnection connection;
+    private ScheduledFuture<?> idleClose;
+
+    public PeerConnection(String address, Dialer dialer, ScheduledExecutorService idleScheduler, long idleTimeoutMillis) {
+        this.address = address;
+        this.dialer = dialer;
+        this.idleScheduler = idleScheduler;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "share-writer-" + address);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues events for the peer.
+     *
+     * @param callback Called once the events are delivered or failed, may be null.
+     */
+    public void share(Collection<Event> events, ShareCallback callback) {
+        Set<String> ids = new HashSet<>();
+        synchronized (pending) {
+            for (Event event : events) {
+                // Re-inserting moves the latest version to the end
+                pending.remove(event.getId());
+                pending.put(event.getId(), event);
+                ids.add(event.getId());
+            }
+            if (callback != null) {
+                pendingCallbacks.add(new PendingCallback(callback, ids.size()));
+            }
+            if (!drainScheduled) {
+                drainScheduled = true;
+                writer.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Sends raw bytes on a connection of its own, for receivers that only understand the plain
+     * event ID of older versions.
+     */
+    public void sendRaw(byte[] message) {
+        writer.execute(() -> {
+            try (ShareConnection oneOff = dialer.dial()) {
+                oneOff.getOutputStream().write(message);
+                oneOff.getOutputStream().flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Error sending message to " + address, e);
+            }
+        });
+    }
+
+    /**
+     * Closes the pooled connection. Queued shares still run and reconnect.
+     */
+    public void close() {
+        writer.execute(this::closeConnection);
+    }
+
+    private void drain() {
+        List<Event> events;
+        List<PendingCallback> callbacks;
+        synchronized (pending) {
+            events = new ArrayList<>(pending.values());
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pending.clear();
+            pendingCallbacks.clear();
+            drainScheduled = false;
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        IOException error = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            boolean reused = connection != null && connection.isOpen();
+            try {
+                send(connected(), events);
+                error = null;
+                break;
+            } catch (IOException e) {
+                error = e;
+                closeConnection();
+                if (!reused) {
+                    // A fresh connection failed, retrying right away will not help
+                    break;
+                }
+                Log.d(TAG, "Pooled connection to " + address + " was dead, reconnecting");
+            }
+        }
+        if (error != null) {
+            Log.e(TAG, "Error sharing " + events.size() + " events with " + address, error);
+        } else {
+            scheduleIdleClose();
+        }
+        // A merged share is delivered as a whole or not at all
+        for (PendingCallback pendingCallback : callbacks) {
+            pendingCallback.callback.onShareFinished(error == null ? pendingCallback.eventCount : 0, error);
+        }
+    }
+
+    private int send(ShareConnection connection, List<Event> events) throws IOException {
+        InputStream in = connection.getInputStream();
+        OutputStream out = connection.getOutputStream();
+        if (events.size() == 1) {
+            ShareProtocol.writeEvent(out, events.get(0));
+            if (!ShareProtocol.readAck(in)) {
+                throw new IOException("Receiver could not store event " + events.get(0).getId());
+            }
+            return 1;
+        }
+        return new BatchSender().send(events, in, out);
+    }
+
+    private ShareConnection connected() throws IOException {
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+        if (connection == null || !connection.isOpen()) {
+            closeConnection();
+            long startNanos = System.nanoTime();
+            connection = dialer.dial();
+            Log.d(TAG, "Connected to " + address + " in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+        }
+        return connection;
+    }
+
+    private void scheduleIdleClose() {
+        idleClose = idleScheduler.schedule(this::close, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeConnection() {
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing connection to " + address, e);
+            }
+            connection = null;
+        }
+    }
+}
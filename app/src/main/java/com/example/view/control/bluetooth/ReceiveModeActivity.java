@@ -2,8 +2,6 @@ package com.example.view.control.bluetooth;
 
 import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothServerSocket;
-import android.bluetooth.BluetoothSocket;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
@@ -21,15 +19,14 @@ import com.example.view.model.calendar.Event;
 import com.example.view.model.repository.EventRepository;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.UUID;
+import java.util.Collections;
 
 public class ReceiveModeActivity extends AppCompatActivity {
     private static final String TAG = "ReceiveModeActivity";
-    private static final UUID MY_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
     private BluetoothAdapter bluetoothAdapter;
-    private AcceptThread acceptThread;
+    private ReceiveServer receiveServer;
     private TextView statusText;
+    private int receivedCount;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,10 +39,34 @@ public class ReceiveModeActivity extends AppCompatActivity {
         startListening();
     }
 
+    @SuppressLint("MissingPermission")
     private void startListening() {
-        acceptThread = new AcceptThread();
-        acceptThread.start();
-        updateStatus("Listening for connections...");
+        EventRepository repository = new EventRepository(this);
+        receiveServer = new ReceiveServer(new BatchedEventWriter(repository::insertReceivedEventPayloads),
+                new ReceiveServer.Listener() {
+                    @Override
+                    public void onEventReceived(Event event) {
+                        returnEventToHostActivity(event.getId(), event);
+                    }
+
+                    @Override
+                    public void onBatchReceived(int count) {
+                        onEventsSaved(count, count + " events saved");
+                    }
+
+                    @Override
+                    public void onLegacyShare(String idOfSharedEvent) {
+                        returnToHostActivity(idOfSharedEvent);
+                    }
+                });
+        try {
+            // Keeps accepting senders until the activity is closed
+            receiveServer.start(new BluetoothShareTransport(bluetoothAdapter));
+            updateStatus("Listening for connections...");
+        } catch (IOException e) {
+            Log.e(TAG, "Socket's listen() method failed", e);
+            updateStatus("Bluetooth not available");
+        }
     }
 
     private void updateStatus(String message) {
@@ -75,115 +96,62 @@ public class ReceiveModeActivity extends AppCompatActivity {
                     new Thread(() -> {
                         try {
                             EventRepository repository = new EventRepository(this);
-                            repository.insertEvent(event);
-
-                            // Switch back to main thread for UI updates
-                            new Handler(Looper.getMainLooper()).post(() -> {
-                                Toast.makeText(this,
-                                        "Event saved: " + event.getTitle(),
-                                        Toast.LENGTH_LONG).show();
-
-                                Toast.makeText(this, receivedMessage, Toast.LENGTH_LONG).show();
-                                Intent resultIntent = new Intent();
-                                resultIntent.putExtra("received_message", receivedMessage);
-                                resultIntent.putExtra("event_id", event.getId());
-                                setResult(RESULT_OK, resultIntent);
-                                finish();
-                            });
+                            // insertEvent only logs failures, so a lost event would look saved
+                            if (repository.insertReceivedEvents(Collections.singletonList(event)) < 0) {
+                                throw new IOException("Could not store event " + event.getId());
+                            }
+                            returnEventToHostActivity(receivedMessage, event);
                         } catch (Exception e) {
                             Log.e(TAG, "Error saving event", e);
-                            new Handler(Looper.getMainLooper()).post(() -> {
-                                Toast.makeText(this,
-                                        "Error saving event: " + e.getMessage(),
-                                        Toast.LENGTH_LONG).show();
-                                setResult(RESULT_CANCELED);
-                                finish();
-                            });
+                            new Handler(Looper.getMainLooper()).post(() ->
+                                    Toast.makeText(this,
+                                            "Error saving event: " + e.getMessage(),
+                                            Toast.LENGTH_LONG).show());
                         }
                     }).start();
                 } else {
                     Toast.makeText(this,
                             "Error retrieving event data",
                             Toast.LENGTH_LONG).show();
-                    setResult(RESULT_CANCELED);
-                    finish();
                 }
             });
         });
     }
 
+    private void returnEventToHostActivity(String receivedMessage, Event event) {
+        // Switch back to main thread for UI updates
+        new Handler(Looper.getMainLooper()).post(() -> {
+            Toast.makeText(this,
+                    "Event saved: " + event.getTitle(),
+                    Toast.LENGTH_LONG).show();
+
+            // The result is delivered when the user leaves receive mode; further senders may follow
+            Intent resultIntent = new Intent();
+            resultIntent.putExtra("received_message", receivedMessage);
+            resultIntent.putExtra("event_id", event.getId());
+            receivedCount++;
+            resultIntent.putExtra("received_count", receivedCount);
+            setResult(RESULT_OK, resultIntent);
+            updateStatus(receivedCount + " events received, listening for more...");
+        });
+    }
 
-    private class AcceptThread extends Thread {
-        private final BluetoothServerSocket serverSocket;
-
-        @SuppressLint("MissingPermission")
-        public AcceptThread() {
-            BluetoothServerSocket tmp = null;
-            try {
-                tmp = bluetoothAdapter.listenUsingRfcommWithServiceRecord("BluetoothApp", MY_UUID);
-            } catch (IOException e) {
-                Log.e(TAG, "Socket's listen() method failed", e);
-            }
-            serverSocket = tmp;
-        }
-
-        public void run() {
-            BluetoothSocket socket;
-            while (true) {
-                try {
-                    socket = serverSocket.accept();
-                } catch (IOException e) {
-                    Log.e(TAG, "Socket's accept() method failed", e);
-                    break;
-                }
-
-                if (socket != null) {
-                    manageConnectedSocket(socket);
-                    try {
-                        serverSocket.close();
-                    } catch (IOException e) {
-                        Log.e(TAG, "Could not close the connect socket", e);
-                    }
-                    break;
-                }
-            }
-        }
-
-        private void manageConnectedSocket(BluetoothSocket socket) {
-            updateStatus("Connected!");
-
-            byte[] buffer = new byte[1024];
-            int bytes;
-
-            try {
-                InputStream inputStream = socket.getInputStream();
-                // Read only once - first message received
-                bytes = inputStream.read(buffer);
-                if (bytes > 0) {
-                    String message = new String(buffer, 0, bytes);
-                    returnToHostActivity(message);
-                }
-                socket.close();
-            } catch (IOException e) {
-                Log.e(TAG, "Error reading from socket", e);
-                updateStatus("Connection lost");
-            }
-        }
-
-        public void cancel() {
-            try {
-                serverSocket.close();
-            } catch (IOException e) {
-                Log.e(TAG, "Could not close the connect socket", e);
-            }
-        }
+    private void onEventsSaved(int count, String message) {
+        new Handler(Looper.getMainLooper()).post(() -> {
+            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+            receivedCount += count;
+            Intent resultIntent = new Intent();
+            resultIntent.putExtra("received_count", receivedCount);
+            setResult(RESULT_OK, resultIntent);
+            updateStatus(receivedCount + " events received, listening for more...");
+        });
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (acceptThread != null) {
-            acceptThread.cancel();
+        if (receiveServer != null) {
+            receiveServer.stop();
         }
     }
 }
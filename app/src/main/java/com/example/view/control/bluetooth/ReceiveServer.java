@@ -0,0 +1,245 @@
+package com.example.view.control.bluetooth;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps accepting share connections until {@link #stop()} and serves each on a bounded worker
+ * pool, so several senders in a room can push events to one device at the same time. All
+ * received events go through one {@link BatchedEventWriter}. Connections beyond the pool and its
+ * queue are closed right away; the sender sees a failed share instead of waiting indefinitely.
+ */
+public class ReceiveServer {
+
+    private static final String TAG = "ReceiveServer";
+
+    // A piconet has at most 7 active peers, each may keep its connection open between shares
+    public static final int DEFAULT_MAX_WORKERS = 7;
+
+    // Older senders write the event ID and close the connection
+    private static final int MAX_LEGACY_ID_LENGTH = 256;
+    private static final long LEGACY_READ_TIMEOUT_MILLIS = 5_000L;
+
+    // Closes the input of a legacy share that never ends, which unblocks its read
+    private static final ScheduledExecutorService legacyTimeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "share-legacy-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Called on the worker thread of the connection.
+     */
+    public interface Listener {
+        void onEventReceived(Event event);
+
+        void onBatchReceived(int count);
+
+        /**
+         * An older sender only sent the ID of an event shared through the cloud.
+         */
+        void onLegacyShare(String idOfSharedEvent);
+    }
+
+    private final BatchedEventWriter writer;
+    private final Listener listener;
+    private final int maxWorkers;
+    private ThreadPoolExecutor workers;
+    private ShareTransport.Acceptor acceptor;
+    private Thread acceptThread;
+
+    public ReceiveServer(BatchedEventWriter writer, Listener listener) {
+        this(writer, listener, DEFAULT_MAX_WORKERS);
+    }
+
+    public ReceiveServer(BatchedEventWriter writer, Listener listener, int maxWorkers) {
+        this.writer = writer;
+        this.listener = listener;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Starts listening on the transport, e.g. {@link BluetoothShareTransport}. A stopped server
+     * can be started again; every start gets a fresh worker pool.
+     *
+     * @throws IOException If the transport could not listen.
+     */
+    public synchronized void start(ShareTransport transport) throws IOException {
+        if (acceptThread != null) {
+            return;
+        }
+        ShareTransport.Acceptor server = transport.listen();
+        ThreadPoolExecutor pool = newWorkerPool(maxWorkers);
+        acceptor = server;
+        workers = pool;
+        writer.start();
+        acceptThread = new Thread(() -> acceptLoop(server, pool), "share-accept");
+        acceptThread.start();
+    }
+
+    /**
+     * Stops accepting, drops connections in progress and stops the writer.
+     */
+    public synchronized void stop() {
+        try {
+            if (acceptor != null) {
+                acceptor.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Could not stop listening", e);
+        }
+        acceptor = null;
+        acceptThread = null;
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+        writer.stop();
+    }
+
+    private static ThreadPoolExecutor newWorkerPool(int maxWorkers) {
+        AtomicInteger workerCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxWorkers, maxWorkers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxWorkers), runnable -> {
+            Thread thread = new Thread(runnable, "share-receiver-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private void acceptLoop(ShareTransport.Acceptor server, ThreadPoolExecutor pool) {
+        while (true) {
+            ShareConnection connection;
+            try {
+                connection = server.accept();
+            } catch (IOException e) {
+                // Also thrown when stop() closes the acceptor
+                Log.d(TAG, "Stopped accepting connections: " + e.getMessage());
+                return;
+            }
+            try {
+                pool.execute(() -> serve(connection));
+            } catch (RejectedExecutionException e) {
+                // Pool and queue are full, or the server was stopped meanwhile
+                Log.e(TAG, "Too many senders, dropping connection");
+                closeQuietly(connection);
+            }
+        }
+    }
+
+    private void serve(ShareConnection connection) {
+        try {
+            handle(connection.getInputStream(), connection.getOutputStream());
+        } catch (IOException e) {
+            Log.e(TAG, "Error receiving share", e);
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Serves one connection until the sender closes it: any number of single events and batches,
+     * or the plain event ID of an older sender.
+     */
+    public void handle(InputStream in, OutputStream out) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        // Framed shares start with the protocol magic, older senders send only the event ID
+        byte[] start = new byte[4];
+        data.readFully(start);
+        if (ByteBuffer.wrap(start).getInt() != ShareProtocol.MAGIC) {
+            listener.onLegacyShare(readLegacyId(start, data));
+            return;
+        }
+
+        // Senders keep the connection open for further shares
+        while (true) {
+            handleShare(ShareProtocol.readFrameAfterMagic(data), data, out);
+            int magic;
+            try {
+                magic = data.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (magic != ShareProtocol.MAGIC) {
+                throw new ProtocolException("Not a share frame");
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of an event ID up to the end of the stream, a line break or NUL, for at most
+     * {@link #LEGACY_READ_TIMEOUT_MILLIS}.
+     */
+    private static String readLegacyId(byte[] start, InputStream in) throws IOException {
+        ByteArrayOutputStream id = new ByteArrayOutputStream();
+        id.write(start);
+        ScheduledFuture<?> timeout = legacyTimeouts.schedule(() -> {
+            try {
+                in.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not close legacy share", e);
+            }
+        }, LEGACY_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            int b;
+            while (id.size() < MAX_LEGACY_ID_LENGTH && (b = in.read()) != -1 && b != '\n' && b != 0) {
+                id.write(b);
+            }
+        } catch (IOException e) {
+            if (!timeout.isDone()) {
+                throw e;
+            }
+            Log.d(TAG, "Legacy share did not end, using the " + id.size() + " bytes received");
+        } finally {
+            timeout.cancel(false);
+        }
+        return new String(id.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    private void handleShare(ShareProtocol.Frame frame, DataInputStream data, OutputStream out) throws IOException {
+        if (frame.getType() == ShareProtocol.TYPE_BATCH_START) {
+            int received = new BatchReceiver(writer::write).receive(frame, data, out);
+            listener.onBatchReceived(received);
+        } else if (frame.getType() == ShareProtocol.TYPE_EVENT) {
+            Event event = ShareProtocol.decodeEvent(frame.getPayload());
+            boolean stored = writer.write(Collections.singletonList(event)) >= 0;
+            ShareProtocol.writeAck(out, stored ? ShareProtocol.ACK_OK : ShareProtocol.ACK_ERROR);
+            if (!stored) {
+                throw new IOException("Could not store event " + event.getId());
+            }
+            listener.onEventReceived(event);
+        } else {
+            throw new ProtocolException("Unexpected frame type " + frame.getType());
+        }
+    }
+
+    private static void closeQuietly(ShareConnection connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not close the connected socket", e);
+        }
+    }
+}
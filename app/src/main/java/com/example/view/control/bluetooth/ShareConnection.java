@@ -0,0 +1,22 @@
+package com.example.view.control.bluetooth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Open byte stream to another device that carries {@link ShareProtocol} frames.
+ */
+public interface ShareConnection extends Closeable {
+
+    InputStream getInputStream() throws IOException;
+
+    OutputStream getOutputStream() throws IOException;
+
+    /**
+     * @return false once the connection is known to be closed. A true result does not guarantee
+     * that the peer is still there; the next write may still fail.
+     */
+    boolean isOpen();
+}
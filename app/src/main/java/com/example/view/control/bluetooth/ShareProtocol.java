@@ -0,0 +1,220 @@
+package com.example.view.control.bluetooth;
+
+import com.example.view.control.cloud.RestApiService;
+import com.example.view.model.calendar.Event;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Framing for event shares over an RFCOMM socket. Every frame is
+ * <pre>
+ * magic (4) | version (1) | type (1) | length (4) | payload (length) | crc32 (4)
+ * </pre>
+ * in big-endian byte order. The CRC covers version, type, length and payload.
+ * An {@link #TYPE_EVENT} frame carries the event as UTF-8 JSON in the cloud format, so the
+ * receiver can store it without a cloud round trip; it answers with an {@link #TYPE_ACK} frame.
+ * <p>
+ * A batch of events is streamed as {@link #TYPE_BATCH_START} (event count), numbered
+ * {@link #TYPE_CHUNK} frames (sequence number followed by a JSON array of events) and
+ * {@link #TYPE_BATCH_END} (chunk count). The receiver confirms every stored chunk with a
+ * {@link #TYPE_CHUNK_ACK} and the whole batch with a {@link #TYPE_ACK}; see {@link BatchSender}.
+ */
+public final class ShareProtocol {
+
+    public static final int MAGIC = 0x43414C53; // "CALS"
+    public static final byte VERSION = 1;
+
+    public static final byte TYPE_EVENT = 1;
+    public static final byte TYPE_ACK = 2;
+    public static final byte TYPE_BATCH_START = 3;
+    public static final byte TYPE_CHUNK = 4;
+    public static final byte TYPE_CHUNK_ACK = 5;
+    public static final byte TYPE_BATCH_END = 6;
+
+    public static final byte ACK_OK = 0;
+    public static final byte ACK_ERROR = 1;
+
+    public static final int HEADER_SIZE = 10;
+    public static final int TRAILER_SIZE = 4;
+    public static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
+
+    private static final Type EVENT_LIST = new TypeToken<List<Event>>() {}.getType();
+
+    public static final class Frame {
+        private final byte type;
+        private final byte[] payload;
+
+        public Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private ShareProtocol() {
+    }
+
+    /**
+     * Writes the frame with a single write, so it usually leaves in one RFCOMM packet.
+     */
+    public static void writeFrame(OutputStream out, byte type, byte[] payload) throws IOException {
+        if (payload.length > MAX_PAYLOAD_SIZE) {
+            throw new ProtocolException("Payload of " + payload.length + " bytes exceeds " + MAX_PAYLOAD_SIZE);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length + TRAILER_SIZE);
+        frame.putInt(MAGIC)
+                .put(VERSION)
+                .put(type)
+                .putInt(payload.length)
+                .put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 4, HEADER_SIZE - 4 + payload.length);
+        frame.putInt((int) crc.getValue());
+        out.write(frame.array());
+        out.flush();
+    }
+
+    /**
+     * @throws EOFException      If the stream ends before or inside a frame.
+     * @throws ProtocolException If the frame is not a valid frame of this version.
+     */
+    public static Frame readFrame(InputStream in) throws IOException {
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        int magic = data.readInt();
+        if (magic != MAGIC) {
+            throw new ProtocolException("Not a share frame");
+        }
+        return readFrameAfterMagic(data);
+    }
+
+    /**
+     * Reads the rest of a frame whose magic has already been consumed, e.g. to tell frames apart
+     * from the plain event IDs sent by older versions.
+     */
+    public static Frame readFrameAfterMagic(DataInputStream data) throws IOException {
+        byte[] header = new byte[HEADER_SIZE - 4];
+        data.readFully(header);
+        ByteBuffer fields = ByteBuffer.wrap(header);
+        byte version = fields.get();
+        byte type = fields.get();
+        int length = fields.getInt();
+        if (version != VERSION) {
+            throw new ProtocolException("Unsupported share protocol version " + version);
+        }
+        if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+            throw new ProtocolException("Invalid payload length " + length);
+        }
+        byte[] payload = new byte[length];
+        data.readFully(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(header);
+        crc.update(payload);
+        if (data.readInt() != (int) crc.getValue()) {
+            throw new ProtocolException("Checksum mismatch in share frame");
+        }
+        return new Frame(type, payload);
+    }
+
+    public static byte[] encodeEvent(Event event) {
+        return RestApiService.toJson(event).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static Event decodeEvent(byte[] payload) throws ProtocolException {
+        try {
+            Event event = RestApiService.fromJson(new String(payload, StandardCharsets.UTF_8), Event.class);
+            if (event == null || event.getId() == null) {
+                throw new ProtocolException("Share frame without event");
+            }
+            return event;
+        } catch (JsonParseException e) {
+            throw new ProtocolException("Malformed event in share frame: " + e.getMessage());
+        }
+    }
+
+    public static void writeIntFrame(OutputStream out, byte type, int value) throws IOException {
+        writeFrame(out, type, ByteBuffer.allocate(4).putInt(value).array());
+    }
+
+    public static int readInt(Frame frame) throws ProtocolException {
+        if (frame.getPayload().length < 4) {
+            throw new ProtocolException("Frame type " + frame.getType() + " without number");
+        }
+        return ByteBuffer.wrap(frame.getPayload()).getInt();
+    }
+
+    /**
+     * @param events Events already encoded with {@link #encodeEvent(Event)}.
+     */
+    public static void writeChunk(OutputStream out, int sequence, List<byte[]> events) throws IOException {
+        int size = 4 + 2 + Math.max(0, events.size() - 1);
+        for (byte[] event : events) {
+            size += event.length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size).putInt(sequence).put((byte) '[');
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                payload.put((byte) ',');
+            }
+            payload.put(events.get(i));
+        }
+        writeFrame(out, TYPE_CHUNK, payload.put((byte) ']').array());
+    }
+
+    public static List<Event> decodeChunk(Frame frame) throws ProtocolException {
+        byte[] payload = frame.getPayload();
+        try {
+            List<Event> events = RestApiService.fromJson(
+                    new InputStreamReader(new ByteArrayInputStream(payload, 4, payload.length - 4), StandardCharsets.UTF_8),
+                    EVENT_LIST);
+            if (events == null) {
+                throw new ProtocolException("Chunk without events");
+            }
+            return events;
+        } catch (JsonParseException e) {
+            throw new ProtocolException("Malformed events in chunk: " + e.getMessage());
+        }
+    }
+
+    public static void writeEvent(OutputStream out, Event event) throws IOException {
+        writeFrame(out, TYPE_EVENT, encodeEvent(event));
+    }
+
+    public static void writeAck(OutputStream out, byte status) throws IOException {
+        writeFrame(out, TYPE_ACK, new byte[]{status});
+    }
+
+    /**
+     * Waits for the acknowledgement of the receiver.
+     *
+     * @return true if the receiver stored the share.
+     */
+    public static boolean readAck(InputStream in) throws IOException {
+        Frame frame = readFrame(in);
+        if (frame.getType() != TYPE_ACK || frame.getPayload().length != 1) {
+            throw new ProtocolException("Expected acknowledgement, got frame type " + frame.getType());
+        }
+        return frame.getPayload()[0] == ACK_OK;
+    }
+}
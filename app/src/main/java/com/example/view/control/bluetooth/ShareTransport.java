@@ -0,0 +1,34 @@
+package com.example.view.control.bluetooth;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Opens the byte streams that shares travel over. {@link BluetoothShareTransport} is used on
+ * devices; the TCP loopback transport of the unit tests runs the same sender and receiver logic
+ * on a machine without Bluetooth, e.g. for benchmarks.
+ */
+public interface ShareTransport {
+
+    /**
+     * Accepts incoming connections until it is closed.
+     */
+    interface Acceptor extends Closeable {
+        /**
+         * Blocks until a sender connects.
+         *
+         * @throws IOException Also when the acceptor is closed while waiting.
+         */
+        ShareConnection accept() throws IOException;
+    }
+
+    /**
+     * Connects to the receiver with the given address and blocks until the connection is open.
+     */
+    ShareConnection connect(String address) throws IOException;
+
+    /**
+     * Starts listening for senders.
+     */
+    Acceptor listen() throws IOException;
+}
@@ -14,11 +14,17 @@ import com.example.view.model.todo.Task;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public abstract class CalendarViewModel extends ViewModel implements TodoEventInterface {
     private final MutableLiveData<List<Event>> eventsLiveData = new MutableLiveData<>();
     private final EventRepository eventRepository;
 
+    // Date of the currently displayed events, null while all events are shown
+    private volatile LocalDateTime currentDate;
+    // Pending load, cancelled when a newer load supersedes it
+    private Future<List<Event>> pendingLoad;
+
     public CalendarViewModel(Context context) {
         if (context == null) {
             throw new IllegalArgumentException("Context cannot be null");
@@ -38,13 +44,15 @@ public abstract class CalendarViewModel extends ViewModel implements TodoEventIn
             Log.e("CalendarViewModel", "Date is null. Cannot load events.");
             return;
         }
-        try {
-            List<Event> eventsForDate = eventRepository.getEventsForDate(date);
-            eventsLiveData.setValue(eventsForDate);
+        currentDate = date;
+        replacePendingLoad(eventRepository.getEventsForDateAsync(date, eventsForDate -> {
+            if (eventsForDate == null) {
+                Log.e("CalendarViewModel", "Error loading events for date: " + date);
+                return;
+            }
+            eventsLiveData.postValue(eventsForDate);
             Log.d("CalendarViewModel", "Events loaded for date: " + date + ", count: " + eventsForDate.size());
-        } catch (Exception e) {
-            Log.e("CalendarViewModel", "Error loading events for date: " + date, e);
-        }
+        }));
     }
 
     @Override
@@ -53,13 +61,10 @@ public abstract class CalendarViewModel extends ViewModel implements TodoEventIn
             Log.e("CalendarViewModel", "Event is null. Cannot add.");
             return;
         }
-        try {
-            eventRepository.insertEvent(event);
-            loadEventsForDate(event.getStartDateTime());
-            Log.d("CalendarViewModel", "Event added: " + event.getTitle());
-        } catch (Exception e) {
-            Log.e("CalendarViewModel", "Error adding event: " + event, e);
-        }
+        eventRepository.insertEventAsync(event, added -> {
+            reloadCurrentEvents();
+            Log.d("CalendarViewModel", "Event added: " + added.getTitle());
+        });
     }
 
     @Override
@@ -68,13 +73,10 @@ public abstract class CalendarViewModel extends ViewModel implements TodoEventIn
             Log.e("CalendarViewModel", "Invalid event ID. Cannot delete.");
             return;
         }
-        try {
-            eventRepository.deleteEvent(eventId);
-            loadAllEvents();
-            Log.d("CalendarViewModel", "Event deleted with ID: " + eventId);
-        } catch (Exception e) {
-            Log.e("CalendarViewModel", "Error deleting event with ID: " + eventId, e);
-        }
+        eventRepository.deleteEventAsync(eventId, deletedId -> {
+            reloadCurrentEvents();
+            Log.d("CalendarViewModel", "Event deleted with ID: " + deletedId);
+        });
     }
 
     @Override
@@ -83,26 +85,49 @@ public abstract class CalendarViewModel extends ViewModel implements TodoEventIn
             Log.e("CalendarViewModel", "Event is null. Cannot update.");
             return;
         }
-        try {
-            eventRepository.updateEvent(event);
-            loadEventsForDate(event.getStartDateTime());
-            Log.d("CalendarViewModel", "Event updated: " + event.getTitle());
-        } catch (Exception e) {
-            Log.e("CalendarViewModel", "Error updating event: " + event, e);
-        }
+        eventRepository.updateEventAsync(event, updated -> {
+            reloadCurrentEvents();
+            Log.d("CalendarViewModel", "Event updated: " + updated.getTitle());
+        });
     }
 
     @Override
     public void loadAllEvents() {
-        try {
-            List<Event> allEvents = eventRepository.getAllEvents();
-            eventsLiveData.setValue(allEvents);
+        currentDate = null;
+        replacePendingLoad(eventRepository.getAllEventsAsync(allEvents -> {
+            if (allEvents == null) {
+                Log.e("CalendarViewModel", "Error loading all events");
+                return;
+            }
+            eventsLiveData.postValue(allEvents);
             Log.d("CalendarViewModel", "All events loaded, count: " + allEvents.size());
-        } catch (Exception e) {
-            Log.e("CalendarViewModel", "Error loading all events", e);
+        }));
+    }
+
+    // Refreshes whatever is currently displayed after a write has been applied
+    private void reloadCurrentEvents() {
+        LocalDateTime date = currentDate;
+        if (date != null) {
+            loadEventsForDate(date);
+        } else {
+            loadAllEvents();
         }
     }
 
+    private synchronized void replacePendingLoad(Future<List<Event>> load) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = load;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // Only reads are cancelled, writes already submitted still reach the database
+        replacePendingLoad(null);
+    }
+
     @Override
     public void createEventFromTaskForDay(Task task, LocalDateTime date) {
         if (task == null) {
@@ -1,6 +1,10 @@
 package com.example.view.control.calendar;
 
 import android.content.Context;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
 import com.example.view.model.calendar.Event;
 
 import java.util.ArrayList;
@@ -13,8 +17,8 @@ public class ConcreteCalendarViewModel extends CalendarViewModel {
     }
 
     @Override
-    public List<Event> getEventsForTask(String taskId) {
+    public LiveData<List<Event>> getEventsForTask(String taskId) {
         // Provide logic for retrieving events related to the given task ID
-        return new ArrayList<>(); // Replace with actual implementation
+        return new MutableLiveData<>(new ArrayList<>()); // Replace with actual implementation
     }
 }
\ No newline at end of file
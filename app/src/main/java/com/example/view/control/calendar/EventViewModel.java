@@ -7,6 +7,7 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.DatabaseExecutor;
 import com.example.view.model.repository.EventDatabaseHelper;
 import com.example.view.model.todo.Task;
 
@@ -14,12 +15,16 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public class EventViewModel extends ViewModel implements TodoEventInterface {
 
     private final MutableLiveData<List<Event>> eventsLiveData = new MutableLiveData<>();
     private final EventDatabaseHelper eventDatabaseHelper;
 
+    // Pending load, cancelled when a newer load supersedes it
+    private Future<List<Event>> pendingLoad;
+
     // Constructor to initialize EventDatabaseHelper
     public EventViewModel(EventDatabaseHelper eventDatabaseHelper) {
         this.eventDatabaseHelper = eventDatabaseHelper;
@@ -35,13 +40,10 @@ public class EventViewModel extends ViewModel implements TodoEventInterface {
 
     // Load all events from the database and update LiveData
     public void loadAllEvents() {
-        try {
-            List<Event> allEvents = eventDatabaseHelper.getAllEvents();
-            eventsLiveData.setValue(allEvents);
+        replacePendingLoad(DatabaseExecutor.read(eventDatabaseHelper::getAllEvents, allEvents -> {
+            eventsLiveData.postValue(allEvents);
             Log.d("EventViewModel", "All events loaded successfully. Count: " + allEvents.size());
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error loading all events", e);
-        }
+        }));
     }
 
     @Override
@@ -75,49 +77,30 @@ public class EventViewModel extends ViewModel implements TodoEventInterface {
     }
 
     @Override
-    public List<Event> getEventsForTask(String taskId) {
+    public LiveData<List<Event>> getEventsForTask(String taskId) {
+        MutableLiveData<List<Event>> eventsForTask = new MutableLiveData<>();
         if (taskId == null || taskId.isEmpty()) {
             Log.e("EventViewModel", "Task ID is null or empty. Cannot retrieve events.");
-            return Collections.emptyList();
-        }
-
-        try {
-            List<Event> allEvents = eventDatabaseHelper.getAllEvents();
-            List<Event> eventsForTask = new ArrayList<>();
-
-            // Filter events by the task ID
-            for (Event event : allEvents) {
-                if (taskId.equals(event.getId())) {
-                    eventsForTask.add(event);
-                }
-            }
-
-            Log.d("EventViewModel", "Events found for task ID: " + taskId + ", Count: " + eventsForTask.size());
+            eventsForTask.setValue(Collections.emptyList());
             return eventsForTask;
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error retrieving events for task ID: " + taskId, e);
-            return Collections.emptyList();
         }
+
+        DatabaseExecutor.read(() -> eventDatabaseHelper.getEventsForTask(taskId), events -> {
+            eventsForTask.postValue(events);
+            Log.d("EventViewModel", "Events found for task ID: " + taskId + ", Count: " + events.size());
+        });
+        return eventsForTask;
     }
 
     @Override
     public void loadEventsForDate(LocalDateTime date) {
-        try {
-            List<Event> allEvents = eventDatabaseHelper.getAllEvents();
-            List<Event> eventsForDate = new ArrayList<>();
-
-            // Filter events by the requested date
-            for (Event event : allEvents) {
-                if (isSameDay(event.getStartDateTime(), date)) {
-                    eventsForDate.add(event);
-                }
-            }
-
-            eventsLiveData.setValue(eventsForDate);
-            Log.d("EventViewModel", "Events loaded for date: " + date + ", Count: " + eventsForDate.size());
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error loading events for date: " + date, e);
-        }
+        LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
+        replacePendingLoad(DatabaseExecutor.read(
+                () -> eventDatabaseHelper.getEventsBetween(startOfDay, startOfDay.plusDays(1)),
+                eventsForDate -> {
+                    eventsLiveData.postValue(eventsForDate);
+                    Log.d("EventViewModel", "Events loaded for date: " + date + ", Count: " + eventsForDate.size());
+                }));
     }
 
     @Override
@@ -127,13 +110,13 @@ public class EventViewModel extends ViewModel implements TodoEventInterface {
             return;
         }
 
-        try {
+        DatabaseExecutor.write(() -> {
             eventDatabaseHelper.insertEvent(event); // Save to database
+            return event;
+        }, added -> {
             loadAllEvents(); // Refresh all events
-            Log.d("EventViewModel", "Event added successfully: " + event.getTitle());
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error adding event: " + event.getTitle(), e);
-        }
+            Log.d("EventViewModel", "Event added successfully: " + added.getTitle());
+        });
     }
 
     @Override
@@ -143,13 +126,13 @@ public class EventViewModel extends ViewModel implements TodoEventInterface {
             return;
         }
 
-        try {
+        DatabaseExecutor.write(() -> {
             eventDatabaseHelper.deleteEventById(eventId); // Delete from database
+            return eventId;
+        }, deletedId -> {
             loadAllEvents(); // Refresh all events
-            Log.d("EventViewModel", "Event deleted successfully with ID: " + eventId);
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error deleting event with ID: " + eventId, e);
-        }
+            Log.d("EventViewModel", "Event deleted successfully with ID: " + deletedId);
+        });
     }
 
     @Override
@@ -159,22 +142,27 @@ public class EventViewModel extends ViewModel implements TodoEventInterface {
             return;
         }
 
-        try {
+        DatabaseExecutor.write(() -> {
             // Call the correct method to update the event
             eventDatabaseHelper.updateEvent(event);
-
+            return event;
+        }, updated -> {
             // Refresh events for the updated event's date
-            loadEventsForDate(event.getStartDateTime());
-            Log.d("EventViewModel", "Event updated successfully: " + event.getTitle());
-        } catch (Exception e) {
-            Log.e("EventViewModel", "Error updating event: " + event.getTitle(), e);
-        }
+            loadEventsForDate(updated.getStartDateTime());
+            Log.d("EventViewModel", "Event updated successfully: " + updated.getTitle());
+        });
     }
 
+    private synchronized void replacePendingLoad(Future<List<Event>> load) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = load;
+    }
 
-
-    // Helper method to check if two LocalDateTime objects are on the same day
-    private boolean isSameDay(LocalDateTime dateTime1, LocalDateTime dateTime2) {
-        return dateTime1.toLocalDate().equals(dateTime2.toLocalDate());
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        replacePendingLoad(null);
     }
 }
@@ -66,7 +66,7 @@ public interface TodoEventInterface {
      * the connection between tasks and related events.
      *
      * @param taskId The ID of the task for which to fetch related events.
-     * @return A list of events associated with the task.
+     * @return LiveData that receives the events associated with the task once they are loaded.
      */
-    List<Event> getEventsForTask(String taskId);
+    LiveData<List<Event>> getEventsForTask(String taskId);
 }
@@ -0,0 +1,101 @@
+package com.example.view.control.cloud;
+
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body des Batch-Endpunkts: mehrere Erstell-, Änderungs- und Löschoperationen in einer Anfrage.
+ */
+public class BatchRequest {
+
+    @SerializedName("operations")
+    private final List<Operation> operations;
+
+    public BatchRequest(List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Erstellt den Body aus den zusammengefassten Operationen der Outbox.
+     */
+    public static BatchRequest from(List<OutboxCoalescer.Operation> coalesced) {
+        List<Operation> operations = new ArrayList<>(coalesced.size());
+        for (OutboxCoalescer.Operation operation : coalesced) {
+            JsonElement payload = operation.getPayload() == null
+                    ? null
+                    : RestApiService.fromJson(operation.getPayload(), JsonElement.class);
+            operations.add(new Operation(operation.getEntity(), operation.getOperation(),
+                    operation.getEntityId(), payload, operation.getIdempotencyKey()));
+        }
+        return new BatchRequest(operations);
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Key der gesamten Anfrage, abgeleitet aus den Keys der Operationen.
+     */
+    public String getIdempotencyKey() {
+        List<String> keys = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            keys.add(operation.getIdempotencyKey());
+        }
+        return IdempotencyKeys.combine(keys);
+    }
+
+    /**
+     * Eine einzelne Operation auf einem Event oder einer Task.
+     */
+    public static class Operation {
+
+        @SerializedName("entity")
+        private final String entity;
+
+        @SerializedName("operation")
+        private final String operation;
+
+        @SerializedName("id")
+        private final String id;
+
+        // JSON des Events bzw. der Task, null bei Löschungen
+        @SerializedName("payload")
+        private final JsonElement payload;
+
+        // Bleibt bei Wiederholungen gleich, damit der Server die Operation nur einmal ausführt
+        @SerializedName("idempotencyKey")
+        private final String idempotencyKey;
+
+        public Operation(String entity, String operation, String id, JsonElement payload, String idempotencyKey) {
+            this.entity = entity;
+            this.operation = operation;
+            this.id = id;
+            this.payload = payload;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public JsonElement getPayload() {
+            return payload;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+    }
+}
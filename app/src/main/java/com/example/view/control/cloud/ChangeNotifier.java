@@ -0,0 +1,236 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.JsonParseException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * Holds a WebSocket to the server over which it pushes short change hints for the account.
+ * A hint only names the changed record; the listener then fetches the actual changes, e.g. via
+ * {@link DeltaSync}. While nothing changes the only traffic is a WebSocket ping every
+ * {@link #PING_INTERVAL_MINUTES} minutes to keep NAT mappings open.
+ * Lost connections are re-established with exponential backoff and jitter.
+ * The app uses one notifier for its whole lifetime, see {@link #getInstance(Context)}.
+ */
+public class ChangeNotifier {
+
+    private static final long PING_INTERVAL_MINUTES = 4;
+    private static final long BASE_RECONNECT_MILLIS = 1_000L;
+    private static final long MAX_RECONNECT_MILLIS = 5 * 60_000L;
+
+    private static final int NORMAL_CLOSURE = 1000;
+
+    /**
+     * Receives hints on the WebSocket reader thread.
+     */
+    public interface Listener {
+        /**
+         * Called after every (re)connect. Hints sent while disconnected are lost, so the
+         * listener should fetch changes once.
+         */
+        void onConnected();
+
+        void onChangeHint(ChangeHint hint);
+    }
+
+    /**
+     * A record changed in the cloud, e.g. by another device or a share.
+     */
+    public static final class ChangeHint {
+        private String entity;
+        private String id;
+        private String operation;
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+    }
+
+    private static ChangeNotifier instance;
+
+    private final OkHttpClient client;
+    private final Listener listener;
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HttpUrl url;
+    private WebSocket webSocket;
+    private int failedConnects;
+    // Set between start and stop, so a late UUID does not open a channel after stop()
+    private boolean wanted;
+
+    /**
+     * Application-wide notifier that starts a delta sync for every hint, sharing the
+     * {@link RestApiService} client. Activities only start and stop it, so recreating them does
+     * not leave reconnect threads behind.
+     */
+    public static synchronized ChangeNotifier getInstance(Context context) {
+        if (instance == null) {
+            instance = forSync(OutboxDrainer.getInstance(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    private static ChangeNotifier forSync(OutboxDrainer drainer) {
+        return new ChangeNotifier(RestApiService.getHttpClient(), new Listener() {
+            @Override
+            public void onConnected() {
+                drainer.requestSync();
+            }
+
+            @Override
+            public void onChangeHint(ChangeHint hint) {
+                // Bursts of hints collapse into one pending sync
+                drainer.requestSync();
+            }
+        });
+    }
+
+    /**
+     * @param client Base client, e.g. {@link RestApiService#getHttpClient()}. Its connection pool
+     *               and dispatcher are shared, timeouts are adjusted for a long-lived connection.
+     */
+    public ChangeNotifier(OkHttpClient client, Listener listener) {
+        this.client = client.newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .callTimeout(0, TimeUnit.MILLISECONDS)
+                .pingInterval(PING_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .build();
+        this.listener = listener;
+    }
+
+    /**
+     * Connects to the channel of the account as soon as its UUID is known.
+     */
+    public void start(CloudSession session) {
+        synchronized (this) {
+            wanted = true;
+        }
+        session.whenReady(uuid -> {
+            synchronized (this) {
+                if (wanted) {
+                    start(RestApiService.getChangesUrl(uuid));
+                }
+            }
+        });
+    }
+
+    /**
+     * Connects to the given channel. Does nothing if it is already connected.
+     */
+    public synchronized void start(HttpUrl url) {
+        wanted = true;
+        if (url.equals(this.url) && webSocket != null) {
+            return;
+        }
+        closeSocket();
+        this.url = url;
+        failedConnects = 0;
+        connect();
+    }
+
+    /**
+     * Closes the channel and stops reconnecting.
+     */
+    public synchronized void stop() {
+        wanted = false;
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        url = null;
+        if (webSocket != null) {
+            webSocket.close(NORMAL_CLOSURE, null);
+            webSocket = null;
+        }
+    }
+
+    private synchronized void connect() {
+        if (url == null || webSocket != null) {
+            return;
+        }
+        webSocket = client.newWebSocket(new Request.Builder().url(url).build(), new ChannelListener());
+    }
+
+    private synchronized void onDisconnected(WebSocket closed, String reason) {
+        if (closed != webSocket) {
+            // Already replaced or stopped
+            return;
+        }
+        webSocket = null;
+        if (url == null) {
+            return;
+        }
+        long delayMillis = Math.min(MAX_RECONNECT_MILLIS, BASE_RECONNECT_MILLIS << Math.min(failedConnects, 16));
+        delayMillis += ThreadLocalRandom.current().nextLong(delayMillis / 2 + 1);
+        failedConnects++;
+        Log.d("ChangeNotifier", "Change channel lost (" + reason + "), reconnecting in " + delayMillis + " ms");
+        reconnectScheduler.schedule(this::connect, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized boolean isCurrent(WebSocket socket) {
+        return socket == webSocket;
+    }
+
+    private final class ChannelListener extends WebSocketListener {
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            synchronized (ChangeNotifier.this) {
+                failedConnects = 0;
+            }
+            if (isCurrent(webSocket)) {
+                Log.d("ChangeNotifier", "Change channel connected");
+                listener.onConnected();
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            ChangeHint hint;
+            try {
+                hint = RestApiService.fromJson(text, ChangeHint.class);
+            } catch (JsonParseException e) {
+                Log.d("ChangeNotifier", "Ignoring malformed change hint: " + e.getMessage());
+                return;
+            }
+            if (hint != null && hint.getEntity() != null && isCurrent(webSocket)) {
+                listener.onChangeHint(hint);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(NORMAL_CLOSURE, null);
+            onDisconnected(webSocket, "closed by server: " + code);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            onDisconnected(webSocket, t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.view.control.cloud;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Antwort der Änderungs-Endpunkte: seit dem übergebenen Sync-Token geänderte Datensätze,
+ * die IDs gelöschter Datensätze (Tombstones) und das Token für den nächsten Abgleich.
+ *
+ * @param <T> {@link com.example.view.model.calendar.Event} oder {@link com.example.view.model.todo.Task}
+ */
+public class ChangeSet<T> {
+
+    @SerializedName("changed")
+    private List<T> changed;
+
+    @SerializedName("deleted")
+    private List<String> deleted;
+
+    @SerializedName("syncToken")
+    private String syncToken;
+
+    public List<T> getChanged() {
+        return changed == null ? Collections.emptyList() : changed;
+    }
+
+    public List<String> getDeleted() {
+        return deleted == null ? Collections.emptyList() : deleted;
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.view.control.cloud;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Per-endpoint circuit breaker. After {@code failureThreshold} consecutive failures (I/O errors,
+ * 5xx and 429 responses) the circuit opens and calls fail at once with a
+ * {@link CircuitOpenException} instead of waiting for a timeout. Once the cooldown has passed a
+ * single trial call is let through: success closes the circuit, failure opens it again with
+ * twice the cooldown, up to {@code maxCooldownMillis}.
+ * Cancelled calls, rate-limited calls and cache hits leave the circuit unchanged.
+ */
+public class CircuitBreaker implements Interceptor {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final class Circuit {
+        State state = State.CLOSED;
+        int failures;
+        long openedAtNanos;
+        long cooldownMillis;
+        boolean trialInFlight;
+    }
+
+    private final int failureThreshold;
+    private final long baseCooldownMillis;
+    private final long maxCooldownMillis;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public CircuitBreaker(int failureThreshold, long baseCooldownMillis, long maxCooldownMillis) {
+        this.failureThreshold = failureThreshold;
+        this.baseCooldownMillis = baseCooldownMillis;
+        this.maxCooldownMillis = maxCooldownMillis;
+    }
+
+    /**
+     * @return State of the circuit of the endpoint, {@link State#CLOSED} if it was never called.
+     */
+    public State getState(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null) {
+            return State.CLOSED;
+        }
+        synchronized (circuit) {
+            return circuit.state;
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String endpoint = Endpoints.of(chain.request());
+        if (endpoint == null) {
+            return chain.proceed(chain.request());
+        }
+        Circuit circuit = circuits.computeIfAbsent(endpoint, key -> {
+            Circuit created = new Circuit();
+            created.cooldownMillis = baseCooldownMillis;
+            return created;
+        });
+        boolean trial = admit(endpoint, circuit);
+
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (RateLimitedException e) {
+            release(circuit, trial);
+            throw e;
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                release(circuit, trial);
+            } else {
+                onFailure(endpoint, circuit);
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // A bug in a later interceptor or converter says nothing about the endpoint, but a
+            // trial that never finishes would keep the circuit half-open forever
+            release(circuit, trial);
+            throw e;
+        }
+
+        if (response.networkResponse() == null && response.cacheResponse() != null) {
+            release(circuit, trial);
+        } else if (response.code() >= 500 || response.code() == 429) {
+            onFailure(endpoint, circuit);
+        } else {
+            onSuccess(endpoint, circuit);
+        }
+        return response;
+    }
+
+    /**
+     * @return Whether the call is the trial of a half-open circuit.
+     */
+    private boolean admit(String endpoint, Circuit circuit) throws CircuitOpenException {
+        synchronized (circuit) {
+            switch (circuit.state) {
+                case OPEN:
+                    long openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - circuit.openedAtNanos);
+                    if (openMillis < circuit.cooldownMillis) {
+                        throw new CircuitOpenException("Circuit for " + endpoint + " is open for another "
+                                + (circuit.cooldownMillis - openMillis) + " ms");
+                    }
+                    circuit.state = State.HALF_OPEN;
+                    circuit.trialInFlight = true;
+                    return true;
+                case HALF_OPEN:
+                    if (circuit.trialInFlight) {
+                        throw new CircuitOpenException("Circuit for " + endpoint + " is waiting for a trial call");
+                    }
+                    circuit.trialInFlight = true;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private void release(Circuit circuit, boolean trial) {
+        if (trial) {
+            synchronized (circuit) {
+                circuit.trialInFlight = false;
+            }
+        }
+    }
+
+    private void onSuccess(String endpoint, Circuit circuit) {
+        synchronized (circuit) {
+            if (circuit.state != State.CLOSED) {
+                Log.d("CircuitBreaker", "Circuit for " + endpoint + " closed");
+            }
+            circuit.state = State.CLOSED;
+            circuit.failures = 0;
+            circuit.cooldownMillis = baseCooldownMillis;
+            circuit.trialInFlight = false;
+        }
+    }
+
+    private void onFailure(String endpoint, Circuit circuit) {
+        synchronized (circuit) {
+            circuit.failures++;
+            if (circuit.state == State.HALF_OPEN) {
+                circuit.cooldownMillis = Math.min(maxCooldownMillis, circuit.cooldownMillis * 2);
+            } else if (circuit.state == State.OPEN || circuit.failures < failureThreshold) {
+                // Calls admitted before the circuit opened do not extend the cooldown
+                return;
+            }
+            circuit.state = State.OPEN;
+            circuit.openedAtNanos = System.nanoTime();
+            circuit.trialInFlight = false;
+            Log.d("CircuitBreaker", "Circuit for " + endpoint + " opened for " + circuit.cooldownMillis + " ms");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.view.control.cloud;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link CircuitBreaker} instead of sending a request to an endpoint that keeps failing.
+ */
+public class CircuitOpenException extends IOException {
+    public CircuitOpenException(String message){super(message);}
+}
@@ -0,0 +1,221 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Hält die UUID des Geräts im Speicher, sodass Cloudaufrufe nicht jedes Mal die SharedPreferences
+ * lesen. Aufrufe, die vor Abschluss der Registrierung eintreffen, werden zurückgehalten und
+ * danach in der Reihenfolge ihres Eintreffens ausgeführt, statt mit einer
+ * {@link MissingUUIDException} abzubrechen.
+ */
+public final class CloudSession {
+
+    /**
+     * Name der SharedPreferences, in denen die UUID gespeichert wird.
+     */
+    private static final String PREFS_NAME = "CloudPrefs";
+    /**
+     * Schlüssel für die UUID in den SharedPreferences.
+     */
+    private static final String PREF_UUID_KEY = "UUID";
+
+    private static final long BASE_RETRY_MILLIS = 2_000L;
+    private static final long MAX_RETRY_MILLIS = 5 * 60_000L;
+
+    /**
+     * Ein Cloudaufruf, der die UUID benötigt.
+     */
+    public interface UuidTask {
+        void run(String uuid);
+    }
+
+    private static CloudSession instance;
+
+    private final SharedPreferences preferences;
+    private final Supplier<RestApiService.ApiService> apiService;
+    private final long baseRetryMillis;
+    private final ArrayDeque<UuidTask> pending = new ArrayDeque<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile String uuid;
+    private boolean registering;
+    private int failedRegistrations;
+
+    public static synchronized CloudSession getInstance(Context context) {
+        if (instance == null) {
+            instance = new CloudSession(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CloudSession(Context context) {
+        this(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE), RestApiService::getApiService,
+                BASE_RETRY_MILLIS);
+    }
+
+    /**
+     * @param apiService      Liefert den Dienst für die Registrierung, erst wenn sie gebraucht wird.
+     * @param baseRetryMillis Wartezeit vor der ersten Wiederholung einer fehlgeschlagenen Registrierung.
+     */
+    public CloudSession(SharedPreferences preferences, Supplier<RestApiService.ApiService> apiService,
+                        long baseRetryMillis) {
+        this.preferences = preferences;
+        this.apiService = apiService;
+        this.baseRetryMillis = baseRetryMillis;
+        this.uuid = preferences.getString(PREF_UUID_KEY, null);
+    }
+
+    /**
+     * @return Die UUID oder null, solange das Gerät nicht registriert ist.
+     */
+    public String getUuid() {
+        String current = uuid;
+        if (current == null) {
+            // Nur solange keine UUID bekannt ist; sie kann außerhalb der Session gespeichert worden sein
+            current = preferences.getString(PREF_UUID_KEY, null);
+            if (current != null) {
+                uuid = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Führt den Aufruf sofort aus, wenn die UUID bekannt ist. Sonst wird er zurückgehalten,
+     * die Registrierung gestartet und der Aufruf danach mit der neuen UUID ausgeführt.
+     */
+    public void whenReady(UuidTask task) {
+        String current = getUuid();
+        if (current == null) {
+            synchronized (this) {
+                current = uuid;
+                if (current == null) {
+                    pending.add(task);
+                }
+            }
+        }
+        if (current != null) {
+            task.run(current);
+        } else {
+            register();
+        }
+    }
+
+    /**
+     * Fordert eine UUID vom Server an, falls noch keine existiert. Mehrfache Aufrufe während
+     * einer laufenden Registrierung senden keine weitere Anfrage.
+     */
+    public void register() {
+        synchronized (this) {
+            if (getUuid() != null) {
+                Log.d("CloudSession", "UUID already exists: " + uuid);
+                return;
+            }
+            if (registering) {
+                return;
+            }
+            registering = true;
+        }
+
+        apiService.get().generateUuid().enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    try {
+                        // UUID aus der Antwort extrahieren
+                        onRegistered(response.body().string());
+                    } catch (IOException e) {
+                        onRegistrationFailed("Error parsing UUID: " + e.getMessage());
+                    }
+                } else {
+                    onRegistrationFailed("Error generating UUID: " + response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                onRegistrationFailed("Failed to generate UUID: " + t.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Vergisst die UUID. Folgende Aufrufe warten wieder auf eine neue Registrierung.
+     *
+     * @return Die bisherige UUID oder null, falls keine existierte.
+     */
+    public String clear() {
+        String previous;
+        synchronized (this) {
+            previous = getUuid();
+            uuid = null;
+        }
+        preferences.edit().remove(PREF_UUID_KEY).apply();
+        return previous;
+    }
+
+    private void onRegistered(String newUuid) {
+        Log.d("CloudSession", "UUID successfully retrieved: " + newUuid);
+
+        // Zurückgehaltene Aufrufe in Reihenfolge freigeben; neue reihen sich dahinter ein,
+        // bis die Warteschlange leer ist und die UUID für alle sichtbar wird
+        while (true) {
+            List<UuidTask> released;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    preferences.edit().putString(PREF_UUID_KEY, newUuid).apply();
+                    uuid = newUuid;
+                    registering = false;
+                    failedRegistrations = 0;
+                    return;
+                }
+                released = new ArrayList<>(pending);
+                pending.clear();
+            }
+            for (UuidTask task : released) {
+                try {
+                    task.run(newUuid);
+                } catch (RuntimeException e) {
+                    Log.e("CloudSession", "Error running queued cloud call", e);
+                }
+            }
+        }
+    }
+
+    private void onRegistrationFailed(String reason) {
+        long delayMillis;
+        int waiting;
+        synchronized (this) {
+            registering = false;
+            if (pending.isEmpty()) {
+                Log.d("CloudSession", reason);
+                return;
+            }
+            delayMillis = Math.min(MAX_RETRY_MILLIS, baseRetryMillis << Math.min(failedRegistrations, 16));
+            failedRegistrations++;
+            waiting = pending.size();
+        }
+        Log.d("CloudSession", reason + ", retrying in " + delayMillis + " ms for " + waiting + " waiting calls");
+        retryScheduler.schedule(this::register, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.EventDatabaseHelper;
+import com.example.view.model.repository.TodoDatabaseHelper;
+import com.example.view.model.todo.Task;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Incremental download of cloud changes. Each entity type keeps its own sync token; the server
+ * only returns records changed since that token plus tombstones for deleted ones, so the cost of
+ * a refresh grows with the number of changes instead of the account size.
+ * Without a token the account is first downloaded in full, by {@link PagedDownloader} into an
+ * empty table or by {@link SnapshotSync} otherwise so that records deleted in the meantime are
+ * removed too; if the server sends a {@link #SYNC_TOKEN_HEADER} with it, the changes call only
+ * fetches what changed during the download.
+ * Calls are blocking and must run on a background thread.
+ */
+public class DeltaSync {
+
+    /**
+     * Returned by the sync methods if the local data could not be brought up to date.
+     */
+    public static final int FAILED = -1;
+
+    private static final String PREFS_NAME = "SyncPrefs";
+    private static final String PREF_EVENT_TOKEN_KEY = "eventSyncToken";
+    private static final String PREF_TASK_TOKEN_KEY = "taskSyncToken";
+
+    /**
+     * Response header of the full download endpoints with the sync token of that state.
+     */
+    static final String SYNC_TOKEN_HEADER = "Sync-Token";
+
+    // Server no longer knows the token, a full download is required
+    private static final int HTTP_GONE = 410;
+    private static final int EXPIRED = -2;
+
+    private static final Type EVENT_CHANGES = new TypeToken<ChangeSet<Event>>() {}.getType();
+    private static final Type TASK_CHANGES = new TypeToken<ChangeSet<Task>>() {}.getType();
+
+    private final Context context;
+
+    public DeltaSync(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * @return Number of downloaded changes, or {@link #FAILED}.
+     */
+    public int syncEvents() {
+        return sync("events", PREF_EVENT_TOKEN_KEY, EVENT_CHANGES, this::downloadAllEvents,
+                (apiService, uuid, token) -> apiService.getEventChanges(uuid, token),
+                (List<Event> changed, List<String> deleted) ->
+                        EventDatabaseHelper.getInstance(context).applyRemoteChanges(changed, deleted));
+    }
+
+    /**
+     * @return Number of downloaded changes, or {@link #FAILED}.
+     */
+    public int syncTasks() {
+        return sync("tasks", PREF_TASK_TOKEN_KEY, TASK_CHANGES, this::downloadAllTasks,
+                (apiService, uuid, token) -> apiService.getToDoChanges(uuid, token),
+                (List<Task> changed, List<String> deleted) ->
+                        TodoDatabaseHelper.getInstance(context).applyRemoteChanges(changed, deleted));
+    }
+
+    /**
+     * Forgets all sync tokens so the next sync downloads everything again.
+     */
+    public void resetTokens() {
+        preferences().edit().remove(PREF_EVENT_TOKEN_KEY).remove(PREF_TASK_TOKEN_KEY).apply();
+    }
+
+    private Download downloadAllEvents() throws MissingUUIDException, IOException {
+        if (EventDatabaseHelper.getInstance(context).countEvents() > 0) {
+            SnapshotSync snapshotSync = new SnapshotSync(context);
+            return new Download(snapshotSync.syncEvents(), snapshotSync.getSyncToken());
+        }
+        PagedDownloader downloader = new PagedDownloader();
+        return new Download(downloader.downloadEvents(context), downloader.getSyncToken());
+    }
+
+    private Download downloadAllTasks() throws MissingUUIDException, IOException {
+        if (TodoDatabaseHelper.getInstance(context).countTasks() > 0) {
+            SnapshotSync snapshotSync = new SnapshotSync(context);
+            return new Download(snapshotSync.syncTasks(), snapshotSync.getSyncToken());
+        }
+        PagedDownloader downloader = new PagedDownloader();
+        return new Download(downloader.downloadTasks(context), downloader.getSyncToken());
+    }
+
+    private <T> int sync(String name, String tokenKey, Type type, FullDownload fullDownload,
+                         ChangesCall changesCall, ChangesApplier<T> applier) {
+        String uuid = RestApiService.getUUid(context);
+        if (uuid == null) {
+            Log.d("DeltaSync", "UUID not found. Generate UUID first.");
+            return FAILED;
+        }
+
+        SharedPreferences preferences = preferences();
+        String token = preferences.getString(tokenKey, null);
+        int changed = token == null
+                ? EXPIRED : syncChanges(name, tokenKey, type, uuid, token, changesCall, applier);
+        if (changed != EXPIRED) {
+            return changed;
+        }
+
+        // No token or an expired one: download everything once, then catch up from its token
+        preferences.edit().remove(tokenKey).apply();
+        Download download;
+        try {
+            download = fullDownload.run();
+        } catch (MissingUUIDException | IOException e) {
+            Log.d("DeltaSync", "Failed to download all " + name + ": " + e.getMessage());
+            return FAILED;
+        }
+        if (download.syncToken == null) {
+            // Without a token the changes call would return the whole history again
+            Log.d("DeltaSync", "Full download of " + name + " sent no sync token, skipping the catch-up");
+            return download.count;
+        }
+        preferences.edit().putString(tokenKey, download.syncToken).apply();
+        changed = syncChanges(name, tokenKey, type, uuid, download.syncToken, changesCall, applier);
+        return changed < 0 ? FAILED : download.count + changed;
+    }
+
+    /**
+     * @return Number of applied changes, {@link #FAILED}, or {@link #EXPIRED} if the server no
+     * longer knows the token.
+     */
+    private <T> int syncChanges(String name, String tokenKey, Type type, String uuid, String token,
+                                ChangesCall changesCall, ChangesApplier<T> applier) {
+        SharedPreferences preferences = preferences();
+        RestApiService.ApiService apiService = RestApiService.getApiService();
+
+        try {
+            Response<ResponseBody> response = changesCall.create(apiService, uuid, token).execute();
+            if (response.code() == HTTP_GONE && token != null) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                Log.d("DeltaSync", "Sync token for " + name + " expired, downloading everything");
+                return EXPIRED;
+            }
+            if (!response.isSuccessful() || response.body() == null) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                Log.d("DeltaSync", "Error retrieving " + name + " changes: " + response.code());
+                return FAILED;
+            }
+
+            ChangeSet<T> changes;
+            try (ResponseBody body = response.body()) {
+                changes = RestApiService.fromJson(body.charStream(), type);
+            }
+            if (changes == null || !applier.apply(changes.getChanged(), changes.getDeleted())) {
+                Log.e("DeltaSync", "Could not apply " + name + " changes, keeping old sync token");
+                return FAILED;
+            }
+
+            // Only advance the cursor once the changes are committed locally; without a new
+            // token the old one still describes what was applied
+            if (changes.getSyncToken() != null) {
+                preferences.edit().putString(tokenKey, changes.getSyncToken()).apply();
+            }
+            Log.d("DeltaSync", "Synced " + name + ": " + changes.getChanged().size() + " changed, "
+                    + changes.getDeleted().size() + " deleted");
+            return changes.getChanged().size() + changes.getDeleted().size();
+        } catch (IOException | JsonParseException e) {
+            Log.d("DeltaSync", "Failed to sync " + name + ": " + e.getMessage());
+            return FAILED;
+        }
+    }
+
+    private SharedPreferences preferences() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static final class Download {
+        final int count;
+        final String syncToken;
+
+        Download(int count, String syncToken) {
+            this.count = count;
+            this.syncToken = syncToken;
+        }
+    }
+
+    private interface FullDownload {
+        Download run() throws MissingUUIDException, IOException;
+    }
+
+    private interface ChangesCall {
+        Call<ResponseBody> create(RestApiService.ApiService apiService, String uuid, String syncToken);
+    }
+
+    private interface ChangesApplier<T> {
+        boolean apply(List<T> changed, List<String> deleted);
+    }
+}
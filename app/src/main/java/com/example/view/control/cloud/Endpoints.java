@@ -0,0 +1,29 @@
+package com.example.view.control.cloud;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * Names the endpoint of a request for per-endpoint statistics and circuits.
+ */
+final class Endpoints {
+
+    private Endpoints() {
+    }
+
+    /**
+     * @return The {@link RestApiService.ApiService} method, e.g. {@code getSharedEvent}, or method
+     * and path for requests not made through Retrofit. {@code null} for WebSocket upgrades, which
+     * are long-lived and handled by {@link ChangeNotifier}.
+     */
+    static String of(Request request) {
+        if ("websocket".equalsIgnoreCase(request.header("Upgrade"))) {
+            return null;
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            return invocation.method().getName();
+        }
+        return request.method() + " " + request.url().encodedPath();
+    }
+}
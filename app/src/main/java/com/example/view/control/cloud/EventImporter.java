@@ -0,0 +1,74 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.view.control.cloud.ParsingAndSerializer.EventStreamParser;
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.EventDatabaseHelper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Writes a streamed list of cloud events to the local database while the response is still
+ * being read. Events are parsed one by one and committed in fixed-size chunks, each in its own
+ * transaction, so peak memory stays bounded by the chunk size no matter how large the account is.
+ * Calls are blocking and must run on a background thread.
+ */
+public class EventImporter {
+
+    private static final int CHUNK_SIZE = 200;
+
+    /**
+     * Commits one chunk of events.
+     */
+    public interface ChunkWriter {
+        /**
+         * @return Number of written events, or -1 if the transaction was rolled back.
+         */
+        int write(List<Event> chunk);
+    }
+
+    private final ChunkWriter writer;
+    private final int chunkSize;
+
+    /**
+     * Upserts the events with {@link EventDatabaseHelper#upsertRemoteEvents(List)}, which skips
+     * events with unsent local changes.
+     */
+    public EventImporter(Context context) {
+        this(EventDatabaseHelper.getInstance(context.getApplicationContext())::upsertRemoteEvents, CHUNK_SIZE);
+    }
+
+    public EventImporter(ChunkWriter writer, int chunkSize) {
+        this.writer = writer;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads a JSON array of events and commits it chunk by chunk. Chunks committed before a
+     * failure stay written.
+     *
+     * @return Number of written events.
+     * @throws IOException If the stream cannot be read, is not a valid event list, or a chunk
+     *                     could not be written.
+     */
+    public int importEvents(Reader reader) throws IOException {
+        int[] written = {0};
+        try {
+            int count = EventStreamParser.parse(reader, chunkSize, chunk -> {
+                int rows = writer.write(chunk);
+                if (rows < 0) {
+                    throw new IOException("Could not write chunk of " + chunk.size() + " events");
+                }
+                written[0] += rows;
+            });
+            Log.d("EventImporter", "Imported " + written[0] + " of " + count + " events");
+            return written[0];
+        } catch (RuntimeException e) {
+            throw new IOException("Error parsing Events", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.view.control.cloud;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Hedged requests for latency-sensitive GETs. If the call has not answered after the hedge delay,
+ * typically the observed p95 of the endpoint, an identical second call is sent and whichever
+ * answers first is delivered; the other one is cancelled. Only about one call in twenty is sent
+ * twice, but a single slow connection or server thread no longer decides the latency.
+ * Calls other than GET are never duplicated.
+ */
+public final class HedgedCall {
+
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 1_000L;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50L;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hedged-calls");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HedgedCall() {
+    }
+
+    /**
+     * @param endpoint {@link RestApiService.ApiService} method whose p95 is used as hedge delay.
+     *                 Until enough calls have been measured {@link #DEFAULT_HEDGE_DELAY_MILLIS} is used.
+     */
+    public static <T> void enqueue(Call<T> call, String endpoint, Callback<T> callback) {
+        enqueue(call, hedgeDelayMillis(endpoint), callback);
+    }
+
+    public static <T> void enqueue(Call<T> call, long hedgeDelayMillis, Callback<T> callback) {
+        if (!"GET".equals(call.request().method())) {
+            call.enqueue(callback);
+            return;
+        }
+        Race<T> race = new Race<>(call, callback);
+        synchronized (race) {
+            call.enqueue(race);
+            race.timer = scheduler.schedule(race::startHedge, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static long hedgeDelayMillis(String endpoint) {
+        long p95 = RestApiService.getLatencyTracker().percentile(endpoint, 0.95);
+        return p95 < 0 ? DEFAULT_HEDGE_DELAY_MILLIS : Math.max(MIN_HEDGE_DELAY_MILLIS, p95);
+    }
+
+    private static final class Race<T> implements Callback<T> {
+        private final Call<T> primary;
+        private final Callback<T> callback;
+        private Call<T> hedge;
+        private ScheduledFuture<?> timer;
+        private int running = 1;
+        private boolean done;
+
+        Race(Call<T> primary, Callback<T> callback) {
+            this.primary = primary;
+            this.callback = callback;
+        }
+
+        synchronized void startHedge() {
+            if (done) {
+                return;
+            }
+            Log.d("HedgedCall", "No answer from " + primary.request().url().encodedPath() + " yet, sending hedge");
+            hedge = primary.clone();
+            running++;
+            hedge.enqueue(this);
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            Call<T> loser;
+            synchronized (this) {
+                if (done) {
+                    discard(response);
+                    return;
+                }
+                done = true;
+                timer.cancel(false);
+                loser = call == primary ? hedge : primary;
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            callback.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            synchronized (this) {
+                running--;
+                if (done || running > 0) {
+                    // The other call may still answer
+                    return;
+                }
+                done = true;
+                timer.cancel(false);
+            }
+            callback.onFailure(call, t);
+        }
+
+        private void discard(Response<T> response) {
+            try {
+                if (response.body() instanceof Closeable) {
+                    ((Closeable) response.body()).close();
+                }
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+            } catch (IOException e) {
+                Log.d("HedgedCall", "Error closing late response: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.view.control.cloud;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Erzeugt Idempotency-Keys für schreibende Cloud-Anfragen. Der Server führt eine Anfrage,
+ * deren Key er bereits kennt, nicht erneut aus, sodass Wiederholungen gefahrlos sind.
+ */
+public final class IdempotencyKeys {
+
+    /**
+     * Name des HTTP-Headers, in dem der Key übertragen wird.
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    private IdempotencyKeys() {
+    }
+
+    /**
+     * Neuer, zufälliger Key, z.B. für einen Eintrag der Cloud-Outbox.
+     */
+    public static String random() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Key, der nur vom Inhalt der Anfrage abhängt. Identische Anfragen erhalten denselben Key.
+     * Nur zum Erkennen gleichzeitiger identischer Anfragen, nicht als Idempotency-Key für den
+     * Server: eine spätere, gewollte Wiederholung würde sonst als Replay verworfen.
+     *
+     * @param parts Methode, Endpunkt und Body der Anfrage.
+     */
+    public static String forContent(String... parts) {
+        return UUID.nameUUIDFromBytes(String.join("\n", parts).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Key für eine Batch-Anfrage, abgeleitet aus den Keys ihrer Operationen.
+     */
+    public static String combine(List<String> keys) {
+        return forContent(keys.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.view.control.cloud;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Fasst identische Anfragen zusammen, solange eine davon noch unterwegs ist. Anfragen mit
+ * demselben Inhalt werden nicht erneut gesendet; ihr Callback erhält das Ergebnis der bereits
+ * laufenden Anfrage. Jede tatsächlich gesendete Anfrage erhält einen neuen Idempotency-Key, damit
+ * der Server eine spätere, gewollte Wiederholung (z.B. A, B, wieder A) nicht als Replay verwirft.
+ */
+public final class InFlightRequests {
+
+    private static final Map<String, List<Callback<ResponseBody>>> inFlight = new HashMap<>();
+
+    private InFlightRequests() {
+    }
+
+    /**
+     * Sendet die Anfrage asynchron, sofern keine Anfrage mit demselben Key läuft.
+     *
+     * @param key      Vom Inhalt abgeleiteter Key, siehe {@link IdempotencyKeys#forContent}.
+     * @param callForIdempotencyKey Erstellt die Anfrage mit dem Idempotency-Key für den Server.
+     *                 Wird nicht aufgerufen, wenn bereits eine identische Anfrage läuft.
+     * @param callback Wird mit dem Ergebnis der tatsächlich gesendeten Anfrage aufgerufen.
+     * @return true, wenn die Anfrage gesendet wurde, false, wenn sie zusammengefasst wurde.
+     */
+    public static boolean enqueue(String key, Function<String, Call<ResponseBody>> callForIdempotencyKey,
+                                  Callback<ResponseBody> callback) {
+        synchronized (inFlight) {
+            List<Callback<ResponseBody>> waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(callback);
+                return false;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(key, waiting);
+        }
+
+        // Wiederholungen desselben Aufrufs (Retry, Hedging per clone()) behalten den Key
+        Call<ResponseBody> call = callForIdempotencyKey.apply(IdempotencyKeys.random());
+        call.enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                for (Callback<ResponseBody> waiting : finish(key)) {
+                    waiting.onResponse(call, response);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                for (Callback<ResponseBody> waiting : finish(key)) {
+                    waiting.onFailure(call, t);
+                }
+            }
+        });
+        return true;
+    }
+
+    private static List<Callback<ResponseBody>> finish(String key) {
+        synchronized (inFlight) {
+            return inFlight.remove(key);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.view.control.cloud;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Records the time until the response headers arrive per endpoint and derives the read timeout
+ * of the next call from it: {@link #TIMEOUT_FACTOR} times the observed p99, clamped to
+ * {@code minTimeoutMillis}..{@code maxTimeoutMillis}. Until enough calls have been seen the
+ * maximum is used. Only the last {@link #WINDOW_SIZE} calls count, so the timeout follows
+ * changes in server or network speed.
+ */
+public class LatencyTracker implements Interceptor {
+
+    private static final int WINDOW_SIZE = 64;
+    private static final int MIN_SAMPLES = 20;
+    private static final int TIMEOUT_FACTOR = 3;
+
+    private static final class Window {
+        final long[] samples = new long[WINDOW_SIZE];
+        int next;
+        int count;
+    }
+
+    private final long minTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public LatencyTracker(long minTimeoutMillis, long maxTimeoutMillis) {
+        this.minTimeoutMillis = minTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+
+    /**
+     * @param percentile E.g. 0.95 for the p95.
+     * @return Latency in milliseconds, or -1 if fewer than {@link #MIN_SAMPLES} calls were recorded.
+     */
+    public long percentile(String endpoint, double percentile) {
+        Window window = windows.get(endpoint);
+        if (window == null) {
+            return -1;
+        }
+        long[] sorted;
+        synchronized (window) {
+            if (window.count < MIN_SAMPLES) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(window.samples, window.count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * @return Read timeout in milliseconds for the next call to the endpoint.
+     */
+    public long timeoutMillis(String endpoint) {
+        long p99 = percentile(endpoint, 0.99);
+        if (p99 < 0) {
+            return maxTimeoutMillis;
+        }
+        return Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, p99 * TIMEOUT_FACTOR));
+    }
+
+    public void record(String endpoint, long latencyMillis) {
+        Window window = windows.computeIfAbsent(endpoint, key -> new Window());
+        synchronized (window) {
+            window.samples[window.next] = latencyMillis;
+            window.next = (window.next + 1) % WINDOW_SIZE;
+            window.count = Math.min(WINDOW_SIZE, window.count + 1);
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String endpoint = Endpoints.of(chain.request());
+        if (endpoint == null) {
+            return chain.proceed(chain.request());
+        }
+        long startNanos = System.nanoTime();
+        Response response = chain
+                .withReadTimeout((int) timeoutMillis(endpoint), TimeUnit.MILLISECONDS)
+                .proceed(chain.request());
+        // Cache hits say nothing about the server
+        if (response.networkResponse() != null) {
+            record(endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return response;
+    }
+}
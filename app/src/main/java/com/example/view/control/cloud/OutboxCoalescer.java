@@ -0,0 +1,146 @@
+package com.example.view.control.cloud;
+
+import com.example.view.model.repository.CloudOutbox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds queued outbox entries into the smallest equivalent list of operations per record:
+ * create followed by delete cancels out, repeated updates keep only the last payload,
+ * updates after a create stay a create and a delete supersedes earlier updates.
+ * Operations that were already sent are never changed, so a retry replays them with the same
+ * idempotency key.
+ */
+public final class OutboxCoalescer {
+
+    private OutboxCoalescer() {
+    }
+
+    /**
+     * @param entries outbox entries in the order they were written.
+     */
+    public static Result coalesce(List<CloudOutbox.Entry> entries) {
+        Map<String, Operation> latest = new HashMap<>();
+        List<Operation> operations = new ArrayList<>();
+        List<Long> cancelledSequences = new ArrayList<>();
+
+        for (CloudOutbox.Entry entry : entries) {
+            String key = entry.getEntity() + ':' + entry.getEntityId();
+            Operation previous = latest.get(key);
+            if (previous == null || previous.sent) {
+                // A sent operation may already be applied, so it is replayed unchanged with its key
+                Operation operation = new Operation(entry);
+                latest.put(key, operation);
+                operations.add(operation);
+                continue;
+            }
+
+            String merged = merge(previous.operation, entry.getOperation());
+            if (merged == null) {
+                // Record never reached the cloud, nothing to send
+                latest.remove(key);
+                operations.remove(previous);
+                cancelledSequences.addAll(previous.sequences);
+                cancelledSequences.add(entry.getSequence());
+            } else {
+                previous.operation = merged;
+                previous.payload = entry.getPayload();
+                previous.idempotencyKey = entry.getIdempotencyKey();
+                previous.sent = entry.isSent();
+                previous.sequences.add(entry.getSequence());
+            }
+        }
+        return new Result(operations, cancelledSequences);
+    }
+
+    /**
+     * @return the combined operation, or null if both cancel out.
+     */
+    private static String merge(String previous, String next) {
+        if (CloudOutbox.OPERATION_CREATE.equals(previous)) {
+            if (CloudOutbox.OPERATION_DELETE.equals(next)) {
+                return null;
+            }
+            return CloudOutbox.OPERATION_CREATE;
+        }
+        if (CloudOutbox.OPERATION_DELETE.equals(previous) && CloudOutbox.OPERATION_CREATE.equals(next)) {
+            // Record still exists in the cloud, overwrite it instead of creating a duplicate
+            return CloudOutbox.OPERATION_UPDATE;
+        }
+        return next;
+    }
+
+    /**
+     * Coalesced operations plus the outbox entries that cancelled out.
+     */
+    public static final class Result {
+        private final List<Operation> operations;
+        private final List<Long> cancelledSequences;
+
+        Result(List<Operation> operations, List<Long> cancelledSequences) {
+            this.operations = operations;
+            this.cancelledSequences = cancelledSequences;
+        }
+
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        public List<Long> getCancelledSequences() {
+            return cancelledSequences;
+        }
+    }
+
+    /**
+     * One operation to send, together with the outbox entries it replaces.
+     */
+    public static final class Operation {
+        private final String entity;
+        private final String entityId;
+        private final List<Long> sequences = new ArrayList<>();
+        private String operation;
+        private String payload;
+        private String idempotencyKey;
+        private boolean sent;
+
+        Operation(CloudOutbox.Entry entry) {
+            this.entity = entry.getEntity();
+            this.entityId = entry.getEntityId();
+            this.operation = entry.getOperation();
+            this.payload = entry.getPayload();
+            this.idempotencyKey = entry.getIdempotencyKey();
+            this.sent = entry.isSent();
+            this.sequences.add(entry.getSequence());
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        /**
+         * Key of the newest entry folded into this operation.
+         */
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public List<Long> getSequences() {
+            return sequences;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.view.model.repository.CloudOutbox;
+import com.example.view.model.repository.EventDatabaseHelper;
+import com.example.view.model.repository.TodoDatabaseHelper;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends queued cloud mutations from the {@link CloudOutbox} tables in the order they were written,
+ * coalesced by {@link OutboxCoalescer} and sent by {@link OutboxSender} in batch requests.
+ * Transient failures (no network, 5xx, 408/429, missing UUID) are retried with exponential backoff
+ * and jitter; the affected queue stops at that entry so later changes never overtake it.
+ * Permanent rejections (other 4xx) are logged and only the rejected operation is dropped.
+ */
+public class OutboxDrainer {
+
+    private static final long BASE_BACKOFF_MILLIS = 2_000L;
+    private static final long MAX_BACKOFF_MILLIS = 10 * 60_000L;
+
+    private static OutboxDrainer instance;
+
+    private final Context context;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> scheduledDrain;
+    private volatile boolean syncRequested;
+    private final SyncReporter syncReporter = new SyncReporter();
+
+    /**
+     * Notified once a requested sync has finished or could not run.
+     */
+    public interface SyncListener {
+        /**
+         * @param changes operations sent plus changes downloaded, or {@link DeltaSync#FAILED}.
+         */
+        void onSyncFinished(int changes);
+    }
+
+    public static synchronized OutboxDrainer getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboxDrainer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OutboxDrainer(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Drains the outbox as soon as possible, e.g. after a local change or on app start.
+     */
+    public void requestDrain() {
+        schedule(0);
+    }
+
+    /**
+     * Drains the outbox and then downloads cloud changes via {@link DeltaSync}.
+     * The download waits until all local changes are sent, so it never overwrites them.
+     */
+    public void requestSync() {
+        syncRequested = true;
+        schedule(0);
+    }
+
+    /**
+     * Like {@link #requestSync()}, but reports the outcome. If the outbox cannot be emptied right
+     * now the listener is told at once; the sync itself still runs once the outbox is empty.
+     */
+    public void requestSync(SyncListener listener) {
+        syncReporter.addListener(listener);
+        requestSync();
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (scheduledDrain != null && !scheduledDrain.isDone()) {
+            if (scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
+            }
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrain = scheduler.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        CloudSession session = CloudSession.getInstance(context);
+        if (session.getUuid() == null) {
+            // Resumes right after the registration instead of backing off every entry
+            Log.d("OutboxDrainer", "UUID not found. Waiting for registration");
+            session.whenReady(uuid -> requestDrain());
+            syncReporter.onSyncFailed();
+            return;
+        }
+
+        try {
+            long eventsRetryAt = drainQueue(EventDatabaseHelper.getInstance(context), session.getUuid());
+            long tasksRetryAt = drainQueue(TodoDatabaseHelper.getInstance(context), session.getUuid());
+
+            long retryAt = Math.min(eventsRetryAt, tasksRetryAt);
+            if (retryAt != Long.MAX_VALUE) {
+                schedule(Math.max(0, retryAt - System.currentTimeMillis()));
+                syncReporter.onSyncFailed();
+            } else if (syncRequested) {
+                syncRequested = false;
+                // Download right after the upload, so both share one radio wake-up
+                DeltaSync deltaSync = new DeltaSync(context);
+                int events = deltaSync.syncEvents();
+                int tasks = deltaSync.syncTasks();
+                syncReporter.onSyncFinished(events, tasks);
+            }
+        } catch (Exception e) {
+            Log.e("OutboxDrainer", "Error draining cloud outbox", e);
+            schedule(MAX_BACKOFF_MILLIS);
+            syncReporter.onSyncFailed();
+        }
+    }
+
+    /**
+     * Sends the entries of one outbox until it is empty or an entry has to wait.
+     * Each round coalesces up to {@link OutboxSender#MAX_BATCH_SIZE} entries and sends them in one
+     * batch request.
+     *
+     * @return when the queue should be retried, {@link Long#MAX_VALUE} if it is empty.
+     */
+    private long drainQueue(SQLiteOpenHelper helper, String uuid) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        OutboxSender sender = new OutboxSender(RestApiService.getApiService(), uuid);
+        OutboxSender.Outbox outbox = new OutboxSender.Outbox() {
+            @Override
+            public void remove(List<Long> sequences) {
+                CloudOutbox.remove(db, sequences);
+            }
+
+            @Override
+            public void markSent(List<Long> sequences) {
+                CloudOutbox.markSent(db, sequences);
+            }
+        };
+        try {
+            while (true) {
+                List<CloudOutbox.Entry> entries = CloudOutbox.peek(db, OutboxSender.MAX_BATCH_SIZE);
+                if (entries.isEmpty()) {
+                    return Long.MAX_VALUE;
+                }
+
+                CloudOutbox.Entry head = entries.get(0);
+                long now = System.currentTimeMillis();
+                if (head.getNextAttemptAt() > now) {
+                    return head.getNextAttemptAt();
+                }
+
+                OutboxCoalescer.Result coalesced = OutboxCoalescer.coalesce(entries);
+                CloudOutbox.remove(db, coalesced.getCancelledSequences());
+
+                if (!sender.send(coalesced.getOperations(), outbox)) {
+                    // Retry from the oldest entry that is still queued
+                    List<CloudOutbox.Entry> remaining = CloudOutbox.peek(db, 1);
+                    CloudOutbox.Entry failed = remaining.isEmpty() ? head : remaining.get(0);
+                    int attempts = failed.getAttempts() + 1;
+                    long nextAttemptAt = now + backoffMillis(attempts);
+                    CloudOutbox.reschedule(db, failed.getSequence(), attempts, nextAttemptAt);
+                    Log.d("OutboxDrainer", "Retrying " + failed + " in " + (nextAttemptAt - now) + " ms");
+                    return nextAttemptAt;
+                }
+            }
+        } finally {
+            syncReporter.onSent(sender.getSentCount());
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter, capped at {@link #MAX_BACKOFF_MILLIS}.
+     */
+    public static long backoffMillis(int attempts) {
+        long ceiling = BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 20);
+        ceiling = Math.min(ceiling, MAX_BACKOFF_MILLIS);
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.view.control.cloud;
+
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.CloudOutbox;
+import com.example.view.model.todo.Task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Sends operations coalesced by {@link OutboxCoalescer} to the cloud, all in one batch request
+ * where possible. If the backend has no batch endpoint or rejects the batch as a whole, the
+ * operations are sent one by one, so a permanent rejection only drops the offending operation.
+ * Used by {@link OutboxDrainer} on its thread; the queued entries are reached through {@link Outbox}.
+ */
+public class OutboxSender {
+
+    /**
+     * Most outbox entries sent in one batch request, enough for e.g. deleting 200 tasks at once.
+     */
+    public static final int MAX_BATCH_SIZE = 200;
+
+    // Status for requests that were never handed to the network
+    public static final int NOT_SENT = -1;
+
+    /**
+     * The queued entries behind the operations.
+     */
+    public interface Outbox {
+        /**
+         * The entries were delivered or permanently rejected.
+         */
+        void remove(List<Long> sequences);
+
+        /**
+         * The entries may have reached the cloud and have to be replayed unchanged.
+         */
+        void markSent(List<Long> sequences);
+    }
+
+    private final RestApiService.ApiService apiService;
+    private final String uuid;
+    private int sentCount;
+
+    public OutboxSender(RestApiService.ApiService apiService, String uuid) {
+        this.apiService = apiService;
+        this.uuid = uuid;
+    }
+
+    /**
+     * @return operations delivered or dropped so far.
+     */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Sends the operations and removes their entries from the outbox once they are done.
+     * Stops at the first operation that has to be retried, so later ones never overtake it.
+     *
+     * @return false if sending has to be retried later.
+     */
+    public boolean send(List<OutboxCoalescer.Operation> operations, Outbox outbox) {
+        if (operations.isEmpty()) {
+            return true;
+        }
+
+        List<Long> sequences = new ArrayList<>();
+        for (OutboxCoalescer.Operation operation : operations) {
+            sequences.addAll(operation.getSequences());
+        }
+
+        BatchRequest batch = BatchRequest.from(operations);
+        int status = execute(apiService.sendBatch(batch, uuid, batch.getIdempotencyKey()),
+                operations.size() + " operations");
+        if (isSuccess(status)) {
+            outbox.remove(sequences);
+            sentCount += operations.size();
+            return true;
+        }
+        if (isTransientFailure(status)) {
+            markSentIfDelivered(outbox, status, sequences);
+            return false;
+        }
+        if (!isBatchUnsupported(status)) {
+            // One bad operation must not take the others down with it
+            Log.d("OutboxSender", "Cloud rejected batch of " + operations.size() + " operations with HTTP "
+                    + status + ", sending them one by one");
+        }
+
+        for (OutboxCoalescer.Operation operation : operations) {
+            String description = operation.getOperation() + " " + operation.getEntity() + " " + operation.getEntityId();
+            int singleStatus = execute(createCall(operation), description);
+            if (isTransientFailure(singleStatus)) {
+                markSentIfDelivered(outbox, singleStatus, operation.getSequences());
+                return false;
+            }
+            if (!isSuccess(singleStatus)) {
+                Log.e("OutboxSender", "Cloud rejected " + description + " with HTTP " + singleStatus + ", dropping it");
+            }
+            outbox.remove(operation.getSequences());
+            sentCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Executes the call and closes its body.
+     *
+     * @return the HTTP status, 0 if no response arrived, or {@link #NOT_SENT} if the circuit
+     * breaker or the rate limiter kept the request on the device.
+     */
+    public static int execute(Call<ResponseBody> call, String description) {
+        try {
+            Response<ResponseBody> response = call.execute();
+            if (response.body() != null) {
+                response.body().close();
+            } else if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            return response.code();
+        } catch (CircuitOpenException | RateLimitedException e) {
+            // Rejected before it left the device, so the entries may still be coalesced
+            Log.d("OutboxSender", "Did not send " + description + ": " + e.getMessage());
+            return NOT_SENT;
+        } catch (IOException e) {
+            Log.d("OutboxSender", "Failed to send " + description + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * A request that got no definite answer may have been applied by the cloud. Its entries are
+     * marked so they are replayed unchanged with the same idempotency key instead of being coalesced.
+     */
+    private static void markSentIfDelivered(Outbox outbox, int status, List<Long> sequences) {
+        if (status != NOT_SENT) {
+            outbox.markSent(sequences);
+        }
+    }
+
+    private Call<ResponseBody> createCall(OutboxCoalescer.Operation operation) {
+        String key = operation.getIdempotencyKey();
+        boolean isEvent = CloudOutbox.ENTITY_EVENT.equals(operation.getEntity());
+
+        switch (operation.getOperation()) {
+            case CloudOutbox.OPERATION_CREATE:
+                return isEvent
+                        ? apiService.sendNewEvent(RestApiService.fromJson(operation.getPayload(), Event.class), uuid, key)
+                        : apiService.sendNewToDo(RestApiService.fromJson(operation.getPayload(), Task.class), uuid, key);
+            case CloudOutbox.OPERATION_UPDATE:
+                return isEvent
+                        ? apiService.sendUpdatedEvent(RestApiService.fromJson(operation.getPayload(), Event.class), uuid, key)
+                        : apiService.sendUpdatedTodo(RestApiService.fromJson(operation.getPayload(), Task.class), uuid, key);
+            case CloudOutbox.OPERATION_DELETE:
+                return isEvent
+                        ? apiService.deleteEventInCloud(operation.getEntityId(), uuid, key)
+                        : apiService.deleteToDoInCloud(operation.getEntityId(), uuid, key);
+            default:
+                throw new IllegalArgumentException("Unknown outbox operation: " + operation.getOperation());
+        }
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private static boolean isTransientFailure(int status) {
+        return status == NOT_SENT || status == 0 || status == 408 || status == 429 || status >= 500;
+    }
+
+    private static boolean isBatchUnsupported(int status) {
+        return status == 404 || status == 405 || status == 501;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.view.control.cloud;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Antwort der seitenweisen Listen-Endpunkte: die Datensätze einer Seite und die Gesamtzahl
+ * der Datensätze, aus der sich die Anzahl der Seiten ergibt.
+ *
+ * @param <T> {@link com.example.view.model.calendar.Event} oder {@link com.example.view.model.todo.Task}
+ */
+public class Page<T> {
+
+    @SerializedName("items")
+    private List<T> items;
+
+    @SerializedName("total")
+    private Integer total;
+
+    public List<T> getItems() {
+        return items == null ? Collections.emptyList() : items;
+    }
+
+    /**
+     * @return Gesamtzahl der Datensätze oder null, wenn der Server sie nicht mitsendet.
+     */
+    public Integer getTotal() {
+        return total;
+    }
+}
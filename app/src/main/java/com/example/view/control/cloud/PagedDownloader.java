@@ -0,0 +1,208 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.EventDatabaseHelper;
+import com.example.view.model.repository.TodoDatabaseHelper;
+import com.example.view.model.todo.Task;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Downloads a whole account page by page. The first page is fetched and committed on its own,
+ * so the first screenful is in the database right away; the remaining pages are fetched with at
+ * most {@code maxParallelPages} requests in flight and each is committed as soon as it arrives.
+ * No response is larger than one page, which bounds peak memory to
+ * {@code maxParallelPages * pageSize} records.
+ * Downloads only add and update records, and skip records with unsent local changes; removing
+ * records that vanished from the cloud is left to {@link SnapshotSync} and {@link DeltaSync}.
+ * {@link DeltaSync} uses it for the first download of an account.
+ * Calls are blocking and must run on a background thread.
+ */
+public class PagedDownloader {
+
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int DEFAULT_MAX_PARALLEL_PAGES = 3;
+
+    private static final Type EVENT_PAGE = new TypeToken<Page<Event>>() {}.getType();
+    private static final Type TASK_PAGE = new TypeToken<Page<Task>>() {}.getType();
+
+    /**
+     * Creates the request for one page.
+     */
+    public interface PageCall {
+        Call<ResponseBody> create(int page, int limit);
+    }
+
+    /**
+     * Commits one page. May be called from several threads at once.
+     */
+    public interface PageConsumer<T> {
+        void accept(int page, List<T> items) throws IOException;
+    }
+
+    private final int pageSize;
+    private final int maxParallelPages;
+    private volatile String syncToken;
+
+    public PagedDownloader() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PARALLEL_PAGES);
+    }
+
+    public PagedDownloader(int pageSize, int maxParallelPages) {
+        this.pageSize = pageSize;
+        this.maxParallelPages = maxParallelPages;
+    }
+
+    /**
+     * @return Sync token the server sent with the first page of the last download, or null. Changes
+     * after that token are fetched by {@link DeltaSync}.
+     */
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    /**
+     * @return Number of downloaded events.
+     * @throws MissingUUIDException If no UUID has been generated yet.
+     * @throws IOException If a page could not be downloaded or committed. Pages committed
+     *                     before the failure stay in the database.
+     */
+    public int downloadEvents(Context context) throws MissingUUIDException, IOException {
+        String uuid = uuid(context);
+        EventDatabaseHelper eventDatabaseHelper = EventDatabaseHelper.getInstance(context);
+        return download(EVENT_PAGE,
+                (page, limit) -> RestApiService.getApiService().getEventPage(uuid, page, limit),
+                (int page, List<Event> events) -> {
+                    if (eventDatabaseHelper.upsertRemoteEvents(events) < 0) {
+                        throw new IOException("Could not write page " + page + " of events");
+                    }
+                });
+    }
+
+    /**
+     * @return Number of downloaded tasks.
+     * @throws MissingUUIDException If no UUID has been generated yet.
+     * @throws IOException If a page could not be downloaded or committed. Pages committed
+     *                     before the failure stay in the database.
+     */
+    public int downloadTasks(Context context) throws MissingUUIDException, IOException {
+        String uuid = uuid(context);
+        TodoDatabaseHelper todoDatabaseHelper = TodoDatabaseHelper.getInstance(context);
+        return download(TASK_PAGE,
+                (page, limit) -> RestApiService.getApiService().getToDoPage(uuid, page, limit),
+                (int page, List<Task> tasks) -> {
+                    if (todoDatabaseHelper.upsertRemoteTasks(tasks) < 0) {
+                        throw new IOException("Could not write page " + page + " of tasks");
+                    }
+                });
+    }
+
+    /**
+     * @param pageType {@link Page} type of the response, e.g. {@code Page<Event>}.
+     * @return Number of downloaded records.
+     */
+    public <T> int download(Type pageType, PageCall pageCall, PageConsumer<T> consumer) throws IOException {
+        Page<T> first = fetch(pageType, pageCall, 0);
+        consumer.accept(0, first.getItems());
+        int downloaded = first.getItems().size();
+
+        if (first.getTotal() == null) {
+            // Without a total the pages can only be walked one after another
+            int page = 1;
+            List<T> items = first.getItems();
+            while (items.size() >= pageSize) {
+                items = this.<T>fetch(pageType, pageCall, page).getItems();
+                consumer.accept(page, items);
+                downloaded += items.size();
+                page++;
+            }
+            return downloaded;
+        }
+
+        int pageCount = (first.getTotal() + pageSize - 1) / pageSize;
+        if (pageCount <= 1) {
+            return downloaded;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallelPages, pageCount - 1), runnable -> {
+            Thread thread = new Thread(runnable, "cloud-pages");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int page = 1; page < pageCount; page++) {
+                int current = page;
+                results.add(executor.submit(() -> {
+                    List<T> items = this.<T>fetch(pageType, pageCall, current).getItems();
+                    consumer.accept(current, items);
+                    return items.size();
+                }));
+            }
+            for (Future<Integer> result : results) {
+                downloaded += result.get();
+            }
+            Log.d("PagedDownloader", "Downloaded " + downloaded + " records in " + pageCount + " pages");
+            return downloaded;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error downloading page", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading pages", e);
+        } finally {
+            // Stops pages that have not started yet after a failure
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> Page<T> fetch(Type pageType, PageCall pageCall, int page) throws IOException {
+        Response<ResponseBody> response = pageCall.create(page, pageSize).execute();
+        if (page == 0) {
+            syncToken = response.headers().get(DeltaSync.SYNC_TOKEN_HEADER);
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            throw new IOException("Error retrieving page " + page + ": " + response.code());
+        }
+
+        try (ResponseBody body = response.body()) {
+            Page<T> result = RestApiService.fromJson(body.charStream(), pageType);
+            if (result == null) {
+                throw new IOException("Empty page " + page);
+            }
+            return result;
+        } catch (JsonParseException e) {
+            throw new IOException("Error parsing page " + page, e);
+        }
+    }
+
+    private static String uuid(Context context) throws MissingUUIDException {
+        String uuid = RestApiService.getUUid(context);
+        if (uuid == null) {
+            Log.d("PagedDownloader", "UUID not found. Generate UUID first.");
+            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
+        }
+        return uuid;
+    }
+}
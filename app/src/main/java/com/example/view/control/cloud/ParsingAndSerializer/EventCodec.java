@@ -0,0 +1,129 @@
+package com.example.view.control.cloud.ParsingAndSerializer;
+
+import com.example.view.model.calendar.Event;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handgeschriebener Gson-{@link TypeAdapter} für {@link Event}, ohne Reflection.
+ * Wird für Anfragen und Antworten gleichermaßen verwendet und schreibt dieselben
+ * Feldnamen wie die bisherige reflektive Serialisierung.
+ */
+public class EventCodec extends TypeAdapter<Event> {
+
+    @Override
+    public void write(JsonWriter out, Event event) throws IOException {
+        if (event == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("event_id").value(event.getId());
+        out.name("title").value(event.getTitle());
+        out.name("category").value(event.getCategory());
+        out.name("startDateTime").value(IsoDateTime.format(event.getStartDateTime()));
+        out.name("endDateTime").value(IsoDateTime.format(event.getEndDateTime()));
+        out.name("travelTime").value(event.getTravelTime());
+        out.name("location").value(event.getLocation());
+        out.name("repetition").value(event.getRepetition());
+        out.name("notes").value(event.getNotes());
+
+        List<String> participants = event.getParticipants();
+        out.name("participants");
+        if (participants == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (String participant : participants) {
+                out.value(participant);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String eventId = null;
+        String title = null;
+        String category = null;
+        LocalDateTime startDateTime = null;
+        LocalDateTime endDateTime = null;
+        int travelTime = 0;
+        String location = null;
+        String repetition = null;
+        String notes = null;
+        List<String> participants = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "event_id":
+                    eventId = in.nextString();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "category":
+                    category = in.nextString();
+                    break;
+                case "startDateTime":
+                    startDateTime = IsoDateTime.parse(in.nextString());
+                    break;
+                case "endDateTime":
+                    endDateTime = IsoDateTime.parse(in.nextString());
+                    break;
+                case "travelTime":
+                    // Die API liefert die Dauer teils als String, nextInt akzeptiert beides
+                    travelTime = in.nextInt();
+                    break;
+                case "location":
+                    location = in.nextString();
+                    break;
+                case "repetition":
+                    repetition = in.nextString();
+                    break;
+                case "notes":
+                    notes = in.nextString();
+                    break;
+                case "participants":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            participants.add(in.nextString());
+                        }
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new Event(eventId, title, category, startDateTime, endDateTime, travelTime,
+                location, repetition, notes, participants);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.view.control.cloud.ParsingAndSerializer;
+
+import com.example.view.model.calendar.Event;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liest ein JSON-Array von Events schrittweise aus einem Stream, ohne die gesamte Antwort
+ * oder die vollständige Liste im Speicher zu halten. Die Events werden in Blöcken fester
+ * Größe an einen {@link ChunkConsumer} übergeben.
+ */
+public final class EventStreamParser {
+
+    private static final EventCodec EVENT_CODEC = new EventCodec();
+
+    private EventStreamParser() {
+    }
+
+    /**
+     * Empfänger für einen Block geparster Events.
+     */
+    public interface ChunkConsumer {
+        /**
+         * @param chunk Die Events des Blocks. Die Liste wird danach wiederverwendet und darf nicht gespeichert werden.
+         */
+        void accept(List<Event> chunk) throws IOException;
+    }
+
+    /**
+     * Parst das JSON-Array aus dem Stream und übergibt die Events blockweise.
+     *
+     * @param reader    Der Stream mit dem JSON-Array.
+     * @param chunkSize Maximale Anzahl Events pro Block.
+     * @param consumer  Empfänger der Blöcke.
+     * @return Die Gesamtzahl der gelesenen Events.
+     * @throws IOException Wenn der Stream nicht gelesen werden kann oder kein gültiges JSON enthält.
+     * @throws IllegalArgumentException Wenn einem Event Pflichtfelder fehlen.
+     */
+    public static int parse(Reader reader, int chunkSize, ChunkConsumer consumer) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        List<Event> chunk = new ArrayList<>(chunkSize);
+        int count = 0;
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.skipValue();
+                continue;
+            }
+            chunk.add(ResponseParser.normalize(EVENT_CODEC.read(jsonReader)));
+            count++;
+
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        }
+        jsonReader.endArray();
+
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+        return count;
+    }
+}
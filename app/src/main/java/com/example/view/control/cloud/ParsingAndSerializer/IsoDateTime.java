@@ -0,0 +1,123 @@
+package com.example.view.control.cloud.ParsingAndSerializer;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Schnelles Parsen und Formatieren von ISO 8601 Zeitstempeln für {@link LocalDateTime}.
+ * Die Formate, die die API tatsächlich liefert ({@code yyyy-MM-ddTHH:mm[:ss[.SSS…]]}), werden
+ * direkt aus den Zeichen gelesen; alles andere (z.B. mit Zeitzonen-Offset) fällt auf
+ * {@link DateTimeFormatter#ISO_DATE_TIME} zurück.
+ */
+public final class IsoDateTime {
+
+    private static final DateTimeFormatter PARSE_FALLBACK = DateTimeFormatter.ISO_DATE_TIME;
+    private static final DateTimeFormatter FORMAT_FALLBACK = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private IsoDateTime() {
+    }
+
+    /**
+     * Parst einen ISO 8601 Zeitstempel. Ein eventuell vorhandener Offset wird wie bei
+     * {@code LocalDateTime.parse(text, ISO_DATE_TIME)} ignoriert.
+     *
+     * @param text Der Zeitstempel.
+     * @return Das {@link LocalDateTime}.
+     * @throws java.time.format.DateTimeParseException Wenn der Text kein gültiger Zeitstempel ist.
+     */
+    public static LocalDateTime parse(String text) {
+        int length = text.length();
+        if (length >= 16 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            int second = 0;
+            int nano = 0;
+            boolean valid = (year | month | day | hour | minute) >= 0;
+
+            if (valid && length > 16) {
+                valid = length >= 19 && text.charAt(16) == ':';
+                second = valid ? digits(text, 17, 19) : -1;
+                valid = second >= 0;
+                if (valid && length > 19) {
+                    valid = text.charAt(19) == '.' && length > 20 && length <= 29;
+                    nano = valid ? fraction(text, 20, length) : -1;
+                    valid = nano >= 0;
+                }
+            }
+            if (valid) {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            }
+        }
+        return LocalDateTime.parse(text, PARSE_FALLBACK);
+    }
+
+    /**
+     * Formatiert wie {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}.
+     *
+     * @param dateTime Das {@link LocalDateTime}, darf null sein.
+     * @return Der Zeitstempel oder null.
+     */
+    public static String format(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        int year = dateTime.getYear();
+        if (dateTime.getNano() != 0 || year < 0 || year > 9999) {
+            return FORMAT_FALLBACK.format(dateTime);
+        }
+
+        char[] chars = new char[19];
+        write(chars, 0, year, 4);
+        chars[4] = '-';
+        write(chars, 5, dateTime.getMonthValue(), 2);
+        chars[7] = '-';
+        write(chars, 8, dateTime.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        write(chars, 11, dateTime.getHour(), 2);
+        chars[13] = ':';
+        write(chars, 14, dateTime.getMinute(), 2);
+        chars[16] = ':';
+        write(chars, 17, dateTime.getSecond(), 2);
+        return new String(chars);
+    }
+
+    /**
+     * @return Den Zahlenwert der Ziffern in [start, end) oder -1, wenn ein Zeichen keine Ziffer ist.
+     */
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return Die Nachkommastellen in [start, end) als Nanosekunden oder -1.
+     */
+    private static int fraction(String text, int start, int end) {
+        int value = digits(text, start, end);
+        if (value < 0) {
+            return -1;
+        }
+        for (int i = end - start; i < 9; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static void write(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -1,28 +1,25 @@
 package com.example.view.control.cloud.ParsingAndSerializer;
 
-import android.os.Build;
-
 import com.example.view.errorhandling.EventErrorException;
 import com.example.view.model.calendar.Event;
-import com.example.view.model.todo.Category;
-import com.example.view.model.todo.Priority;
 import com.example.view.model.todo.Task;
+import com.google.gson.stream.JsonReader;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Diese Klasse enthält Methoden zum Parsen von JSON-Antworten und Umwandeln in Java-Objekte.
  * Sie unterstützt das Parsen von Events und Aufgaben sowie deren Listen.
+ * Das Lesen der einzelnen Objekte übernehmen {@link EventCodec} und {@link TaskCodec}.
  */
 public class ResponseParser {
 
+    private static final EventCodec EVENT_CODEC = new EventCodec();
+    private static final TaskCodec TASK_CODEC = new TaskCodec();
+
     /**
      * Parst eine einzelne Event-Antwort von einem JSON-String in ein {@link Event}-Objekt.
      *
@@ -32,67 +29,9 @@ public class ResponseParser {
      */
     public static Event parseEvent(String jsonResponse) throws EventErrorException {
         try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                // JSON-String in ein JSONObject umwandeln
-                JSONObject json = new JSONObject(jsonResponse);
-
-                // Felder aus dem JSON extrahieren
-                String eventId = json.getString("event_id");
-                String title = json.getString("title");
-
-                // Category konvertieren
-                String category = json.has("category") && !json.isNull("category")
-                        ? json.getString("category").toUpperCase()
-                        : null;
-
-                // Datum und Uhrzeit parsen (ISO 8601-Format)
-                DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-
-                LocalDateTime beginDate = json.has("startDateTime") && !json.isNull("startDateTime")
-                        ? LocalDateTime.parse(json.getString("startDateTime"), formatter)
-                        : null;
-
-                LocalDateTime endDate = json.has("endDateTime") && !json.isNull("endDateTime")
-                        ? LocalDateTime.parse(json.getString("endDateTime"), formatter)
-                        : null;
-
-                // Dauer konvertieren
-                int travelTime = json.has("travelTime") && !json.isNull("travelTime")
-                        ? Integer.parseInt(json.getString("travelTime"))
-                        : null;
-
-                // Optionales Feld "location"
-                String location = json.has("location") && !json.isNull("location")
-                        ? json.getString("location")
-                        : null;
-
-                // RepetitionType konvertieren
-                String repetition = json.has("repetition") && !json.isNull("repetition")
-                        ? json.getString("repetition").toUpperCase()
-                        : null;
-
-                // Optionales Feld "description"
-                String description = json.has("notes") && !json.isNull("notes")
-                        ? json.getString("notes")
-                        : null;
-
-                // Mitglieder extrahieren
-                List<String> members = new ArrayList<>();
-                if (json.has("participants") && !json.isNull("participants")) {
-                    JSONArray membersArray = json.getJSONArray("participants");
-                    for (int i = 0; i < membersArray.length(); i++) {
-                        members.add(membersArray.getString(i));
-                    }
-                }
-
-                // Event-Objekt erstellen
-                return new Event(eventId, title, category, beginDate, endDate, travelTime,
-                        location, repetition, description, members);
-            } else {
-                throw new EventErrorException("Fehler beim Parsen des Events: Build.VERSION.SDK_INT < Build.Version_codes.0");
-            }
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+            return normalize(EVENT_CODEC.read(new JsonReader(new StringReader(jsonResponse))));
+        } catch (IOException | RuntimeException e) {
+            throw new EventErrorException("Fehler beim Parsen des Events: " + e.getMessage());
         }
     }
 
@@ -106,71 +45,13 @@ public class ResponseParser {
     public static List<Event> parseEventList(String jsonResponse) throws EventErrorException {
         List<Event> events = new ArrayList<>();
         try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                // JSON-Array aus der Antwort extrahieren
-                JSONArray jsonArray = new JSONArray(jsonResponse);
-
-                // Datum und Uhrzeit parsen (ISO 8601-Format)
-                DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject json = jsonArray.getJSONObject(i);
-
-                    // Felder aus dem JSON extrahieren
-                    String eventId = json.getString("event_id");
-                    String title = json.getString("title");
-
-                    // Category konvertieren
-                    String category = json.has("category") && !json.isNull("category")
-                            ? json.getString("category").toUpperCase()
-                            : null;
-
-                    LocalDateTime beginDate = json.has("startDateTime") && !json.isNull("startDateTime")
-                            ? LocalDateTime.parse(json.getString("startDateTime"), formatter)
-                            : null;
-
-                    LocalDateTime endDate = json.has("endDateTime") && !json.isNull("endDateTime")
-                            ? LocalDateTime.parse(json.getString("endDateTime"), formatter)
-                            : null;
-
-                    // Dauer konvertieren
-                    int travelTime = json.has("travelTime") && !json.isNull("travelTime")
-                            ? Integer.parseInt(json.getString("travelTime"))
-                            : null;
-
-                    // Optionales Feld "location"
-                    String location = json.has("location") && !json.isNull("location")
-                            ? json.getString("location")
-                            : null;
-
-                    // RepetitionType konvertieren
-                    String repetition = json.has("repetition") && !json.isNull("repetition")
-                            ? json.getString("repetition").toUpperCase()
-                            : null;
-
-                    // Optionales Feld "description"
-                    String description = json.has("notes") && !json.isNull("notes")
-                            ? json.getString("notes")
-                            : null;
-
-                    // Mitglieder extrahieren
-                    List<String> members = new ArrayList<>();
-                    if (json.has("participants") && !json.isNull("participants")) {
-                        JSONArray membersArray = json.getJSONArray("participants");
-                        for (int a = 0; a < membersArray.length(); a++) {
-                            members.add(membersArray.getString(a));
-                        }
-                    }
-
-                    // Event-Objekt erstellen und zur Liste hinzufügen
-                    Event event = new Event(eventId, title, category, beginDate, endDate,
-                            travelTime, location, repetition, description, members);
-                    events.add(event);
-                }
-            }else {
-                    throw new EventErrorException("Fehler beim Parsen des Events: Build.VERSION.SDK_INT < Build.Version_codes.0");
-                }
-        } catch (Exception e) {
+            JsonReader reader = new JsonReader(new StringReader(jsonResponse));
+            reader.beginArray();
+            while (reader.hasNext()) {
+                events.add(normalize(EVENT_CODEC.read(reader)));
+            }
+            reader.endArray();
+        } catch (IOException | RuntimeException e) {
             // Fehlerbehandlung
             throw new EventErrorException("Fehler beim Parsen der Event-Liste: " + e.getMessage());
         }
@@ -188,31 +69,36 @@ public class ResponseParser {
         List<Task> tasks = new ArrayList<>();
 
         try {
-            JSONArray jsonArray = new JSONArray(jsonResponse);
-
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject json = jsonArray.getJSONObject(i);
-
-                // Extrahiere die Felder aus dem JSON-Objekt
-                String id = json.getString("id");
-                String taskName = json.getString("task");
-                Category category = json.has("category") && !json.isNull("category")
-                        ? Category.valueOf(json.getString("category").toUpperCase())
-                        : null;
-                String description = json.has("description") && !json.isNull("description")
-                        ? json.getString("description")
-                        : null;
-                Priority priority = json.has("priority") && !json.isNull("priority")
-                        ? Priority.valueOf(json.getString("priority"))
-                        : null;
-
-                // Erstelle ein Task-Objekt und füge es zur Liste hinzu
-                Task task = new Task(id, taskName, category, description, priority);
+            JsonReader reader = new JsonReader(new StringReader(jsonResponse));
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Task task = TASK_CODEC.read(reader);
+                // Pflichtfelder wie bisher prüfen
+                if (task == null || task.getId() == null || task.getTask() == null) {
+                    throw new IllegalArgumentException("Task without id or task");
+                }
                 tasks.add(task);
             }
+            reader.endArray();
         } catch (Exception e) {
             throw new Exception("Error parsing Task list: " + e.getMessage());
         }
         return tasks;
     }
+
+    /**
+     * Prüft die Pflichtfelder und schreibt Kategorie und Wiederholung groß, wie es die App erwartet.
+     */
+    static Event normalize(Event event) {
+        if (event == null || event.getId() == null || event.getTitle() == null) {
+            throw new IllegalArgumentException("Event without event_id or title");
+        }
+        if (event.getCategory() != null) {
+            event.setCategory(event.getCategory().toUpperCase());
+        }
+        if (event.getRepetition() != null) {
+            event.setRepetition(event.getRepetition().toUpperCase());
+        }
+        return event;
+    }
 }
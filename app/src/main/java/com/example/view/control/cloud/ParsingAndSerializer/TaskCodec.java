@@ -0,0 +1,82 @@
+package com.example.view.control.cloud.ParsingAndSerializer;
+
+import com.example.view.model.todo.Category;
+import com.example.view.model.todo.Priority;
+import com.example.view.model.todo.Task;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Handgeschriebener Gson-{@link TypeAdapter} für {@link Task}, ohne Reflection.
+ * Wird für Anfragen und Antworten gleichermaßen verwendet und schreibt dieselben
+ * Feldnamen wie die bisherige reflektive Serialisierung.
+ */
+public class TaskCodec extends TypeAdapter<Task> {
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(task.getId());
+        out.name("task").value(task.getTask());
+        out.name("category").value(task.getCategory() == null ? null : task.getCategory().name());
+        out.name("description").value(task.getDescription());
+        out.name("priority").value(task.getPriority() == null ? null : task.getPriority().name());
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String id = null;
+        String taskName = null;
+        Category category = null;
+        String description = null;
+        Priority priority = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "id":
+                    id = in.nextString();
+                    break;
+                case "task":
+                    taskName = in.nextString();
+                    break;
+                case "category":
+                    category = Category.valueOf(in.nextString().toUpperCase());
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "priority":
+                    priority = Priority.valueOf(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new Task(id, taskName, category, description, priority);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.view.control.cloud.ParsingAndSerializer;
+
+import com.example.view.model.todo.Task;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gegenstück zu {@link EventStreamParser} für Aufgaben: liest ein JSON-Array von Tasks
+ * schrittweise aus einem Stream und übergibt sie in Blöcken fester Größe an einen
+ * {@link ChunkConsumer}.
+ */
+public final class TaskStreamParser {
+
+    private static final TaskCodec TASK_CODEC = new TaskCodec();
+
+    private TaskStreamParser() {
+    }
+
+    /**
+     * Empfänger für einen Block geparster Tasks.
+     */
+    public interface ChunkConsumer {
+        /**
+         * @param chunk Die Tasks des Blocks. Die Liste wird danach wiederverwendet und darf nicht gespeichert werden.
+         */
+        void accept(List<Task> chunk) throws IOException;
+    }
+
+    /**
+     * Parst das JSON-Array aus dem Stream und übergibt die Tasks blockweise.
+     *
+     * @param reader    Der Stream mit dem JSON-Array.
+     * @param chunkSize Maximale Anzahl Tasks pro Block.
+     * @param consumer  Empfänger der Blöcke.
+     * @return Die Gesamtzahl der gelesenen Tasks.
+     * @throws IOException Wenn der Stream nicht gelesen werden kann oder kein gültiges JSON enthält.
+     * @throws IllegalArgumentException Wenn einer Task Pflichtfelder fehlen.
+     */
+    public static int parse(Reader reader, int chunkSize, ChunkConsumer consumer) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        List<Task> chunk = new ArrayList<>(chunkSize);
+        int count = 0;
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.skipValue();
+                continue;
+            }
+            Task task = TASK_CODEC.read(jsonReader);
+            // Pflichtfelder wie in ResponseParser.parseTaskList prüfen
+            if (task.getId() == null || task.getTask() == null) {
+                throw new IllegalArgumentException("Task without id or task");
+            }
+            chunk.add(task);
+            count++;
+
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        }
+        jsonReader.endArray();
+
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+        return count;
+    }
+}
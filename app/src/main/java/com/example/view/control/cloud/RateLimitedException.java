@@ -0,0 +1,22 @@
+package com.example.view.control.cloud;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link TokenBucket} when no token is available for a request. The request was not sent.
+ */
+public class RateLimitedException extends IOException {
+    private final long retryAfterMillis;
+
+    public RateLimitedException(String message, long retryAfterMillis){
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return Milliseconds until the next token is available.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
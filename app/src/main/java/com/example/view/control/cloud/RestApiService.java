@@ -1,7 +1,6 @@
 package com.example.view.control.cloud;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Build;
 import android.util.Log;
 
@@ -9,18 +8,29 @@ import androidx.annotation.RequiresApi;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.view.control.cloud.ParsingAndSerializer.EventCodec;
 import com.example.view.control.cloud.ParsingAndSerializer.LocalDateTimeDeserializer;
 import com.example.view.control.cloud.ParsingAndSerializer.LocalDateTimeSerializer;
 import com.example.view.control.cloud.ParsingAndSerializer.ResponseParser;
+import com.example.view.control.cloud.ParsingAndSerializer.TaskCodec;
 import com.example.view.model.calendar.Event;
 import com.example.view.model.todo.Task;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -30,9 +40,11 @@ import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 
 /**
@@ -50,62 +62,197 @@ public class RestApiService {
     private static final String BASE_URL = "http://10.0.2.2:8080/api/";
 
     /**
-     * Name der SharedPreferences, in denen die UUID gespeichert wird.
+     * @return Die UUID aus der {@link CloudSession} oder null, solange das Gerät nicht registriert ist.
      */
-    private static final String PREFS_NAME = "CloudPrefs";
-    /**
-     * Schlüssel für die UUID in den SharedPreferences.
-     */
-    private static final String PREF_UUID_KEY = "UUID";
-
-
     public static String getUUid (Context context) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return sharedPreferences.getString(PREF_UUID_KEY, null);
+        return CloudSession.getInstance(context).getUuid();
     }
 
     //Hilfsmethode zum Testen der UUID Registrierung im Backend
     // Methode zum Löschen der gespeicherten UUID
     public static void deleteUuid(Context context) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-
-        // Prüfen, ob eine UUID existiert
-        String existingUuid = sharedPreferences.getString(PREF_UUID_KEY, null);
+        String existingUuid = CloudSession.getInstance(context).clear();
         if (existingUuid != null) {
-            // UUID löschen
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.remove(PREF_UUID_KEY);
-            editor.apply();
-
             Log.d("CloudService", "UUID successfully deleted: " + existingUuid);
         } else {
             Log.d("CloudService", "No UUID found to delete.");
         }
     }
 
+    /**
+     * Gemeinsame Gson-Instanz mit LocalDateTimeSerializer und -Deserializer.
+     * Wird vom Retrofit-Converter und von der Cloud-Outbox verwendet.
+     */
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeSerializer()) // Serializer für LocalDateTime
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeDeserializer()) //Deserializer für LocalDateTime
+            .registerTypeAdapter(Event.class, new EventCodec()) // Event ohne Reflection
+            .registerTypeAdapter(Task.class, new TaskCodec()) // Task ohne Reflection
+            .create();
+
+    /**
+     * Größe des optionalen HTTP-Caches auf der Festplatte.
+     */
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * Name der SharedPreferences, in denen geteilte Events zwischengespeichert werden.
+     */
+    private static final String SHARED_EVENT_CACHE_PREFS = "SharedEventCache";
+
+    /**
+     * Öffnet je Endpunkt nach 5 Fehlern in Folge, damit Aufrufe während eines Ausfalls sofort scheitern.
+     * Probeaufrufe nach 5 Sekunden, bei weiteren Fehlern bis zu 5 Minuten Pause.
+     */
+    private static final CircuitBreaker circuitBreaker = new CircuitBreaker(5, 5_000L, 5 * 60_000L);
+
+    /**
+     * Begrenzt die Anfragen an den Server auf 10 pro Sekunde, mit Stößen bis zu 20 Anfragen.
+     * Darüber hinaus scheitern Anfragen sofort, statt einen Dispatcher-Thread warten zu lassen.
+     */
+    private static final TokenBucket rateLimiter = new TokenBucket(20, 10);
+
+    /**
+     * Misst die Antwortzeiten je Endpunkt und passt den Read-Timeout daran an (2 bis 20 Sekunden).
+     */
+    private static final LatencyTracker latencyTracker = new LatencyTracker(2_000L, 20_000L);
+
+    /**
+     * Zuletzt abgerufene geteilte Events: bis zu 64 Events für 10 Minuten.
+     */
+    private static final SharedEventCache sharedEventCache = new SharedEventCache(64, 10 * 60_000L);
+
+    /**
+     * Gemeinsamer HTTP-Client für alle Anfragen. Hält Verbindungen per Keep-Alive offen,
+     * damit aufeinanderfolgende Sync-Aufrufe keinen neuen TCP/TLS-Handshake benötigen.
+     * OkHttp fordert Antworten automatisch gzip-komprimiert an und entpackt sie transparent.
+     * Wird durch {@link #init(Context)} um den HTTP-Cache erweitert.
+     */
+    private static volatile OkHttpClient httpClient = createOkHttpClient();
+
     /**
      * Retrofit-Instanz für die Erstellung von API-Anfragen.
      */
     public static final Retrofit retrofitInstance= new Retrofit.Builder()
             .baseUrl(BASE_URL)
-            //.client(createOkHttpClient())
+            .callFactory(request -> httpClient.newCall(request)) // Gemeinsamer Client, auch nach init()
             .addConverterFactory(createGsonConverterFactory()) // JSON-Converter
             .build();
 
+    /**
+     * Einmalig erzeugter Proxy für die API-Endpunkte.
+     */
+    private static final ApiService apiService = retrofitInstance.create(ApiService.class);
+
+
+    /**
+     * Erstellt den HTTP-Client mit Connection-Pool und Timeouts.
+     */
+    private static OkHttpClient createOkHttpClient() {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES)) // Bis zu 5 freie Verbindungen 5 Minuten offen halten
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .writeTimeout(20, TimeUnit.SECONDS)
+                .callTimeout(60, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(circuitBreaker) // Zuerst, damit offene Kreise kein Token verbrauchen
+                .addInterceptor(rateLimiter)
+                .addInterceptor(latencyTracker) // Zuletzt, damit nur die Zeit beim Server gemessen wird
+                .build();
+    }
+
+    /**
+     * Aktiviert den HTTP-Cache im Cache-Verzeichnis der App und speichert geteilte Events dauerhaft
+     * zwischen. Sollte einmal beim App-Start aufgerufen werden.
+     * Connection-Pool und Dispatcher werden weiterverwendet.
+     *
+     * @param context Der Kontext, der für den Zugriff auf das Cache-Verzeichnis benötigt wird.
+     */
+    public static synchronized void init(Context context) {
+        if (httpClient.cache() != null) {
+            return;
+        }
+        sharedEventCache.persistTo(context.getApplicationContext()
+                .getSharedPreferences(SHARED_EVENT_CACHE_PREFS, Context.MODE_PRIVATE));
+        File cacheDirectory = new File(context.getApplicationContext().getCacheDir(), "http");
+        httpClient = httpClient.newBuilder()
+                .cache(new Cache(cacheDirectory, HTTP_CACHE_SIZE))
+                .build();
+    }
+
+    /**
+     * Gibt den gemeinsam genutzten Proxy für die API-Endpunkte zurück.
+     */
+    public static ApiService getApiService() {
+        return apiService;
+    }
+
+    /**
+     * Gibt den gemeinsamen HTTP-Client zurück, z.B. als Grundlage für den WebSocket des {@link ChangeNotifier}.
+     */
+    public static OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Gibt die gemessenen Antwortzeiten je Endpunkt zurück.
+     */
+    public static LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * Adresse des Kanals, über den der Server Änderungshinweise für die UUID sendet.
+     */
+    public static HttpUrl getChangesUrl(String uuid) {
+        return HttpUrl.get(BASE_URL).newBuilder()
+                .addPathSegment("changes")
+                .addQueryParameter("param", uuid)
+                .build();
+    }
+
 
     /**
      * Erstellt und gibt den benutzerdefinierten Gson-Converter zurück, der den LocalDateTimeSerializer beinhaltet.
      */
     private static GsonConverterFactory createGsonConverterFactory() {
-            // Erstelle einen GsonBuilder und registriere den LocalDateTimeSerializer
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeSerializer()) // Serializer für LocalDateTime
-                    .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeDeserializer()) //Deserializer für LocalDateTime
-                    .create();
         // Gebe den GsonConverterFactory mit dem benutzerdefinierten Gson zurück
         return GsonConverterFactory.create(gson);
     }
 
+    /**
+     * Serialisiert ein Event oder eine Task so, wie es auch an die API gesendet wird.
+     *
+     * @param entity Das zu serialisierende Objekt.
+     * @return Die JSON-Darstellung.
+     */
+    public static String toJson(Object entity) {
+        return gson.toJson(entity);
+    }
+
+    /**
+     * Deserialisiert eine mit {@link #toJson(Object)} erzeugte JSON-Darstellung.
+     *
+     * @param json Die JSON-Darstellung.
+     * @param type Die Zielklasse.
+     * @return Das deserialisierte Objekt.
+     */
+    public static <T> T fromJson(String json, Class<T> type) {
+        return gson.fromJson(json, type);
+    }
+
+    /**
+     * Deserialisiert eine JSON-Antwort direkt aus dem Stream, z.B. für generische Typen.
+     *
+     * @param reader Der Stream mit der JSON-Darstellung.
+     * @param type Der Zieltyp.
+     * @return Das deserialisierte Objekt.
+     */
+    public static <T> T fromJson(Reader reader, Type type) {
+        return gson.fromJson(reader, type);
+    }
+
 
 
     /**
@@ -119,33 +266,53 @@ public class RestApiService {
 
     //TASKS API
         @POST("tasks") // Endpunkt: BASE_URL/tasks
-        Call<ResponseBody> sendNewToDo(@Body Task task, @Query("param") String uuid); // POST
+        Call<ResponseBody> sendNewToDo(@Body Task task, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); // POST
 
         @GET("tasks") // Endpunkt: BASE_URL/tasks
         Call<ResponseBody> getAllToDo(@Query("param") String uuid); //GET-Anfrage für alle ToDos in der Cloud
 
+        @GET("tasks") // Endpunkt: BASE_URL/tasks?page=..&limit=..
+        Call<ResponseBody> getToDoPage(@Query("param") String uuid, @Query("page") int page, @Query("limit") int limit); //GET-Anfrage für eine Seite der ToDos, Antwort als Page
+
         @PUT("tasks") // Endpunkt: BASE_URL/tasks
-        Call<ResponseBody> sendUpdatedTodo(@Body Task task, @Query("param") String uuid); //PUT-Anfrage, um existierenden ToDos zu aktualisieren
+        Call<ResponseBody> sendUpdatedTodo(@Body Task task, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //PUT-Anfrage, um existierenden ToDos zu aktualisieren
 
         @DELETE("tasks") // Endpunkt: BASE_URL/tasks
-        Call<ResponseBody> deleteToDoInCloud(@Query("idOfDeletedTask") String idOfDeletedTask, @Query("paramUuid") String uuid); //DELETE-Anfrage, um ToDos aus der Cloud zu löschen, basierend auf ihrer ID
+        Call<ResponseBody> deleteToDoInCloud(@Query("idOfDeletedTask") String idOfDeletedTask, @Query("paramUuid") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //DELETE-Anfrage, um ToDos aus der Cloud zu löschen, basierend auf ihrer ID
+
+        @GET("tasks/changes") // Endpunkt: BASE_URL/tasks/changes
+        Call<ResponseBody> getToDoChanges(@Query("param") String uuid, @Query("syncToken") String syncToken); //GET-Anfrage für alle seit dem Sync-Token geänderten und gelöschten ToDos
 
     //CALENDAR API
         @POST("calendar") // Endpunkt: BASE_URL/calendar
-        Call<ResponseBody> sendNewEvent(@Body Event event, @Query("param") String uuid); // Query-Parameter hinzufügen
+        Call<ResponseBody> sendNewEvent(@Body Event event, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); // Query-Parameter hinzufügen
 
         @GET("calendar") // Endpunkt: BASE_URL/calendar
         Call<ResponseBody> getAllEvents(@Query("param") String uuid); //GET-Anfrage für alle Events in der Cloud
 
+        @GET("calendar") // Endpunkt: BASE_URL/calendar?page=..&limit=..
+        Call<ResponseBody> getEventPage(@Query("param") String uuid, @Query("page") int page, @Query("limit") int limit); //GET-Anfrage für eine Seite der Events, Antwort als Page
+
+        @Streaming // Antwort wird nicht gepuffert, sondern als Stream gelesen
+        @GET("calendar") // Endpunkt: BASE_URL/calendar
+        Call<ResponseBody> streamAllEvents(@Query("param") String uuid); //GET-Anfrage für alle Events, für den schrittweisen Import großer Konten
+
         @PUT("calendar") // BASE_URL/calendar
-        Call<ResponseBody> sendUpdatedEvent(@Body Event event, @Query("param") String uuid); //PUT-Anfrage, um existierende Events zu aktualisieren
+        Call<ResponseBody> sendUpdatedEvent(@Body Event event, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //PUT-Anfrage, um existierende Events zu aktualisieren
 
         @DELETE("calendar") // Endpunkt: BASE_URL/calendar
-        Call<ResponseBody> deleteEventInCloud(@Query("idOfDeletedEvent") String idOfDeletedEvent, @Query("param") String uuid); //DELETE-Anfrage, um ToDos aus der Cloud zu löschen, basierend auf ihrer ID
+        Call<ResponseBody> deleteEventInCloud(@Query("idOfDeletedEvent") String idOfDeletedEvent, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //DELETE-Anfrage, um ToDos aus der Cloud zu löschen, basierend auf ihrer ID
+
+        @GET("calendar/changes") // Endpunkt: BASE_URL/calendar/changes
+        Call<ResponseBody> getEventChanges(@Query("param") String uuid, @Query("syncToken") String syncToken); //GET-Anfrage für alle seit dem Sync-Token geänderten und gelöschten Events
+
+    //BATCH API
+        @POST("batch") // Endpunkt: BASE_URL/batch
+        Call<ResponseBody> sendBatch(@Body BatchRequest batch, @Query("param") String uuid, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //POST-Anfrage, um mehrere Erstell-, Änderungs- und Löschoperationen auf einmal zu übertragen
 
     //SHARE API
         @POST("share") // Endpunkt: BASE_URL/share
-        Call<ResponseBody> sendEventToShare(@Body Event event); //POST-Anfrage, um Event in öffentliche Datenbank zum teilen zu speichern
+        Call<ResponseBody> sendEventToShare(@Body Event event, @Header(IdempotencyKeys.HEADER) String idempotencyKey); //POST-Anfrage, um Event in öffentliche Datenbank zum teilen zu speichern
             //Implementierung: Check
         @GET("share") // Endpunkt: BASE_URL/share
         Call<ResponseBody> getSharedEvent(@Query("param") String idOfSharedEvent); //GET-Anfrage, um Event aus der öffentlichen Datenbank zu holen, basierend auf der ID des Events
@@ -155,49 +322,12 @@ public class RestApiService {
 //GENERATE IMPLEMENTIERUNG
     /**
      * Generiert eine UUID, falls diese noch nicht existiert, und speichert sie in den SharedPreferences.
+     * Cloudaufrufe, die bis dahin eintreffen, hält die {@link CloudSession} zurück.
      *
      * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
      */
     public static void generateUuid(Context context) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String existingUuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        // Prüfen, ob bereits eine UUID existiert
-        if (existingUuid != null) {
-            Log.d("CloudService", "UUID already exists: " + existingUuid);
-            return;
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.generateUuid();
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    try {
-                        // UUID aus der Antwort extrahieren
-                        String uuid = response.body().string();
-
-                        // UUID speichern
-                        SharedPreferences.Editor editor = sharedPreferences.edit();
-                        editor.putString(PREF_UUID_KEY, uuid);
-                        editor.apply();
-
-                        Log.d("CloudService", "UUID successfully retrieved and saved: " + uuid);
-                    } catch (IOException e) {
-                        Log.d("CloudService", "Error parsing UUID: " + e.getMessage());
-                    }
-                } else {
-                    Log.d("CloudService", "Error generating UUID: " + response.message());
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                Log.d("CloudService", "Failed to generate UUID: " + t.getMessage());
-            }
-        });
+        CloudSession.getInstance(context).register();
     }
 
 
@@ -205,88 +335,70 @@ public class RestApiService {
     /**
      * Sendet eine neue Task an die Cloud.
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param taskToStore Die zu speichernde Aufgabe.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static void sendNewToDo(Context context, Task taskToStore) throws MissingUUIDException {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.sendNewToDo(taskToStore, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "Task successfully sent");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error: " + response.message());
+    public static void sendNewToDo(Context context, Task taskToStore) {
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("POST tasks", uuid, toJson(taskToStore));
+            InFlightRequests.enqueue(contentKey, key -> apiService.sendNewToDo(taskToStore, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "Task successfully sent");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error: " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Failed to send task: " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Failed to send task: " + t.getMessage());
+                }
+            });
         });
     }
 
     /**
      * Ruft alle Tasks aus der Cloud ab.
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @return Eine LiveData-Liste mit den Aufgaben aus der Cloud.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static LiveData<List<Task>> getAllToDo(Context context) throws MissingUUIDException {
+    public static LiveData<List<Task>> getAllToDo(Context context) {
         MutableLiveData<List<Task>> taskLiveData = new MutableLiveData<>();
 
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            taskLiveData.postValue(null);
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.getAllToDo(uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        String jsonResponse = response.body().string();
-                        List<Task> tasks = ResponseParser.parseTaskList(jsonResponse);
-                        taskLiveData.postValue(tasks);
-                        Log.d("CloudService", "All Tasks successfully retrieved and saved");
-                    } catch (Exception e) {
-                        Log.e("CloudService", "Error parsing Tasks: " + e.getMessage());
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            Call<ResponseBody> call = apiService.getAllToDo(uuid);
+
+            call.enqueue(new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        try {
+                            String jsonResponse = response.body().string();
+                            List<Task> tasks = ResponseParser.parseTaskList(jsonResponse);
+                            taskLiveData.postValue(tasks);
+                            Log.d("CloudService", "All Tasks successfully retrieved and saved");
+                        } catch (Exception e) {
+                            Log.e("CloudService", "Error parsing Tasks: " + e.getMessage());
+                            taskLiveData.postValue(null);
+                        }
+                    } else {
+                        Log.d("CloudService", "Error retrieving all Tasks: " + response.message());
                         taskLiveData.postValue(null);
                     }
-                } else {
-                    Log.d("CloudService", "Error retrieving all Tasks: " + response.message());
-                    taskLiveData.postValue(null);
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                Log.d("CloudService", "Failed to retrieve all Tasks: " + t.getMessage());
-                taskLiveData.postValue(null);
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    Log.d("CloudService", "Failed to retrieve all Tasks: " + t.getMessage());
+                    taskLiveData.postValue(null);
+                }
+            });
         });
         return taskLiveData;
     }
@@ -294,78 +406,60 @@ public class RestApiService {
     /**
      * Sendet eine aktualisierte Task an die Cloud
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param updatedTask Die zu aktualisierende Task.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static void updateToDoInCloud(Context context, Task updatedTask) throws MissingUUIDException {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.sendUpdatedTodo(updatedTask, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "updated Task successfully sent");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error updating Task in Cloud " + response.message());
+    public static void updateToDoInCloud(Context context, Task updatedTask) {
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("PUT tasks", uuid, toJson(updatedTask));
+            InFlightRequests.enqueue(contentKey, key -> apiService.sendUpdatedTodo(updatedTask, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "updated Task successfully sent");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error updating Task in Cloud " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Error updating Task in Cloud " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Error updating Task in Cloud " + t.getMessage());
+                }
+            });
         });
     }
 
     /**
      * Löscht eine Task aus der Cloud
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param idOfDeletedToDo Die zu löschende Task.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static void deleteToDoInCloud(Context context, String idOfDeletedToDo) throws MissingUUIDException {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.deleteToDoInCloud(idOfDeletedToDo, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "deleted Task successfully");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error deleting Task in Cloud " + response.message());
+    public static void deleteToDoInCloud(Context context, String idOfDeletedToDo) {
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("DELETE tasks", uuid, idOfDeletedToDo);
+            InFlightRequests.enqueue(contentKey, key -> apiService.deleteToDoInCloud(idOfDeletedToDo, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "deleted Task successfully");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error deleting Task in Cloud " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Error deleting Task in Cloud " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Error deleting Task in Cloud " + t.getMessage());
+                }
+            });
         });
     }
 
@@ -376,165 +470,137 @@ public class RestApiService {
     /**
      * Sendet ein neues Event an die Cloud.
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param eventToStore Das zu speichernde Event
      */
     public static void sendNewEvent(Context context, Event eventToStore) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            return;
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.sendNewEvent(eventToStore, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "Event successfully sent");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error beim POSTen des Events: " + response.message());
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("POST calendar", uuid, toJson(eventToStore));
+            InFlightRequests.enqueue(contentKey, key -> apiService.sendNewEvent(eventToStore, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "Event successfully sent");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error beim POSTen des Events: " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Failed to send task: " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Failed to send task: " + t.getMessage());
+                }
+            });
         });
     }
 
     /**
-     * Rudt alle Events aus der Cloud ab
+     * Ruft alle Events aus der Cloud ab und speichert sie lokal, während die Antwort noch gelesen
+     * wird. Die Events werden blockweise über den {@link EventImporter} geschrieben, sodass nie das
+     * ganze Konto im Speicher liegt. Events mit noch nicht gesendeten lokalen Änderungen bleiben
+     * unverändert.
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
-     * @return Eine LiveData-Liste mit den Events aus der Cloud
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
+     * @return Eine LiveData mit der Anzahl geschriebener Events, oder null bei einem Fehler.
      */
-    public static LiveData<List<Event>> getAllEvents(Context context) {
-        MutableLiveData<List<Event>> eventsLiveData = new MutableLiveData<>();
-
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            eventsLiveData.postValue(null);
-            return eventsLiveData;
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.getAllEvents(uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        String jsonResponse = response.body().string();
-                        List<Event> events = ResponseParser.parseEventList(jsonResponse);
-                        eventsLiveData.postValue(events);
-                        Log.d("CloudService", "All Events successfully retrieved");
-                    } catch (Exception e) {
-                        Log.e("CloudService", "Error parsing Events: " + e.getMessage());
-                        eventsLiveData.postValue(null);
+    public static LiveData<Integer> importAllEvents(Context context) {
+        MutableLiveData<Integer> importedLiveData = new MutableLiveData<>();
+        EventImporter importer = new EventImporter(context);
+
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            Call<ResponseBody> call = apiService.streamAllEvents(uuid);
+
+            call.enqueue(new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        // Läuft im Hintergrund, jeder Block wird in eigener Transaktion geschrieben
+                        try (ResponseBody body = response.body()) {
+                            importedLiveData.postValue(importer.importEvents(body.charStream()));
+                            Log.d("CloudService", "All Events successfully imported");
+                        } catch (IOException e) {
+                            Log.e("CloudService", "Error importing Events: " + e.getMessage());
+                            importedLiveData.postValue(null);
+                        }
+                    } else {
+                        Log.d("CloudService", "Error retrieving all Events: " + response.message());
+                        if (response.errorBody() != null) {
+                            response.errorBody().close();
+                        }
+                        importedLiveData.postValue(null);
                     }
-                } else {
-                    Log.d("CloudService", "Error retrieving all Events: " + response.message());
-                    eventsLiveData.postValue(null);
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                Log.d("CloudService", "Failed to retrieve all Events: " + t.getMessage());
-                eventsLiveData.postValue(null);
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    Log.d("CloudService", "Failed to retrieve all Events: " + t.getMessage());
+                    importedLiveData.postValue(null);
+                }
+            });
         });
-        return eventsLiveData;
+        return importedLiveData;
     }
 
     /**
      * Sendet ein aktualisiertes Event an die Cloud
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param updatedEvent Das zu aktualisierende Event.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static void updateEventInCloud(Context context, Event updatedEvent) throws MissingUUIDException {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.sendUpdatedEvent(updatedEvent, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "updated Event successfully sent");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error updating Event in Cloud " + response.message());
+    public static void updateEventInCloud(Context context, Event updatedEvent) {
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("PUT calendar", uuid, toJson(updatedEvent));
+            InFlightRequests.enqueue(contentKey, key -> apiService.sendUpdatedEvent(updatedEvent, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "updated Event successfully sent");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error updating Event in Cloud " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Error updating Event in Cloud " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Error updating Event in Cloud " + t.getMessage());
+                }
+            });
         });
     }
 
     /**
      * Löscht ein Event aus der Cloud
      *
-     * @param context Der Kontext, der für den Zugriff auf SharedPreferences benötigt wird.
+     * @param context Der Kontext, über den die {@link CloudSession} erreicht wird.
      * @param idOfDeletedEvent ID des zu löschenden Events.
-     * @throws MissingUUIDException Wenn keine UUID vorhanden ist.
      */
-    public static void deleteEventInCloud(Context context, String idOfDeletedEvent) throws MissingUUIDException {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uuid = sharedPreferences.getString(PREF_UUID_KEY, null);
-
-        if (uuid == null) {
-            Log.d("CloudService", "UUID not found. Generate UUID first.");
-            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
-        }
-
-        ApiService apiService = retrofitInstance.create(ApiService.class);
-        Call<ResponseBody> call = apiService.deleteEventInCloud(idOfDeletedEvent, uuid);
-
-        call.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                if (response.isSuccessful()) {
-                    // Erfolg
-                    Log.d("CloudService", "deleted Event successfully");
-                } else {
-                    // Fehler
-                    Log.d("CloudService", "Error deleting Event in Cloud " + response.message());
+    public static void deleteEventInCloud(Context context, String idOfDeletedEvent) {
+        CloudSession.getInstance(context).whenReady(uuid -> {
+            String contentKey = IdempotencyKeys.forContent("DELETE calendar", uuid, idOfDeletedEvent);
+            InFlightRequests.enqueue(contentKey, key -> apiService.deleteEventInCloud(idOfDeletedEvent, uuid, key), new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (response.isSuccessful()) {
+                        // Erfolg
+                        Log.d("CloudService", "deleted Event successfully");
+                    } else {
+                        // Fehler
+                        Log.d("CloudService", "Error deleting Event in Cloud " + response.message());
+                    }
                 }
-            }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                // Fehler bei der Kommunikation
-                Log.d("CloudService", "Error deleting Event in Cloud " + t.getMessage());
-            }
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    // Fehler bei der Kommunikation
+                    Log.d("CloudService", "Error deleting Event in Cloud " + t.getMessage());
+                }
+            });
         });
     }
 
@@ -548,11 +614,9 @@ public class RestApiService {
      */
     public static void sendEventToShare(Event eventToShare) {
 
-        ApiService apiService = retrofitInstance.create(ApiService.class);
         Log.d("EventToSend", "Event ID: " + eventToShare.getId());
-        Call<ResponseBody> call = apiService.sendEventToShare(eventToShare);
-
-        call.enqueue(new Callback<ResponseBody>() {
+        String contentKey = IdempotencyKeys.forContent("POST share", toJson(eventToShare));
+        InFlightRequests.enqueue(contentKey, key -> apiService.sendEventToShare(eventToShare, key), new Callback<ResponseBody>() {
             @Override
             public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
                 if (response.isSuccessful()) {
@@ -573,7 +637,8 @@ public class RestApiService {
     }
 
     /**
-     * Extrahiert ein Event aus der Cloud basierend auf dessen ID
+     * Extrahiert ein Event aus der Cloud basierend auf dessen ID. Kürzlich abgerufene Events kommen
+     * aus dem {@link SharedEventCache}, gleichzeitige Abrufe derselben ID teilen sich eine Anfrage.
      *
      * @param idOfSharedEvent ID des Events, welches heruntergeladen werden soll
      * @return Ein LiveData welches die Rückgabe der Cloud zurück gibt
@@ -582,33 +647,41 @@ public class RestApiService {
         Log.d ("CloudService", "ID of Shared Event: " + idOfSharedEvent);
         //Hilfsklasse zum aynchronen Zurückgeben von CloudRückmeldungen
         MutableLiveData<Event> eventLiveData = new MutableLiveData<>();
-        ApiService apiService = retrofitInstance.create(ApiService.class);
+        sharedEventCache.get(idOfSharedEvent, RestApiService::fetchSharedEvent, eventLiveData::postValue);
+        return eventLiveData;
+    }
+
+    /**
+     * Lädt ein geteiltes Event aus der Cloud, ohne Zwischenspeicher.
+     */
+    private static void fetchSharedEvent(String idOfSharedEvent, Consumer<Event> onLoaded) {
         Call<ResponseBody> call = apiService.getSharedEvent(idOfSharedEvent);
 
-        call.enqueue(new Callback<ResponseBody>() {
+        //Zweite Anfrage, falls die erste nach der p95-Antwortzeit noch nicht beantwortet ist
+        HedgedCall.enqueue(call, "getSharedEvent", new Callback<ResponseBody>() {
 
             @Override
             public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
                 if (response.isSuccessful() && response.body() != null) {
+                    Event event = null;
                     try {
-                        Event event = ResponseParser.parseEvent(response.body().string());
-                        eventLiveData.postValue(event);
+                        event = ResponseParser.parseEvent(response.body().string());
+                        Log.d("CloudService", "Shared Event successfully retrieved");
                     } catch (Exception e) {
                         Log.e("CloudService", "Error parsing response: " + e.getMessage());
                     }
-                    Log.d("CloudService", "Shared Event successfully retrieved");
+                    onLoaded.accept(event);
                 } else {
                     Log.d("CloudService", "Error retrieving SharedEvent: " + response.message());
-                    eventLiveData.postValue(null);
+                    onLoaded.accept(null);
                 }
             }
 
             @Override
             public void onFailure(Call<ResponseBody> call, Throwable t) {
                 Log.d("CloudService", "Error retrieving SharedEvent: " + t.getMessage());
-                eventLiveData.postValue(null);
+                onLoaded.accept(null);
             }
         });
-        return eventLiveData;
     }
 }
\ No newline at end of file
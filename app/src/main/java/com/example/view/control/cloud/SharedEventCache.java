@@ -0,0 +1,256 @@
+package com.example.view.control.cloud;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.view.model.calendar.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Zwischenspeicher für geteilte Events, Schlüssel ist die ID der Freigabe. Hält die zuletzt
+ * verwendeten {@code maxEntries} Events für {@code ttlMillis} im Speicher und, falls ein Speicher
+ * über {@link #persistTo(SharedPreferences)} gesetzt ist, auch über einen Neustart hinaus.
+ * Gleichzeitige Anfragen nach derselben ID teilen sich einen Abruf, z.B. wenn ein Event an
+ * mehrere Geräte in einem Raum gesendet oder eine Bluetooth-Freigabe wiederholt wird.
+ * Fehlgeschlagene Abrufe ({@code null}) werden nicht gespeichert. Wirft der Loader oder meldet er
+ * sich nicht innerhalb von {@code loadTimeoutMillis}, erhalten alle Wartenden {@code null}.
+ * Jeder Aufrufer bekommt eine eigene Kopie des Events, Änderungen wirken sich nicht auf den
+ * Zwischenspeicher aus.
+ */
+public final class SharedEventCache {
+
+    /**
+     * Lädt ein Event aus der Cloud und meldet es, oder {@code null} bei einem Fehler.
+     */
+    public interface Loader {
+        void load(String id, Consumer<Event> onLoaded);
+    }
+
+    private static final class Entry {
+        final Event event;
+        final long fetchedAt;
+
+        Entry(Event event, long fetchedAt) {
+            this.event = event;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * Ein laufender Abruf und die Aufrufer, die auf ihn warten.
+     */
+    private static final class Load {
+        final List<Consumer<Event>> waiting = new ArrayList<>();
+        ScheduledFuture<?> timeout;
+    }
+
+    private static final long DEFAULT_LOAD_TIMEOUT_MILLIS = 60_000L;
+
+    private static final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shared-event-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long loadTimeoutMillis;
+    private final Map<String, Entry> entries;
+    private final Map<String, Load> inFlight = new HashMap<>();
+    private SharedPreferences store;
+
+    public SharedEventCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, DEFAULT_LOAD_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param loadTimeoutMillis Zeit, nach der ein Abruf ohne Rückmeldung als fehlgeschlagen gilt.
+     */
+    public SharedEventCache(int maxEntries, long ttlMillis, long loadTimeoutMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.loadTimeoutMillis = loadTimeoutMillis;
+        // Zugriffsreihenfolge, damit das am längsten unbenutzte Event zuerst verdrängt wird
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SharedEventCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Speichert Events zusätzlich im angegebenen Speicher.
+     */
+    public synchronized void persistTo(SharedPreferences store) {
+        this.store = store;
+    }
+
+    /**
+     * Liefert das Event aus dem Zwischenspeicher oder lädt es. Läuft für die ID bereits ein
+     * Abruf, wird kein weiterer gestartet; {@code consumer} erhält dann dessen Ergebnis.
+     *
+     * @param consumer Wird sofort oder nach dem Abruf aufgerufen, bei Fehlern mit {@code null}.
+     */
+    public void get(String id, Loader loader, Consumer<Event> consumer) {
+        Event cached;
+        Load load = new Load();
+        synchronized (this) {
+            cached = getIfPresent(id);
+            if (cached == null) {
+                Load running = inFlight.get(id);
+                if (running != null) {
+                    running.waiting.add(consumer);
+                    return;
+                }
+                load.waiting.add(consumer);
+                inFlight.put(id, load);
+                load.timeout = timeouts.schedule(() -> finish(id, load, null), loadTimeoutMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        if (cached != null) {
+            consumer.accept(cached);
+            return;
+        }
+        try {
+            loader.load(id, event -> finish(id, load, event));
+        } catch (RuntimeException e) {
+            Log.d("SharedEventCache", "Loading shared event " + id + " failed: " + e.getMessage());
+            finish(id, load, null);
+        }
+    }
+
+    /**
+     * Beendet einen Abruf. Nur der erste Aufruf je Abruf zählt, spätere Rückmeldungen nach einer
+     * Zeitüberschreitung werden ignoriert.
+     */
+    private void finish(String id, Load load, Event event) {
+        synchronized (this) {
+            if (inFlight.get(id) != load) {
+                return;
+            }
+            inFlight.remove(id);
+            load.timeout.cancel(false);
+            if (event != null) {
+                put(id, event);
+            }
+        }
+        for (Consumer<Event> waitingConsumer : load.waiting) {
+            waitingConsumer.accept(copyOf(event));
+        }
+    }
+
+    /**
+     * @return Das noch gültige Event oder {@code null}.
+     */
+    public synchronized Event getIfPresent(String id) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(id);
+        if (entry == null && store != null) {
+            entry = load(id);
+            if (entry != null) {
+                entries.put(id, entry);
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.fetchedAt >= ttlMillis) {
+            entries.remove(id);
+            if (store != null) {
+                store.edit().remove(id).apply();
+            }
+            return null;
+        }
+        return copyOf(entry.event);
+    }
+
+    public synchronized void put(String id, Event event) {
+        Entry entry = new Entry(copyOf(event), System.currentTimeMillis());
+        entries.put(id, entry);
+        if (store != null) {
+            SharedPreferences.Editor editor = store.edit()
+                    .putString(id, entry.fetchedAt + "|" + RestApiService.toJson(event));
+            removeOldest(editor, id);
+            editor.apply();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        if (store != null) {
+            store.edit().clear().apply();
+        }
+    }
+
+    private Entry load(String id) {
+        String value = store.getString(id, null);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf('|');
+        try {
+            long fetchedAt = Long.parseLong(value.substring(0, separator));
+            Event event = RestApiService.fromJson(value.substring(separator + 1), Event.class);
+            return event == null ? null : new Entry(event, fetchedAt);
+        } catch (RuntimeException e) {
+            // NumberFormatException, JsonParseException oder fehlender Trenner
+            Log.d("SharedEventCache", "Dropping unreadable cache entry " + id + ": " + e.getMessage());
+            store.edit().remove(id).apply();
+            return null;
+        }
+    }
+
+    /**
+     * Entfernt den ältesten gespeicherten Eintrag, wenn der Speicher mit {@code added} voll ist.
+     */
+    private void removeOldest(SharedPreferences.Editor editor, String added) {
+        Map<String, ?> stored = store.getAll();
+        int size = stored.containsKey(added) ? stored.size() : stored.size() + 1;
+        if (size <= maxEntries) {
+            return;
+        }
+        String oldest = null;
+        long oldestFetchedAt = Long.MAX_VALUE;
+        for (Map.Entry<String, ?> storedEntry : stored.entrySet()) {
+            String value = String.valueOf(storedEntry.getValue());
+            int separator = value.indexOf('|');
+            long fetchedAt = separator > 0 ? parseOrZero(value.substring(0, separator)) : 0;
+            if (!storedEntry.getKey().equals(added) && fetchedAt < oldestFetchedAt) {
+                oldest = storedEntry.getKey();
+                oldestFetchedAt = fetchedAt;
+            }
+        }
+        if (oldest != null) {
+            editor.remove(oldest);
+        }
+    }
+
+    private static Event copyOf(Event event) {
+        if (event == null) {
+            return null;
+        }
+        return new Event(event.getId(), event.getTitle(), event.getCategory(), event.getStartDateTime(),
+                event.getEndDateTime(), event.getTravelTime(), event.getLocation(), event.getRepetition(),
+                event.getNotes(), event.getParticipants() == null ? null : new ArrayList<>(event.getParticipants()));
+    }
+
+    private static long parseOrZero(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
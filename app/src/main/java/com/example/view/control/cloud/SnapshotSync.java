@@ -0,0 +1,135 @@
+package com.example.view.control.cloud;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.view.control.cloud.ParsingAndSerializer.TaskStreamParser;
+import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.EventDatabaseHelper;
+import com.example.view.model.repository.SnapshotReconciler;
+import com.example.view.model.repository.TodoDatabaseHelper;
+import com.example.view.model.todo.Task;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Full refresh from the cloud. Streams every record and merges it into the local database chunk
+ * by chunk through {@link SnapshotReconciler}, so a refresh of a mostly unchanged account writes
+ * only the few rows that actually differ and only the IDs of the snapshot are held in memory.
+ * Records missing from the snapshot are deleted once it was read completely. Records with unsent
+ * local changes, either from before the snapshot was requested or from while it was downloading,
+ * are left alone.
+ * {@link DeltaSync} uses it instead of {@link PagedDownloader} when its sync token is missing or
+ * expired and the database already holds records. Calls are blocking and must run on a background
+ * thread, normally the one of {@link OutboxDrainer}.
+ */
+public class SnapshotSync {
+
+    private static final int CHUNK_SIZE = 200;
+
+    private final Context context;
+    private volatile String syncToken;
+
+    public SnapshotSync(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * @return Sync token the server sent with the last snapshot, or null.
+     */
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    /**
+     * @return Number of written and deleted events.
+     * @throws MissingUUIDException If no UUID has been generated yet.
+     * @throws IOException If the download fails or a local transaction was rolled back.
+     */
+    public int syncEvents() throws MissingUUIDException, IOException {
+        EventDatabaseHelper eventDatabaseHelper = EventDatabaseHelper.getInstance(context);
+        Set<String> pendingBeforeSnapshot = eventDatabaseHelper.getPendingEventIds();
+        // Only the IDs of the snapshot are kept, its events are reconciled chunk by chunk
+        Set<String> snapshotIds = new HashSet<>();
+        EventImporter importer = new EventImporter(chunk -> {
+            for (Event event : chunk) {
+                snapshotIds.add(event.getId());
+            }
+            return eventDatabaseHelper.reconcileSnapshotChunk(chunk, pendingBeforeSnapshot);
+        }, CHUNK_SIZE);
+        int written;
+        try (ResponseBody body = download("events", RestApiService.getApiService().streamAllEvents(uuid()))) {
+            written = importer.importEvents(body.charStream());
+        }
+
+        // Deletes wait for the complete snapshot, a broken download must not remove anything
+        int deleted = eventDatabaseHelper.deleteMissingFromSnapshot(snapshotIds, pendingBeforeSnapshot);
+        if (deleted < 0) {
+            throw new IOException("Could not apply event snapshot");
+        }
+        Log.d("SnapshotSync", "Reconciled " + snapshotIds.size() + " cloud events: " + written
+                + " written, " + deleted + " deleted");
+        return written + deleted;
+    }
+
+    /**
+     * @return Number of written and deleted tasks.
+     * @throws MissingUUIDException If no UUID has been generated yet.
+     * @throws IOException If the download fails or a local transaction was rolled back.
+     */
+    public int syncTasks() throws MissingUUIDException, IOException {
+        TodoDatabaseHelper todoDatabaseHelper = TodoDatabaseHelper.getInstance(context);
+        Set<String> pendingBeforeSnapshot = todoDatabaseHelper.getPendingTaskIds();
+        Set<String> snapshotIds = new HashSet<>();
+        int[] written = {0};
+        try (ResponseBody body = download("tasks", RestApiService.getApiService().getAllToDo(uuid()))) {
+            TaskStreamParser.parse(body.charStream(), CHUNK_SIZE, chunk -> {
+                for (Task task : chunk) {
+                    snapshotIds.add(task.getId());
+                }
+                int rows = todoDatabaseHelper.reconcileSnapshotChunk(chunk, pendingBeforeSnapshot);
+                if (rows < 0) {
+                    throw new IOException("Could not write chunk of " + chunk.size() + " tasks");
+                }
+                written[0] += rows;
+            });
+        } catch (RuntimeException e) {
+            throw new IOException("Error parsing Tasks", e);
+        }
+
+        int deleted = todoDatabaseHelper.deleteMissingFromSnapshot(snapshotIds, pendingBeforeSnapshot);
+        if (deleted < 0) {
+            throw new IOException("Could not apply task snapshot");
+        }
+        Log.d("SnapshotSync", "Reconciled " + snapshotIds.size() + " cloud tasks: " + written[0]
+                + " written, " + deleted + " deleted");
+        return written[0] + deleted;
+    }
+
+    private String uuid() throws MissingUUIDException {
+        String uuid = RestApiService.getUUid(context);
+        if (uuid == null) {
+            Log.d("SnapshotSync", "UUID not found. Generate UUID first.");
+            throw new MissingUUIDException("keine Bekannte UUID: Kein Cloudaufruf möglich");
+        }
+        return uuid;
+    }
+
+    private ResponseBody download(String name, Call<ResponseBody> call) throws IOException {
+        Response<ResponseBody> response = call.execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            throw new IOException("Error retrieving all " + name + ": " + response.code());
+        }
+        syncToken = response.headers().get(DeltaSync.SYNC_TOKEN_HEADER);
+        return response.body();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.view.control.cloud;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.content.Context;
+
+/**
+ * Periodic background sync scheduled by {@link SyncScheduler}. Sends the outbox and downloads
+ * cloud changes in one run on the {@link OutboxDrainer} thread.
+ */
+public class SyncJobService extends JobService {
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        Context context = getApplicationContext();
+        OutboxDrainer.getInstance(context).requestSync(changes -> {
+            jobFinished(params, false);
+            SyncScheduler.onSyncFinished(context, changes);
+        });
+        // Work continues on the drainer thread
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The drainer keeps retrying on its own and the next period starts a new sync
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.view.control.cloud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bookkeeping of {@link OutboxDrainer} for requested syncs: the listeners waiting for the outcome
+ * and the operations sent since the last completed sync. A sync that moved data in either
+ * direction reports the sent operations plus the downloaded changes; a failed sync reports
+ * {@link DeltaSync#FAILED} and keeps the sent operations for the next one.
+ */
+public class SyncReporter {
+
+    private final List<OutboxDrainer.SyncListener> listeners = new ArrayList<>();
+    private int sentSinceSync;
+
+    /**
+     * Adds a listener for the outcome of the next sync.
+     */
+    public synchronized void addListener(OutboxDrainer.SyncListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Counts operations delivered to or dropped by the cloud.
+     */
+    public synchronized void onSent(int operations) {
+        sentSinceSync += operations;
+    }
+
+    /**
+     * The outbox could not be emptied or the download did not run.
+     */
+    public void onSyncFailed() {
+        notifyListeners(DeltaSync.FAILED);
+    }
+
+    /**
+     * @param events Downloaded event changes, or {@link DeltaSync#FAILED}.
+     * @param tasks  Downloaded task changes, or {@link DeltaSync#FAILED}.
+     */
+    public void onSyncFinished(int events, int tasks) {
+        int changes;
+        synchronized (this) {
+            if (events == DeltaSync.FAILED || tasks == DeltaSync.FAILED) {
+                changes = DeltaSync.FAILED;
+            } else {
+                changes = sentSinceSync + events + tasks;
+                sentSinceSync = 0;
+            }
+        }
+        notifyListeners(changes);
+    }
+
+    private void notifyListeners(int changes) {
+        List<OutboxDrainer.SyncListener> notified;
+        synchronized (this) {
+            notified = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        for (OutboxDrainer.SyncListener listener : notified) {
+            listener.onSyncFinished(changes);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.view.control.cloud;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules {@link SyncJobService} as a periodic JobScheduler job. The interval adapts to the
+ * account: it drops to the minimum whenever a sync moved data in either direction and doubles
+ * after every idle run, so quiet accounts are polled only a few times a day.
+ * The job needs a network connection and has a flex window of half the interval, which lets
+ * the system run it together with other network jobs in one radio wake-up.
+ */
+public final class SyncScheduler {
+
+    static final int JOB_ID = 1001;
+
+    // JobScheduler does not run periodic jobs more often than this
+    public static final long MIN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    public static final long MAX_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    private static final String PREFS_NAME = "SyncPrefs";
+    private static final String PREF_INTERVAL_KEY = "syncIntervalMillis";
+
+    private SyncScheduler() {
+    }
+
+    /**
+     * Makes sure the periodic sync is scheduled, e.g. on app start. An already pending job is kept.
+     */
+    public static void ensureScheduled(Context context) {
+        JobScheduler jobScheduler = context.getSystemService(JobScheduler.class);
+        if (jobScheduler.getPendingJob(JOB_ID) == null) {
+            schedule(context, jobScheduler, currentInterval(context));
+        }
+    }
+
+    /**
+     * Adapts the interval to the outcome of a sync and reschedules the job if it changed.
+     * Must be called after the running job has finished, rescheduling stops a running job.
+     *
+     * @param changes operations sent plus changes downloaded, or {@link DeltaSync#FAILED}.
+     */
+    static void onSyncFinished(Context context, int changes) {
+        long current = currentInterval(context);
+        long next = nextInterval(current, changes);
+        if (next != current) {
+            preferences(context).edit().putLong(PREF_INTERVAL_KEY, next).apply();
+            schedule(context, context.getSystemService(JobScheduler.class), next);
+        }
+    }
+
+    /**
+     * @return the interval to use after a sync with the given outcome.
+     */
+    public static long nextInterval(long current, int changes) {
+        if (changes == DeltaSync.FAILED) {
+            // Nothing learned about the account, JobScheduler retries on its own
+            return current;
+        }
+        if (changes > 0) {
+            return MIN_INTERVAL_MILLIS;
+        }
+        return Math.min(MAX_INTERVAL_MILLIS, current * 2);
+    }
+
+    private static void schedule(Context context, JobScheduler jobScheduler, long intervalMillis) {
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, SyncJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(intervalMillis, intervalMillis / 2)
+                .setPersisted(true)
+                .build();
+        if (jobScheduler.schedule(job) == JobScheduler.RESULT_SUCCESS) {
+            Log.d("SyncScheduler", "Periodic sync scheduled every " + TimeUnit.MILLISECONDS.toMinutes(intervalMillis) + " min");
+        } else {
+            Log.e("SyncScheduler", "Could not schedule periodic sync");
+        }
+    }
+
+    private static long currentInterval(Context context) {
+        return preferences(context).getLong(PREF_INTERVAL_KEY, MIN_INTERVAL_MILLIS);
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
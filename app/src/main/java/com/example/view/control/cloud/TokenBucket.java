@@ -0,0 +1,54 @@
+package com.example.view.control.cloud;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Limits the request rate of the app to the server. Bursts of up to {@code capacity} requests go
+ * out at once, after that tokens refill at {@code refillPerSecond}. A request without a token
+ * fails at once with a {@link RateLimitedException} instead of holding a dispatcher thread; the
+ * caller decides whether and when to retry, e.g. the outbox with its backoff.
+ */
+public class TokenBucket implements Interceptor {
+
+    private final int capacity;
+    private final double refillPerSecond;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until the next token is available.
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * 1000 / refillPerSecond);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        long waitMillis = tryAcquire();
+        if (waitMillis > 0) {
+            throw new RateLimitedException("Too many requests to " + chain.request().url().encodedPath()
+                    + ", next token in " + waitMillis + " ms", waitMillis);
+        }
+        return chain.proceed(chain.request());
+    }
+}
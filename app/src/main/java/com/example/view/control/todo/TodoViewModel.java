@@ -5,17 +5,21 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.view.model.repository.TodoDatabaseHelper;
+import com.example.view.model.repository.TodoRepository;
 import com.example.view.model.todo.Task;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 public class TodoViewModel extends ViewModel {
-    private final TodoDatabaseHelper todoDatabaseHelper;
+    private final TodoRepository todoRepository;
     private final MutableLiveData<List<Task>> tasksLiveData = new MutableLiveData<>();
 
+    // Pending load, cancelled when a newer load supersedes it
+    private Future<List<Task>> pendingLoad;
 
     public TodoViewModel(TodoDatabaseHelper todoDatabaseHelper) {
-        this.todoDatabaseHelper = todoDatabaseHelper;
+        this.todoRepository = new TodoRepository(todoDatabaseHelper);
         loadAllTasks(); // Load tasks initially
     }
 
@@ -24,18 +28,29 @@ public class TodoViewModel extends ViewModel {
     }
 
     public void loadAllTasks() {
-        List<Task> tasks = todoDatabaseHelper.getAllTasks(); // Fetch tasks from database
-        tasksLiveData.setValue(tasks); // Update LiveData
+        // Fetch tasks from database and update LiveData
+        replacePendingLoad(todoRepository.getAllTasksAsync(tasksLiveData::postValue));
     }
 
     public void addTask(Task task) {
-        todoDatabaseHelper.insertTask(task); // Insert task into database
-        loadAllTasks(); // Refresh task list
+        todoRepository.insertTaskAsync(task, inserted -> loadAllTasks()); // Insert, then refresh task list
     }
 
     public void deleteAllTasks() {
-        todoDatabaseHelper.deleteAllTasks(); // Delete all tasks from database
-        loadAllTasks(); // Refresh task list
+        todoRepository.deleteAllTasksAsync(ignored -> loadAllTasks()); // Delete, then refresh task list
+    }
+
+    private synchronized void replacePendingLoad(Future<List<Task>> load) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = load;
     }
-}
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // Only reads are cancelled, writes already submitted still reach the database
+        replacePendingLoad(null);
+    }
+}
@@ -129,7 +129,7 @@ public class EventDialogHelper {
                     Event newEvent = createEvent();
                     RestApiService.sendEventToShare(newEvent);
                     Log.d("Cloud", "Event shared: " + newEvent.getTitle());
-                    showPairedDevices(newEvent.getId());
+                    showPairedDevices(newEvent);
                 }
         );
 
@@ -151,9 +151,10 @@ public class EventDialogHelper {
         }
     }
 
-    private void showPairedDevices(String idOfEventToShare) {
+    private void showPairedDevices(Event eventToShare) {
         Intent intent1 = new Intent(context, DeviceListActivity.class);
-        intent1.putExtra("idOfEventToShare", idOfEventToShare);
+        intent1.putExtra("idOfEventToShare", eventToShare.getId());
+        intent1.putExtra("eventToShare", eventToShare);
         if (context instanceof Activity) {
             context.startActivity(intent1);
         } else {
@@ -0,0 +1,247 @@
+package com.example.view.model.repository;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persistent queue of cloud mutations that still have to be sent.
+ * Every database holding synced data has its own outbox table, so an entry can be written
+ * in the same transaction as the local change it describes.
+ */
+public final class CloudOutbox {
+
+    public static final String ENTITY_EVENT = "event";
+    public static final String ENTITY_TASK = "task";
+
+    public static final String OPERATION_CREATE = "create";
+    public static final String OPERATION_UPDATE = "update";
+    public static final String OPERATION_DELETE = "delete";
+
+    private static final String TABLE_OUTBOX = "cloud_outbox";
+
+    private static final String COLUMN_SEQUENCE = "_seq";
+    private static final String COLUMN_ENTITY = "entity";
+    private static final String COLUMN_OPERATION = "operation";
+    private static final String COLUMN_ENTITY_ID = "entity_id";
+    private static final String COLUMN_PAYLOAD = "payload";
+    private static final String COLUMN_ATTEMPTS = "attempts";
+    private static final String COLUMN_NEXT_ATTEMPT_AT = "next_attempt_at";
+    private static final String COLUMN_CREATED_AT = "created_at";
+    private static final String COLUMN_IDEMPOTENCY_KEY = "idempotency_key";
+    private static final String COLUMN_SENT = "sent";
+
+    private CloudOutbox() {
+    }
+
+    public static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " (" +
+                COLUMN_SEQUENCE + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_ENTITY + " TEXT NOT NULL, " +
+                COLUMN_OPERATION + " TEXT NOT NULL, " +
+                COLUMN_ENTITY_ID + " TEXT NOT NULL, " +
+                COLUMN_PAYLOAD + " TEXT, " +
+                COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_CREATED_AT + " INTEGER NOT NULL, " +
+                COLUMN_IDEMPOTENCY_KEY + " TEXT, " +
+                COLUMN_SENT + " INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    /**
+     * Adds the idempotency key and sent columns to an outbox created before they existed
+     * and gives every queued entry its own key.
+     */
+    public static void addDeliveryColumns(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN " + COLUMN_IDEMPOTENCY_KEY + " TEXT");
+        db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN " + COLUMN_SENT + " INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("UPDATE " + TABLE_OUTBOX + " SET " + COLUMN_IDEMPOTENCY_KEY + " = lower(hex(randomblob(16)))");
+    }
+
+    /**
+     * Queues a mutation. Call inside the transaction that applies the local change.
+     *
+     * @param payload JSON of the changed record, null for deletes.
+     */
+    public static void enqueue(SQLiteDatabase db, String entity, String operation, String entityId, String payload) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ENTITY, entity);
+        values.put(COLUMN_OPERATION, operation);
+        values.put(COLUMN_ENTITY_ID, entityId);
+        values.put(COLUMN_PAYLOAD, payload);
+        values.put(COLUMN_CREATED_AT, System.currentTimeMillis());
+        values.put(COLUMN_IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+        db.insertOrThrow(TABLE_OUTBOX, null, values);
+    }
+
+    /**
+     * Returns the oldest queued entries in the order they were written.
+     */
+    public static List<Entry> peek(SQLiteDatabase db, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_OUTBOX, null, null, null, null, null,
+                COLUMN_SEQUENCE, String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(
+                        cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SEQUENCE)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ENTITY)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_OPERATION)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ENTITY_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PAYLOAD)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ATTEMPTS)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_NEXT_ATTEMPT_AT)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_IDEMPOTENCY_KEY)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SENT)) != 0));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * IDs of all records of the given entity that still have queued mutations.
+     */
+    public static Set<String> pendingEntityIds(SQLiteDatabase db, String entity) {
+        Set<String> ids = new HashSet<>();
+        try (Cursor cursor = db.query(true, TABLE_OUTBOX, new String[]{COLUMN_ENTITY_ID},
+                COLUMN_ENTITY + " = ?", new String[]{entity}, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        }
+        return ids;
+    }
+
+    public static void remove(SQLiteDatabase db, long sequence) {
+        db.delete(TABLE_OUTBOX, COLUMN_SEQUENCE + " = ?", new String[]{String.valueOf(sequence)});
+    }
+
+    /**
+     * Removes several entries at once, e.g. after a batch request was accepted.
+     */
+    public static void remove(SQLiteDatabase db, Collection<Long> sequences) {
+        db.beginTransaction();
+        try {
+            for (long sequence : sequences) {
+                remove(db, sequence);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Marks entries that were sent without a definite answer. They may already be applied in the cloud.
+     */
+    public static void markSent(SQLiteDatabase db, Collection<Long> sequences) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_SENT, 1);
+        db.beginTransaction();
+        try {
+            for (long sequence : sequences) {
+                db.update(TABLE_OUTBOX, values, COLUMN_SEQUENCE + " = ?", new String[]{String.valueOf(sequence)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Records when the entry may be retried.
+     */
+    public static void reschedule(SQLiteDatabase db, long sequence, int attempts, long nextAttemptAt) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ATTEMPTS, attempts);
+        values.put(COLUMN_NEXT_ATTEMPT_AT, nextAttemptAt);
+        db.update(TABLE_OUTBOX, values, COLUMN_SEQUENCE + " = ?", new String[]{String.valueOf(sequence)});
+    }
+
+    /**
+     * A queued cloud mutation.
+     */
+    public static final class Entry {
+        private final long sequence;
+        private final String entity;
+        private final String operation;
+        private final String entityId;
+        private final String payload;
+        private final int attempts;
+        private final long nextAttemptAt;
+        private final String idempotencyKey;
+        private final boolean sent;
+
+        public Entry(long sequence, String entity, String operation, String entityId, String payload,
+                     int attempts, long nextAttemptAt, String idempotencyKey, boolean sent) {
+            this.sequence = sequence;
+            this.entity = entity;
+            this.operation = operation;
+            this.entityId = entityId;
+            this.payload = payload;
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+            this.idempotencyKey = idempotencyKey;
+            this.sent = sent;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getNextAttemptAt() {
+            return nextAttemptAt;
+        }
+
+        /**
+         * Stays the same across retries, so the cloud can ignore replays.
+         */
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        /**
+         * @return true if the entry was sent before without a definite answer.
+         */
+        public boolean isSent() {
+            return sent;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "sequence=" + sequence +
+                    ", entity='" + entity + '\'' +
+                    ", operation='" + operation + '\'' +
+                    ", entityId='" + entityId + '\'' +
+                    ", attempts=" + attempts +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.view.model.repository;
+
+import com.example.view.model.calendar.Event;
+import com.example.view.model.todo.Task;
+
+import java.util.List;
+
+/**
+ * 64-bit FNV-1a hash over the fields a record persists. Stored next to each row, so a cloud
+ * snapshot can be compared with the local table without loading and comparing whole records.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    // Separates fields, so ("ab", "c") and ("a", "bc") hash differently
+    private static final char FIELD_SEPARATOR = '\u001f';
+    // Stands in for null, so null and "" hash differently
+    private static final char NULL_MARKER = '\u0000';
+
+    private long hash = OFFSET_BASIS;
+
+    private ContentHash() {
+    }
+
+    public static long of(Event event) {
+        ContentHash hash = new ContentHash()
+                .add(event.getId())
+                .add(event.getTitle())
+                .add(event.getStartDateTime() != null ? event.getStartDateTime().toString() : null)
+                .add(event.getEndDateTime() != null ? event.getEndDateTime().toString() : null)
+                .add(event.getLocation())
+                .add(Integer.toString(event.getTravelTime()))
+                .add(event.getRepetition())
+                .add(event.getNotes())
+                .add(event.getCategory());
+        List<String> participants = event.getParticipants();
+        if (participants != null) {
+            for (String participant : participants) {
+                hash.add(participant);
+            }
+        }
+        return hash.hash;
+    }
+
+    public static long of(Task task) {
+        return new ContentHash()
+                .add(task.getId())
+                .add(task.getTask())
+                .add(task.getCategory() != null ? task.getCategory().getName() : null)
+                .add(task.getDescription())
+                .add(task.getPriority() != null ? Integer.toString(task.getPriority().getValue()) : null)
+                .hash;
+    }
+
+    private ContentHash add(String value) {
+        if (value == null) {
+            mix(NULL_MARKER);
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                mix(value.charAt(i));
+            }
+        }
+        mix(FIELD_SEPARATOR);
+        return this;
+    }
+
+    private void mix(char c) {
+        hash = (hash ^ (c & 0xff)) * PRIME;
+        hash = (hash ^ (c >>> 8)) * PRIME;
+    }
+}
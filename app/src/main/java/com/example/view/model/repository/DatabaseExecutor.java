@@ -0,0 +1,78 @@
+package com.example.view.model.repository;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database work off the main thread.
+ * Writes go through a single thread so they are applied in submission order,
+ * reads use a small pool and can run alongside writes thanks to write-ahead logging.
+ */
+public final class DatabaseExecutor {
+
+    private static final String TAG = "DatabaseExecutor";
+    private static final int READ_THREADS = 2;
+
+    private static final ExecutorService readExecutor =
+            Executors.newFixedThreadPool(READ_THREADS, namedThreadFactory("db-read"));
+    private static final ExecutorService writeExecutor =
+            Executors.newSingleThreadExecutor(namedThreadFactory("db-write"));
+
+    private DatabaseExecutor() {
+    }
+
+    /**
+     * Runs a read on the read pool. The callback is skipped if the returned future was cancelled.
+     */
+    public static <T> Future<T> read(Callable<T> work, RepositoryCallback<T> callback) {
+        return submit(readExecutor, work, callback);
+    }
+
+    /**
+     * Runs a write on the write thread. The callback is skipped if the returned future was cancelled.
+     */
+    public static <T> Future<T> write(Callable<T> work, RepositoryCallback<T> callback) {
+        return submit(writeExecutor, work, callback);
+    }
+
+    private static <T> Future<T> submit(ExecutorService executor, Callable<T> work, RepositoryCallback<T> callback) {
+        FutureTask<T> task = new FutureTask<T>(work) {
+            @Override
+            protected void done() {
+                if (isCancelled() || callback == null) {
+                    return;
+                }
+                try {
+                    callback.onComplete(get());
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Database operation failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
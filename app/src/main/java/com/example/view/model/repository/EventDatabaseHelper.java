@@ -3,24 +3,36 @@ package com.example.view.model.repository;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
-import com.example.view.control.cloud.MissingUUIDException;
+import com.example.view.control.cloud.OutboxDrainer;
 import com.example.view.control.cloud.RestApiService;
 import com.example.view.model.calendar.Event;
 
 import org.json.JSONArray;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class EventDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "events.db";
-    private static final int DATABASE_VERSION = 5; // Incremented for updates
+    private static final int DATABASE_VERSION = 10; // Incremented for updates
 
     // Table name
     private static final String TABLE_EVENTS = "events";
@@ -28,35 +40,79 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
     // Column names
     private static final String COLUMN_ID = "_id";
     private static final String COLUMN_EVENT_TITLE = "title";
-    private static final String COLUMN_EVENT_START_TIME = "start_time";
-    private static final String COLUMN_EVENT_END_TIME = "end_time";
+    private static final String COLUMN_EVENT_START_TIME = "start_millis"; // epoch milliseconds
+    private static final String COLUMN_EVENT_END_TIME = "end_millis"; // epoch milliseconds
+    private static final String COLUMN_EVENT_TIME_ZONE = "time_zone"; // zone the wall-clock times belong to
     private static final String COLUMN_EVENT_LOCATION = "location";
     private static final String COLUMN_EVENT_TRAVEL_TIME = "travel_time";
     private static final String COLUMN_EVENT_REPETITION = "repetition";
     private static final String COLUMN_DESCRIPTION = "description";
     private static final String COLUMN_CATEGORY = "category";
     private static final String COLUMN_PARTICIPANTS = "participants";
+    private static final String COLUMN_CONTENT_HASH = "content_hash"; // ContentHash of the row, null for rows written before version 10
+
+    // Text columns used up to version 6 (LocalDateTime.toString())
+    private static final String LEGACY_COLUMN_EVENT_START_TIME = "start_time";
+    private static final String LEGACY_COLUMN_EVENT_END_TIME = "end_time";
+
+    // Index for date-range lookups
+    private static final String INDEX_EVENTS_TIME_RANGE = "idx_events_time_range";
+
+    // Longest known event duration in milliseconds, used as lower bound for range queries (-1 = not loaded yet)
+    private long longestEventSpanMillis = -1;
+
+    // Last resolved zone, rows almost always share the same one
+    private ZoneId cachedZone = ZoneId.systemDefault();
+
+    private static EventDatabaseHelper instance;
+
     private Context context;
-    public EventDatabaseHelper(Context context) {
+    /**
+     * Returns the process-wide helper. All callers share its single connection, which is
+     * opened once in write-ahead-logging mode and never closed by the helper methods.
+     */
+    public static synchronized EventDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventDatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private EventDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
         this.context = context;
+        // Readers no longer block on writers
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        String createEventTable = "CREATE TABLE IF NOT EXISTS " + TABLE_EVENTS + " (" +
+        createEventTable(db, TABLE_EVENTS);
+        createTimeRangeIndex(db);
+        CloudOutbox.createTable(db);
+        Log.d("EventDatabaseHelper", "Events table created successfully.");
+    }
+
+    private void createEventTable(SQLiteDatabase db, String tableName) {
+        String createEventTable = "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
                 COLUMN_ID + " TEXT PRIMARY KEY, " +
                 COLUMN_EVENT_TITLE + " TEXT NOT NULL, " +
-                COLUMN_EVENT_START_TIME + " TEXT NOT NULL, " +
-                COLUMN_EVENT_END_TIME + " TEXT NOT NULL, " +
+                COLUMN_EVENT_START_TIME + " INTEGER NOT NULL, " +
+                COLUMN_EVENT_END_TIME + " INTEGER NOT NULL, " +
+                COLUMN_EVENT_TIME_ZONE + " TEXT NOT NULL, " +
                 COLUMN_EVENT_LOCATION + " TEXT, " +
                 COLUMN_EVENT_TRAVEL_TIME + " INTEGER, " +
                 COLUMN_EVENT_REPETITION + " TEXT, " +
                 COLUMN_DESCRIPTION + " TEXT, " +
                 COLUMN_CATEGORY + " TEXT, " +
-                COLUMN_PARTICIPANTS + " TEXT)";
+                COLUMN_PARTICIPANTS + " TEXT, " +
+                COLUMN_CONTENT_HASH + " INTEGER)";
         db.execSQL(createEventTable);
-        Log.d("EventDatabaseHelper", "Events table created successfully.");
+    }
+
+    private void createTimeRangeIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_EVENTS_TIME_RANGE + " ON " + TABLE_EVENTS +
+                " (" + COLUMN_EVENT_START_TIME + ", " + COLUMN_EVENT_END_TIME + ")");
     }
 
     public void insertEvent(Event event) {
@@ -66,22 +122,27 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
         }
 
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             ContentValues values = getContentValuesFromEvent(event);
 
             long result = db.insert(TABLE_EVENTS, null, values);
-            //Speichert in Cloud ab
-            RestApiService.sendNewEvent(context, event);
             if (result == -1) {
                 Log.e("EventDatabaseHelper", "Failed to insert event: " + event.getId());
             } else {
+                //Speichert in Cloud ab
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_CREATE,
+                        event.getId(), RestApiService.toJson(event));
+                recordEventSpan(event);
                 Log.d("EventDatabaseHelper", "Event inserted successfully: " + event.getId());
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e("EventDatabaseHelper", "Error inserting event: " + event.getId(), e);
         } finally {
-            db.close();
+            db.endTransaction();
         }
+        OutboxDrainer.getInstance(context).requestDrain();
     }
 
     public void updateEvent(Event event) {
@@ -91,6 +152,7 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
         }
 
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             ContentValues values = getContentValuesFromEvent(event); // Ensure this method is converting Event correctly
 
@@ -103,24 +165,73 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
             );
 
             if (rowsAffected > 0) {
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_UPDATE,
+                        event.getId(), RestApiService.toJson(event));
+                recordEventSpan(event);
                 Log.d("EventDatabaseHelper", "Event updated successfully: " + event.getTitle());
             } else {
                 Log.w("EventDatabaseHelper", "No event found with ID: " + event.getId() + ". Update failed.");
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e("EventDatabaseHelper", "Error updating event: " + event.getTitle(), e);
         } finally {
-            db.close();
+            db.endTransaction();
         }
+        OutboxDrainer.getInstance(context).requestDrain();
     }
 
     public List<Event> getAllEvents() {
+        return queryEvents(null, null);
+    }
+
+    /**
+     * Returns the events created from the given task. Such events reuse the task ID as their
+     * own ID, so this is a primary key lookup instead of a table scan.
+     */
+    public List<Event> getEventsForTask(String taskId) {
+        return queryEvents(COLUMN_ID + " = ?", new String[]{taskId});
+    }
+
+    /**
+     * Liefert alle Events, die sich mit dem Zeitraum [start, end) überschneiden.
+     * Mehrtägige Events, die vor {@code start} beginnen und danach enden, sind enthalten.
+     *
+     * @param start Beginn des Zeitraums (inklusive).
+     * @param end Ende des Zeitraums (exklusive).
+     * @return Die Events im Zeitraum, sortiert nach Startzeit.
+     */
+    public List<Event> getEventsBetween(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            Log.e("EventDatabaseHelper", "Invalid range: " + start + " - " + end);
+            return new ArrayList<>();
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        long startMillis = toEpochMillis(start, zone);
+        long endMillis = toEpochMillis(end, zone);
+
+        // An event overlapping the range cannot start earlier than start minus the longest
+        // known event duration, which keeps the index scan on start_millis narrow.
+        long lowerBound = startMillis - getLongestEventSpanMillis();
+
+        String selection = COLUMN_EVENT_START_TIME + " >= ? AND " +
+                COLUMN_EVENT_START_TIME + " < ? AND " +
+                COLUMN_EVENT_END_TIME + " > ?";
+        String[] selectionArgs = {
+                String.valueOf(lowerBound), String.valueOf(endMillis), String.valueOf(startMillis)
+        };
+        return queryEvents(selection, selectionArgs);
+    }
+
+    private List<Event> queryEvents(String selection, String[] selectionArgs) {
         List<Event> eventList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = null;
 
         try {
-            cursor = db.rawQuery("SELECT * FROM " + TABLE_EVENTS, null);
+            cursor = db.query(TABLE_EVENTS, null, selection, selectionArgs, null, null,
+                    COLUMN_EVENT_START_TIME);
             if (cursor.moveToFirst()) {
                 do {
                     Event event = getEventFromCursor(cursor);
@@ -131,25 +242,463 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
             Log.e("EventDatabaseHelper", "Error fetching events.", e);
         } finally {
             if (cursor != null) cursor.close();
-            db.close();
         }
 
         return eventList;
     }
 
+    private synchronized long getLongestEventSpanMillis() {
+        if (longestEventSpanMillis < 0) {
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = null;
+            try {
+                cursor = db.rawQuery("SELECT MAX(" + COLUMN_EVENT_END_TIME + " - " +
+                        COLUMN_EVENT_START_TIME + ") FROM " + TABLE_EVENTS, null);
+                longestEventSpanMillis = cursor.moveToFirst() ? Math.max(0, cursor.getLong(0)) : 0;
+            } catch (Exception e) {
+                Log.e("EventDatabaseHelper", "Error determining longest event span.", e);
+                return 0;
+            } finally {
+                if (cursor != null) cursor.close();
+            }
+        }
+        return longestEventSpanMillis;
+    }
+
+    private synchronized void recordEventSpan(Event event) {
+        if (longestEventSpanMillis < 0) {
+            return; // Loaded from the database on next access
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long spanMillis = toEpochMillis(event.getEndDateTime(), zone) - toEpochMillis(event.getStartDateTime(), zone);
+        longestEventSpanMillis = Math.max(longestEventSpanMillis, spanMillis);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime, ZoneId zone) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime fromEpochMillis(long epochMillis, String zoneId) {
+        ZoneId zone = cachedZone;
+        if (!zone.getId().equals(zoneId)) {
+            zone = ZoneId.of(zoneId);
+            cachedZone = zone;
+        }
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        int nanos = (int) Math.floorMod(epochMillis, 1000L) * 1_000_000;
+        ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, offset);
+    }
+
     public void deleteEventById(String eventId) {
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             int rowsDeleted = db.delete(TABLE_EVENTS, COLUMN_ID + " = ?", new String[]{eventId});
             if (rowsDeleted > 0) {
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_DELETE, eventId, null);
                 Log.d("EventDatabaseHelper", "Event deleted successfully with ID: " + eventId);
             } else {
                 Log.w("EventDatabaseHelper", "No event found with ID: " + eventId);
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e("EventDatabaseHelper", "Error deleting event with ID: " + eventId, e);
         } finally {
-            db.close();
+            db.endTransaction();
+        }
+        OutboxDrainer.getInstance(context).requestDrain();
+    }
+
+    /**
+     * Inserts all events in a single transaction. Events whose ID already exists are skipped.
+     * Intended for restores and imports, so nothing is sent to the cloud.
+     *
+     * @return Number of inserted events.
+     */
+    public int insertEvents(List<Event> events) {
+        return writeEvents(events, "INSERT OR IGNORE");
+    }
+
+    /**
+     * Inserts or replaces all events in a single transaction.
+     * Intended for restores and imports, so nothing is sent to the cloud.
+     *
+     * @return Number of written events.
+     */
+    public int upsertEvents(List<Event> events) {
+        return writeEvents(events, "INSERT OR REPLACE");
+    }
+
+    /**
+     * Inserts or replaces events downloaded from the cloud in a single transaction. Events with
+     * unsent local changes are skipped, so a download never overwrites an edit that is still
+     * waiting in the {@link CloudOutbox}. Nothing is sent back to the cloud.
+     *
+     * @return Number of written events, or -1 if the transaction was rolled back.
+     */
+    public int upsertRemoteEvents(List<Event> events) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pending = CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_EVENT);
+            List<Event> writes = new ArrayList<>(events.size());
+            for (Event item : events) {
+                if (!pending.contains(item.getId())) {
+                    writes.add(item);
+                }
+            }
+            if (upsertEvents(writes) != writes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return writes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts events received from another device in a single transaction and queues them for
+     * the cloud, like {@link #insertEvent(Event)}. Events whose ID already exists are skipped, so
+     * a repeated transfer stores nothing twice.
+     *
+     * @return Number of inserted events, or -1 if the transaction was rolled back.
+     */
+    public int insertReceivedEvents(List<Event> events) {
+        int[] rowsWritten = insertReceivedEventPayloads(Collections.singletonList(events));
+        return rowsWritten == null ? -1 : rowsWritten[0];
+    }
+
+    /**
+     * Like {@link #insertReceivedEvents(List)}, but writes several payloads in one transaction
+     * and counts the inserted events of each payload separately.
+     *
+     * @return Number of inserted events per payload, or null if the transaction was rolled back.
+     */
+    public int[] insertReceivedEventPayloads(List<List<Event>> payloads) {
+        int[] rowsWritten = writeEventPayloads(payloads, "INSERT OR IGNORE", true);
+        if (rowsWritten != null) {
+            for (int rows : rowsWritten) {
+                if (rows > 0) {
+                    OutboxDrainer.getInstance(context).requestDrain();
+                    break;
+                }
+            }
+        }
+        return rowsWritten;
+    }
+
+    /**
+     * Deletes all events with the given IDs in a single transaction.
+     *
+     * @return Number of deleted events, or -1 if the transaction was rolled back.
+     */
+    public int deleteEventsByIds(Collection<String> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement delete = db.compileStatement(
+                "DELETE FROM " + TABLE_EVENTS + " WHERE " + COLUMN_ID + " = ?");
+        int rowsDeleted = 0;
+        db.beginTransaction();
+        try {
+            for (String eventId : eventIds) {
+                delete.bindString(1, eventId);
+                rowsDeleted += delete.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+            Log.d("EventDatabaseHelper", "Deleted " + rowsDeleted + " of " + eventIds.size() + " events.");
+        } catch (Exception e) {
+            Log.e("EventDatabaseHelper", "Error deleting events in batch.", e);
+            rowsDeleted = -1;
+        } finally {
+            db.endTransaction();
+            delete.close();
+        }
+        return rowsDeleted;
+    }
+
+    /**
+     * Applies changes downloaded from the cloud in a single transaction: changed events are
+     * upserted and deleted ones removed. Events with unsent local changes are skipped, so a
+     * change or delete from the cloud never overwrites an edit that is still waiting in the
+     * {@link CloudOutbox}. Nothing is sent back to the cloud.
+     *
+     * @return true if all changes were applied, false if the transaction was rolled back.
+     */
+    public boolean applyRemoteChanges(List<Event> changed, Collection<String> deletedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean applied;
+        db.beginTransaction();
+        try {
+            Set<String> pending = CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_EVENT);
+            List<Event> writes = new ArrayList<>();
+            if (changed != null) {
+                for (Event item : changed) {
+                    if (item != null && !pending.contains(item.getId())) {
+                        writes.add(item);
+                    }
+                }
+            }
+            List<String> deletes = new ArrayList<>();
+            if (deletedIds != null) {
+                for (String id : deletedIds) {
+                    if (!pending.contains(id)) {
+                        deletes.add(id);
+                    }
+                }
+            }
+            // REPLACE writes every row, so fewer rows means the nested batch was rolled back
+            applied = upsertEvents(writes) == writes.size()
+                    // IDs that are not stored locally are not an error, a rollback is
+                    && deleteEventsByIds(deletes) >= 0;
+            if (applied) {
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            db.endTransaction();
+        }
+        return applied;
+    }
+
+    public long countEvents() {
+        return DatabaseUtils.queryNumEntries(this.getReadableDatabase(), TABLE_EVENTS);
+    }
+
+    /**
+     * IDs of events with unsent local changes.
+     */
+    public Set<String> getPendingEventIds() {
+        return CloudOutbox.pendingEntityIds(this.getReadableDatabase(), CloudOutbox.ENTITY_EVENT);
+    }
+
+    /**
+     * Brings the local events in line with a full cloud snapshot. Only events that are new,
+     * changed or missing from the snapshot are written, all in a single transaction. Events with
+     * unsent local changes are left alone. Nothing is sent back to the cloud.
+     *
+     * @return The applied diff, or null if the transaction was rolled back.
+     */
+    public SnapshotReconciler.Diff<Event> reconcileSnapshot(List<Event> snapshot) {
+        return reconcileSnapshot(snapshot, Collections.emptySet());
+    }
+
+    /**
+     * Like {@link #reconcileSnapshot(List)}, but also leaves {@code protectedIds} alone. Pass the
+     * pending IDs from before the snapshot was requested: a create that was sent and left the
+     * outbox while the snapshot was downloading is neither pending nor in the snapshot.
+     *
+     * @return The applied diff, or null if the transaction was rolled back.
+     */
+    public SnapshotReconciler.Diff<Event> reconcileSnapshot(List<Event> snapshot, Set<String> protectedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_EVENT));
+            SnapshotReconciler.Diff<Event> diff = SnapshotReconciler.diff(getContentHashes(db), snapshot,
+                    Event::getId, event -> ContentHash.of(event), pendingIds);
+            List<Event> writes = diff.getWrites();
+            if (upsertEvents(writes) != writes.size()
+                    || deleteEventsByIds(diff.getDeletes()) != diff.getDeletes().size()) {
+                return null;
+            }
+            db.setTransactionSuccessful();
+            Log.d("EventDatabaseHelper", "Reconciled " + snapshot.size() + " cloud events: " + diff);
+            return diff;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Reconciles one chunk of a streamed cloud snapshot in its own transaction: events that are
+     * new or changed are written, unchanged ones and those with unsent local changes or in
+     * {@code protectedIds} are skipped. Call {@link #deleteMissingFromSnapshot(Set, Set)} once the
+     * whole snapshot was read. Nothing is sent back to the cloud.
+     *
+     * @return Number of written events, or -1 if the transaction was rolled back.
+     */
+    public int reconcileSnapshotChunk(List<Event> chunk, Set<String> protectedIds) {
+        List<String> ids = new ArrayList<>(chunk.size());
+        for (Event event : chunk) {
+            ids.add(event.getId());
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_EVENT));
+            // Only the rows of this chunk are compared, deletes are left to deleteMissingFromSnapshot
+            List<Event> writes = SnapshotReconciler.diff(getContentHashes(db, ids), chunk,
+                    Event::getId, event -> ContentHash.of(event), pendingIds).getWrites();
+            if (upsertEvents(writes) != writes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return writes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes the events a finished cloud snapshot no longer contains, except those with unsent
+     * local changes or in {@code protectedIds}. Nothing is sent back to the cloud.
+     *
+     * @param snapshotIds IDs of all events in the snapshot.
+     * @return Number of deleted events, or -1 if the transaction was rolled back.
+     */
+    public int deleteMissingFromSnapshot(Set<String> snapshotIds, Set<String> protectedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_EVENT));
+            List<String> deletes = new ArrayList<>();
+            try (Cursor cursor = db.query(TABLE_EVENTS, new String[]{COLUMN_ID}, null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    String id = cursor.getString(0);
+                    if (!snapshotIds.contains(id) && !pendingIds.contains(id)) {
+                        deletes.add(id);
+                    }
+                }
+            }
+            if (deleteEventsByIds(deletes) != deletes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return deletes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Map<String, Long> getContentHashes(SQLiteDatabase db) {
+        return getContentHashes(db, null);
+    }
+
+    /**
+     * @param ids Rows to look up, or null for all rows.
+     */
+    private Map<String, Long> getContentHashes(SQLiteDatabase db, List<String> ids) {
+        String selection = null;
+        String[] selectionArgs = null;
+        if (ids != null) {
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < ids.size(); i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            selection = COLUMN_ID + " IN (" + placeholders + ")";
+            selectionArgs = ids.toArray(new String[0]);
+        }
+        Map<String, Long> hashes = new HashMap<>();
+        try (Cursor cursor = db.query(TABLE_EVENTS, new String[]{COLUMN_ID, COLUMN_CONTENT_HASH},
+                selection, selectionArgs, null, null, null)) {
+            while (cursor.moveToNext()) {
+                hashes.put(cursor.getString(0), cursor.isNull(1) ? null : cursor.getLong(1));
+            }
+        }
+        return hashes;
+    }
+
+    private int writeEvents(List<Event> events, String insertVerb) {
+        return Math.max(0, writeEvents(events, insertVerb, false));
+    }
+
+    /**
+     * @return Number of written events, or -1 if the transaction was rolled back.
+     */
+    private int writeEvents(List<Event> events, String insertVerb, boolean queueForCloud) {
+        int[] rowsWritten = writeEventPayloads(Collections.singletonList(events), insertVerb, queueForCloud);
+        return rowsWritten == null ? -1 : rowsWritten[0];
+    }
+
+    /**
+     * Writes all payloads in a single transaction.
+     *
+     * @return Number of written events per payload, or null if the transaction was rolled back.
+     */
+    private int[] writeEventPayloads(List<List<Event>> payloads, String insertVerb, boolean queueForCloud) {
+        int[] rowsWritten = new int[payloads.size()];
+        int eventCount = 0;
+        for (List<Event> events : payloads) {
+            eventCount += events == null ? 0 : events.size();
+        }
+        if (eventCount == 0) {
+            return rowsWritten;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(insertVerb + " INTO " + TABLE_EVENTS + " (" +
+                COLUMN_ID + ", " + COLUMN_EVENT_TITLE + ", " + COLUMN_EVENT_START_TIME + ", " +
+                COLUMN_EVENT_END_TIME + ", " + COLUMN_EVENT_TIME_ZONE + ", " + COLUMN_EVENT_LOCATION + ", " +
+                COLUMN_EVENT_TRAVEL_TIME + ", " + COLUMN_EVENT_REPETITION + ", " + COLUMN_DESCRIPTION + ", " +
+                COLUMN_CATEGORY + ", " + COLUMN_PARTICIPANTS + ", " + COLUMN_CONTENT_HASH +
+                ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        ZoneId zone = ZoneId.systemDefault();
+        int totalWritten = 0;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < payloads.size(); i++) {
+                if (payloads.get(i) == null) {
+                    continue;
+                }
+                for (Event event : payloads.get(i)) {
+                    if (event == null) {
+                        continue;
+                    }
+                    insert.clearBindings();
+                    bindEvent(insert, event, zone);
+                    if (insert.executeInsert() != -1) {
+                        if (queueForCloud) {
+                            CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_CREATE,
+                                    event.getId(), RestApiService.toJson(event));
+                        }
+                        recordEventSpan(event);
+                        rowsWritten[i]++;
+                        totalWritten++;
+                    }
+                }
+            }
+            db.setTransactionSuccessful();
+            Log.d("EventDatabaseHelper", "Wrote " + totalWritten + " of " + eventCount + " events.");
+        } catch (Exception e) {
+            Log.e("EventDatabaseHelper", "Error writing events in batch.", e);
+            rowsWritten = null;
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        return rowsWritten;
+    }
+
+    private void bindEvent(SQLiteStatement statement, Event event, ZoneId zone) {
+        statement.bindString(1, event.getId());
+        statement.bindString(2, event.getTitle());
+        statement.bindLong(3, toEpochMillis(event.getStartDateTime(), zone));
+        statement.bindLong(4, toEpochMillis(event.getEndDateTime(), zone));
+        statement.bindString(5, zone.getId());
+        bindNullableString(statement, 6, event.getLocation());
+        statement.bindLong(7, event.getTravelTime());
+        bindNullableString(statement, 8, event.getRepetition());
+        bindNullableString(statement, 9, event.getNotes());
+        bindNullableString(statement, 10, event.getCategory());
+        if (event.getParticipants() != null && !event.getParticipants().isEmpty()) {
+            statement.bindString(11, new JSONArray(event.getParticipants()).toString());
+        }
+        statement.bindLong(12, ContentHash.of(event));
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
         }
     }
 
@@ -157,8 +706,10 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put(COLUMN_ID, event.getId());
         values.put(COLUMN_EVENT_TITLE, event.getTitle());
-        values.put(COLUMN_EVENT_START_TIME, event.getStartDateTime().toString());
-        values.put(COLUMN_EVENT_END_TIME, event.getEndDateTime().toString());
+        ZoneId zone = ZoneId.systemDefault();
+        values.put(COLUMN_EVENT_START_TIME, toEpochMillis(event.getStartDateTime(), zone));
+        values.put(COLUMN_EVENT_END_TIME, toEpochMillis(event.getEndDateTime(), zone));
+        values.put(COLUMN_EVENT_TIME_ZONE, zone.getId());
         values.put(COLUMN_EVENT_LOCATION, event.getLocation());
         values.put(COLUMN_EVENT_TRAVEL_TIME, event.getTravelTime());
         values.put(COLUMN_EVENT_REPETITION, event.getRepetition());
@@ -169,14 +720,16 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
             JSONArray jsonArray = new JSONArray(event.getParticipants());
             values.put(COLUMN_PARTICIPANTS, jsonArray.toString());
         }
+        values.put(COLUMN_CONTENT_HASH, ContentHash.of(event));
         return values;
     }
 
     private Event getEventFromCursor(Cursor cursor) throws Exception {
         String id = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ID));
         String title = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TITLE));
-        String startTime = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_START_TIME));
-        String endTime = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_END_TIME));
+        long startMillis = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_EVENT_START_TIME));
+        long endMillis = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_EVENT_END_TIME));
+        String zoneId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TIME_ZONE));
         String location = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_LOCATION));
         int travelTime = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TRAVEL_TIME));
         String repetition = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_REPETITION));
@@ -196,8 +749,8 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
                 id,
                 title,
                 category,
-                LocalDateTime.parse(startTime),
-                LocalDateTime.parse(endTime),
+                fromEpochMillis(startMillis, zoneId),
+                fromEpochMillis(endMillis, zoneId),
                 travelTime,
                 location,
                 repetition,
@@ -209,9 +762,104 @@ public class EventDatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         if (oldVersion < newVersion) {
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_EVENTS);
-            onCreate(db);
+            if (oldVersion < 5) {
+                db.execSQL("DROP TABLE IF EXISTS " + TABLE_EVENTS);
+                onCreate(db);
+            } else {
+                if (oldVersion < 7) {
+                    // The rebuilt table already has the content hash column
+                    migrateToEpochTimestamps(db);
+                } else if (oldVersion < 10) {
+                    db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COLUMN_CONTENT_HASH + " INTEGER");
+                }
+                if (oldVersion < 8) {
+                    CloudOutbox.createTable(db);
+                } else if (oldVersion < 9) {
+                    CloudOutbox.addDeliveryColumns(db);
+                }
+            }
             Log.d("EventDatabaseHelper", "Database upgraded to version: " + newVersion);
         }
     }
+
+    /**
+     * Rebuilds the events table with epoch-millisecond timestamps. Existing text timestamps
+     * are interpreted in the device's current time zone. Runs inside the upgrade transaction.
+     */
+    private void migrateToEpochTimestamps(SQLiteDatabase db) {
+        String migrationTable = TABLE_EVENTS + "_migration";
+        db.execSQL("DROP TABLE IF EXISTS " + migrationTable);
+        createEventTable(db, migrationTable);
+
+        String copiedColumns = COLUMN_EVENT_LOCATION + ", " + COLUMN_EVENT_TRAVEL_TIME + ", " +
+                COLUMN_EVENT_REPETITION + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_CATEGORY + ", " +
+                COLUMN_PARTICIPANTS;
+        // Rows without an ID cannot be addressed afterwards; a missing title gets an empty one
+        db.execSQL("INSERT INTO " + migrationTable + " (" + COLUMN_ID + ", " + COLUMN_EVENT_TITLE + ", " +
+                copiedColumns + ", " + COLUMN_EVENT_START_TIME + ", " + COLUMN_EVENT_END_TIME + ", " +
+                COLUMN_EVENT_TIME_ZONE + ") " +
+                "SELECT " + COLUMN_ID + ", COALESCE(" + COLUMN_EVENT_TITLE + ", ''), " + copiedColumns +
+                ", 0, 0, '' FROM " + TABLE_EVENTS + " WHERE " + COLUMN_ID + " IS NOT NULL");
+
+        ZoneId zone = ZoneId.systemDefault();
+        SQLiteStatement updateTimes = db.compileStatement("UPDATE " + migrationTable + " SET " +
+                COLUMN_EVENT_START_TIME + " = ?, " + COLUMN_EVENT_END_TIME + " = ?, " +
+                COLUMN_EVENT_TIME_ZONE + " = ? WHERE " + COLUMN_ID + " = ?");
+        SQLiteStatement deleteRow = db.compileStatement("DELETE FROM " + migrationTable +
+                " WHERE " + COLUMN_ID + " = ?");
+        int migrated = 0;
+        int dropped = 0;
+        try (Cursor cursor = db.query(TABLE_EVENTS, new String[]{COLUMN_ID,
+                LEGACY_COLUMN_EVENT_START_TIME, LEGACY_COLUMN_EVENT_END_TIME}, COLUMN_ID + " IS NOT NULL",
+                null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                LocalDateTime start = parseLegacyTime(cursor.getString(1));
+                if (start == null) {
+                    // Without a start the event cannot be placed in the calendar
+                    Log.e("EventDatabaseHelper", "Dropping event " + id + " with unreadable start time: "
+                            + cursor.getString(1));
+                    deleteRow.bindString(1, id);
+                    deleteRow.executeUpdateDelete();
+                    dropped++;
+                    continue;
+                }
+                LocalDateTime end = parseLegacyTime(cursor.getString(2));
+                if (end == null) {
+                    Log.e("EventDatabaseHelper", "Event " + id + " has an unreadable end time, using its start: "
+                            + cursor.getString(2));
+                    end = start;
+                }
+                updateTimes.clearBindings();
+                updateTimes.bindLong(1, toEpochMillis(start, zone));
+                updateTimes.bindLong(2, toEpochMillis(end, zone));
+                updateTimes.bindString(3, zone.getId());
+                updateTimes.bindString(4, id);
+                updateTimes.executeUpdateDelete();
+                migrated++;
+            }
+        } finally {
+            updateTimes.close();
+            deleteRow.close();
+        }
+
+        db.execSQL("DROP TABLE " + TABLE_EVENTS);
+        db.execSQL("ALTER TABLE " + migrationTable + " RENAME TO " + TABLE_EVENTS);
+        createTimeRangeIndex(db);
+        Log.d("EventDatabaseHelper", "Migrated " + migrated + " events to epoch timestamps, dropped " + dropped + ".");
+    }
+
+    /**
+     * @return the time stored by version 6 and earlier, or null if the text is not a LocalDateTime.
+     */
+    private static LocalDateTime parseLegacyTime(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 }
@@ -3,12 +3,11 @@ package com.example.view.model.repository;
 import android.content.Context;
 import android.util.Log;
 
-import com.example.view.control.cloud.MissingUUIDException;
-import com.example.view.control.cloud.RestApiService;
 import com.example.view.model.calendar.Event;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public class EventRepository {
     private final EventDatabaseHelper eventDatabaseHelper;
@@ -16,7 +15,7 @@ public class EventRepository {
     private Context context;
 
     public EventRepository(Context context) {
-        eventDatabaseHelper = new EventDatabaseHelper(context);
+        eventDatabaseHelper = EventDatabaseHelper.getInstance(context);
         this.context = context; // Korrekte Zuweisung
 
     }
@@ -28,20 +27,43 @@ public class EventRepository {
                 return;
             }
 
+            // Queues the cloud upload in the same transaction
             eventDatabaseHelper.insertEvent(event);
             Log.d("EventRepository", "Event inserted: " + event.getTitle());
-            Log.d("Cloud", "Event inserted in cloud: " + event.getTitle());
-            RestApiService.sendNewEvent(this.context, event);
         } catch (Exception e) {
             Log.e("EventRepository", "Error inserting event", e);
         }
     }
 
+    /**
+     * Stores a batch of events received from another device in one transaction.
+     *
+     * @return Number of new events, or -1 if nothing was stored.
+     */
+    public int insertReceivedEvents(List<Event> events) {
+        if (context == null) {
+            Log.e("EventRepository", "Context is null. Cannot proceed.");
+            return -1;
+        }
+        return eventDatabaseHelper.insertReceivedEvents(events);
+    }
+
+    /**
+     * Stores several payloads received from other devices in one transaction.
+     *
+     * @return Number of new events per payload, or null if nothing was stored.
+     */
+    public int[] insertReceivedEventPayloads(List<List<Event>> payloads) {
+        if (context == null) {
+            Log.e("EventRepository", "Context is null. Cannot proceed.");
+            return null;
+        }
+        return eventDatabaseHelper.insertReceivedEventPayloads(payloads);
+    }
+
     public void deleteEvent(String eventId) {
         try {
             eventDatabaseHelper.deleteEventById(eventId);
-            RestApiService.deleteEventInCloud(context, eventId);
-            Log.d("Cloud", "Event deleted in cloud: " + eventId);
             Log.d("EventRepository", "Event deleted with ID: " + eventId);
         } catch (Exception e) {
             Log.e("EventRepository", "Error deleting event", e);
@@ -55,19 +77,14 @@ public class EventRepository {
         }
 
         eventDatabaseHelper.updateEvent(event); // This should invoke the updated method
-        try {
-            RestApiService.updateEventInCloud(context, event);
-            Log.d("Cloud", "Event updated in cloud: " + event.getTitle());
-        } catch (MissingUUIDException e) {
-            throw new RuntimeException(e);
-        }
         Log.d("EventRepository", "Event updated: " + event.getTitle());
     }
 
 
     public List<Event> getEventsForDate(LocalDateTime date) {
         try {
-            List<Event> eventsForDate = eventDatabaseHelper.getAllEvents();
+            LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
+            List<Event> eventsForDate = getEventsBetween(startOfDay, startOfDay.plusDays(1));
             Log.d("EventRepository", "Events found for date: " + date + ", Count: " + eventsForDate.size());
             return eventsForDate;
         } catch (Exception e) {
@@ -76,6 +93,15 @@ public class EventRepository {
         }
     }
 
+    public List<Event> getEventsBetween(LocalDateTime start, LocalDateTime end) {
+        try {
+            return eventDatabaseHelper.getEventsBetween(start, end);
+        } catch (Exception e) {
+            Log.e("EventRepository", "Error retrieving events between " + start + " and " + end, e);
+            return null;
+        }
+    }
+
     public List<Event> getAllEvents() {
         try {
             return eventDatabaseHelper.getAllEvents();
@@ -84,4 +110,40 @@ public class EventRepository {
             return null;
         }
     }
+
+    // Asynchronous variants, run on the DatabaseExecutor. Callbacks are invoked on a worker thread.
+
+    public Future<List<Event>> getEventsForDateAsync(LocalDateTime date, RepositoryCallback<List<Event>> callback) {
+        return DatabaseExecutor.read(() -> getEventsForDate(date), callback);
+    }
+
+    public Future<List<Event>> getEventsBetweenAsync(LocalDateTime start, LocalDateTime end,
+                                                     RepositoryCallback<List<Event>> callback) {
+        return DatabaseExecutor.read(() -> getEventsBetween(start, end), callback);
+    }
+
+    public Future<List<Event>> getAllEventsAsync(RepositoryCallback<List<Event>> callback) {
+        return DatabaseExecutor.read(this::getAllEvents, callback);
+    }
+
+    public Future<Event> insertEventAsync(Event event, RepositoryCallback<Event> callback) {
+        return DatabaseExecutor.write(() -> {
+            insertEvent(event);
+            return event;
+        }, callback);
+    }
+
+    public Future<Event> updateEventAsync(Event event, RepositoryCallback<Event> callback) {
+        return DatabaseExecutor.write(() -> {
+            updateEvent(event);
+            return event;
+        }, callback);
+    }
+
+    public Future<String> deleteEventAsync(String eventId, RepositoryCallback<String> callback) {
+        return DatabaseExecutor.write(() -> {
+            deleteEvent(eventId);
+            return eventId;
+        }, callback);
+    }
 }
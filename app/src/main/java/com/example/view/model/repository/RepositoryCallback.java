@@ -0,0 +1,12 @@
+package com.example.view.model.repository;
+
+/**
+ * Receives the result of an asynchronous repository operation.
+ * Called on the database worker thread, so UI state should be published with {@code postValue}.
+ *
+ * @param <T> Type of the result.
+ */
+public interface RepositoryCallback<T> {
+
+    void onComplete(T result);
+}
@@ -0,0 +1,107 @@
+package com.example.view.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compares a full cloud snapshot with the local rows and works out the smallest set of writes
+ * that makes the local table match it. Rows are compared by their stored {@link ContentHash},
+ * so an unchanged record costs one map lookup and no write.
+ */
+public final class SnapshotReconciler {
+
+    private SnapshotReconciler() {
+    }
+
+    /**
+     * @param localHashes content hash of every local row by ID. A null hash (row written before
+     *                    hashes existed) always counts as changed.
+     * @param snapshot    every record the cloud currently holds.
+     * @param pendingIds  IDs with local changes still waiting in the outbox. The cloud does not
+     *                    know about them yet, so they are neither overwritten nor deleted.
+     */
+    public static <T> Diff<T> diff(Map<String, Long> localHashes, Collection<T> snapshot,
+                                   Function<T, String> ids, ToLongFunction<T> hashes,
+                                   Set<String> pendingIds) {
+        List<T> inserts = new ArrayList<>();
+        List<T> updates = new ArrayList<>();
+        Map<String, Long> unmatched = new HashMap<>(localHashes);
+
+        for (T record : snapshot) {
+            if (record == null) {
+                continue;
+            }
+            String id = ids.apply(record);
+            boolean known = unmatched.containsKey(id);
+            Long localHash = unmatched.remove(id);
+            if (pendingIds.contains(id)) {
+                continue;
+            }
+            if (!known) {
+                inserts.add(record);
+            } else if (localHash == null || localHash != hashes.applyAsLong(record)) {
+                updates.add(record);
+            }
+        }
+
+        List<String> deletes = new ArrayList<>();
+        for (String id : unmatched.keySet()) {
+            if (!pendingIds.contains(id)) {
+                deletes.add(id);
+            }
+        }
+        return new Diff<>(inserts, updates, deletes);
+    }
+
+    /**
+     * Writes needed to bring the local table in line with a snapshot.
+     */
+    public static final class Diff<T> {
+        private final List<T> inserts;
+        private final List<T> updates;
+        private final List<String> deletes;
+
+        Diff(List<T> inserts, List<T> updates, List<String> deletes) {
+            this.inserts = inserts;
+            this.updates = updates;
+            this.deletes = deletes;
+        }
+
+        public List<T> getInserts() {
+            return inserts;
+        }
+
+        public List<T> getUpdates() {
+            return updates;
+        }
+
+        public List<String> getDeletes() {
+            return deletes;
+        }
+
+        /**
+         * Inserts and updates together, both are written with INSERT OR REPLACE.
+         */
+        public List<T> getWrites() {
+            List<T> writes = new ArrayList<>(inserts.size() + updates.size());
+            writes.addAll(inserts);
+            writes.addAll(updates);
+            return writes;
+        }
+
+        public boolean isEmpty() {
+            return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return inserts.size() + " inserted, " + updates.size() + " updated, " + deletes.size() + " deleted";
+        }
+    }
+}
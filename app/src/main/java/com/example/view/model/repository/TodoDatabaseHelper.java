@@ -3,26 +3,34 @@ package com.example.view.model.repository;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.RequiresApi;
 
-import com.example.view.control.cloud.MissingUUIDException;
+import com.example.view.control.cloud.OutboxDrainer;
 import com.example.view.control.cloud.RestApiService;
 import com.example.view.model.todo.Task;
 import com.example.view.model.todo.Category;
 import com.example.view.model.todo.Priority;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class TodoDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "todos.db";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 6;
 
     // Table name
     private static final String TABLE_TODOS = "todos";
@@ -33,12 +41,28 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_CATEGORY = "category";
     private static final String COLUMN_DESCRIPTION = "description";
     private static final String COLUMN_PRIORITY = "priority";
+    private static final String COLUMN_CONTENT_HASH = "content_hash"; // ContentHash of the row, null for rows written before version 6
+
+    private static TodoDatabaseHelper instance;
 
     private Context context;
 
-    public TodoDatabaseHelper(Context context) {
+    /**
+     * Returns the process-wide helper. All callers share its single connection, which is
+     * opened once in write-ahead-logging mode and never closed by the helper methods.
+     */
+    public static synchronized TodoDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new TodoDatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private TodoDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
         this.context = context;
+        // Readers no longer block on writers
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -48,13 +72,16 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_TASK_TITLE + " TEXT NOT NULL, " +
                 COLUMN_CATEGORY + " TEXT, " +
                 COLUMN_DESCRIPTION + " TEXT, " +
-                COLUMN_PRIORITY + " INTEGER)";
+                COLUMN_PRIORITY + " INTEGER, " +
+                COLUMN_CONTENT_HASH + " INTEGER)";
         db.execSQL(createTableQuery);
+        CloudOutbox.createTable(db);
         Log.d("TodoDatabaseHelper", "Todos table created successfully.");
     }
 
     public void insertTask(Task task) {
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             ContentValues values = new ContentValues();
             values.put(COLUMN_ID, task.getId());
@@ -62,24 +89,24 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
             values.put(COLUMN_CATEGORY, task.getCategory() != null ? task.getCategory().getName() : null);
             values.put(COLUMN_DESCRIPTION, task.getDescription());
             values.put(COLUMN_PRIORITY, task.getPriority().getValue());
+            values.put(COLUMN_CONTENT_HASH, ContentHash.of(task));
 
             long result = db.insert(TABLE_TODOS, null, values);
             if (result == -1) {
                 Log.e("TodoDatabaseHelper", "Failed to insert task.");
             } else {
                 Log.d("TodoDatabaseHelper", "Task inserted successfully: " + task.getTask());
-                try {
-                    //Speichert in Cloud ab
-                    RestApiService.sendNewToDo(context, task);
-                } catch (MissingUUIDException e) {
-                    Log.e("DatabaseHelper", "Error saving task in cloud", e);
-                }
+                //Speichert in Cloud ab
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_TASK, CloudOutbox.OPERATION_CREATE,
+                        task.getId(), RestApiService.toJson(task));
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e("TodoDatabaseHelper", "Error inserting task.", e);
         } finally {
-            db.close();
+            db.endTransaction();
         }
+        OutboxDrainer.getInstance(context).requestDrain();
     }
 
     public List<Task> getAllTasks() {
@@ -108,7 +135,6 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
             Log.e("TodoDatabaseHelper", "Error fetching tasks.", e);
         } finally {
             if (cursor != null) cursor.close();
-            db.close();
         }
 
         return taskList;
@@ -122,6 +148,7 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getWritableDatabase();
         List<String> columnIds = new ArrayList<>();
 
+        db.beginTransaction();
         try {
             // Abfrage, um alle COLUMN_IDs zu erhalten
             Cursor cursor = db.query(TABLE_TODOS, new String[]{COLUMN_ID}, null, null, null, null, null);
@@ -137,56 +164,377 @@ public class TodoDatabaseHelper extends SQLiteOpenHelper {
 
             // Lösche alle Einträge in der Tabelle
             db.delete(TABLE_TODOS, null, null);
-            Log.d("DatabaseHelper", "All tasks deleted");
-
-            new Thread(() -> {
-                for (int a = 0; a < columnIds.size(); a++) {
-                    // Lösche alle Einträge in der Cloud
-                    try {
-                        RestApiService.deleteToDoInCloud(context, columnIds.get(a));
-                    } catch (MissingUUIDException e) {
-                        Log.e("DatabaseHelper", "Error deleting task in cloud", e);
-                    }
-
-                    // Timeout von 1 Sekunde
-                    try {
-                        Thread.sleep(3000); // 1000 Millisekunden = 1 Sekunde
-                    } catch (InterruptedException e) {
-                        Log.e("Timeout", "Thread wurde unterbrochen", e);
-                    }
-                }
-            }).start();
 
+            // Lösche alle Einträge in der Cloud
+            for (String columnId : columnIds) {
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_TASK, CloudOutbox.OPERATION_DELETE, columnId, null);
+            }
+            db.setTransactionSuccessful();
+            Log.d("DatabaseHelper", "All tasks deleted");
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error deleting tasks", e);
         } finally {
-            db.close();
+            db.endTransaction();
         }
+        OutboxDrainer.getInstance(context).requestDrain();
     }
 
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         if (oldVersion < newVersion) {
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_TODOS);
-            onCreate(db);
+            if (oldVersion < 3) {
+                db.execSQL("DROP TABLE IF EXISTS " + TABLE_TODOS);
+                onCreate(db);
+            } else {
+                if (oldVersion < 4) {
+                    CloudOutbox.createTable(db);
+                } else if (oldVersion < 5) {
+                    CloudOutbox.addDeliveryColumns(db);
+                }
+                if (oldVersion < 6) {
+                    db.execSQL("ALTER TABLE " + TABLE_TODOS + " ADD COLUMN " + COLUMN_CONTENT_HASH + " INTEGER");
+                }
+            }
         }
     }
 
     public void deleteTaskById(String taskId) {
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
         try {
             int rowsAffected = db.delete(TABLE_TODOS, COLUMN_ID + " = ?", new String[]{taskId});
             if (rowsAffected > 0) {
+                CloudOutbox.enqueue(db, CloudOutbox.ENTITY_TASK, CloudOutbox.OPERATION_DELETE, taskId, null);
                 Log.d("TodoDatabaseHelper", "Task deleted successfully with ID: " + taskId);
             } else {
                 Log.d("TodoDatabaseHelper", "No task found with ID: " + taskId);
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e("TodoDatabaseHelper", "Error deleting task with ID: " + taskId, e);
         } finally {
-            db.close();
+            db.endTransaction();
+        }
+        OutboxDrainer.getInstance(context).requestDrain();
+    }
+
+    /**
+     * Inserts all tasks in a single transaction. Tasks whose ID already exists are skipped.
+     * Intended for restores and imports, so nothing is sent to the cloud.
+     *
+     * @return Number of inserted tasks, or -1 if the transaction was rolled back.
+     */
+    public int insertTasks(List<Task> tasks) {
+        return writeTasks(tasks, "INSERT OR IGNORE");
+    }
+
+    /**
+     * Inserts or replaces all tasks in a single transaction.
+     * Intended for restores and imports, so nothing is sent to the cloud.
+     *
+     * @return Number of written tasks, or -1 if the transaction was rolled back.
+     */
+    public int upsertTasks(List<Task> tasks) {
+        return writeTasks(tasks, "INSERT OR REPLACE");
+    }
+
+    /**
+     * Inserts or replaces tasks downloaded from the cloud in a single transaction. Tasks with
+     * unsent local changes are skipped, so a download never overwrites an edit that is still
+     * waiting in the {@link CloudOutbox}. Nothing is sent back to the cloud.
+     *
+     * @return Number of written tasks, or -1 if the transaction was rolled back.
+     */
+    public int upsertRemoteTasks(List<Task> tasks) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pending = CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_TASK);
+            List<Task> writes = new ArrayList<>(tasks.size());
+            for (Task item : tasks) {
+                if (!pending.contains(item.getId())) {
+                    writes.add(item);
+                }
+            }
+            if (upsertTasks(writes) != writes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return writes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes all tasks with the given IDs in a single transaction.
+     *
+     * @return Number of deleted tasks, or -1 if the transaction was rolled back.
+     */
+    public int deleteTasksByIds(Collection<String> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement delete = db.compileStatement(
+                "DELETE FROM " + TABLE_TODOS + " WHERE " + COLUMN_ID + " = ?");
+        int rowsDeleted = 0;
+        db.beginTransaction();
+        try {
+            for (String taskId : taskIds) {
+                delete.bindString(1, taskId);
+                rowsDeleted += delete.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+            Log.d("TodoDatabaseHelper", "Deleted " + rowsDeleted + " of " + taskIds.size() + " tasks.");
+        } catch (Exception e) {
+            Log.e("TodoDatabaseHelper", "Error deleting tasks in batch.", e);
+            rowsDeleted = -1;
+        } finally {
+            db.endTransaction();
+            delete.close();
+        }
+        return rowsDeleted;
+    }
+
+    /**
+     * Applies changes downloaded from the cloud in a single transaction: changed tasks are
+     * upserted and deleted ones removed. Tasks with unsent local changes are skipped, so a
+     * change or delete from the cloud never overwrites an edit that is still waiting in the
+     * {@link CloudOutbox}. Nothing is sent back to the cloud.
+     *
+     * @return true if all changes were applied, false if the transaction was rolled back.
+     */
+    public boolean applyRemoteChanges(List<Task> changed, Collection<String> deletedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean applied;
+        db.beginTransaction();
+        try {
+            Set<String> pending = CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_TASK);
+            List<Task> writes = new ArrayList<>();
+            if (changed != null) {
+                for (Task item : changed) {
+                    if (item != null && !pending.contains(item.getId())) {
+                        writes.add(item);
+                    }
+                }
+            }
+            List<String> deletes = new ArrayList<>();
+            if (deletedIds != null) {
+                for (String id : deletedIds) {
+                    if (!pending.contains(id)) {
+                        deletes.add(id);
+                    }
+                }
+            }
+            // REPLACE writes every row, so fewer rows means the nested batch was rolled back
+            applied = upsertTasks(writes) == writes.size()
+                    // IDs that are not stored locally are not an error, a rollback is
+                    && deleteTasksByIds(deletes) >= 0;
+            if (applied) {
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            db.endTransaction();
+        }
+        return applied;
+    }
+
+    public long countTasks() {
+        return DatabaseUtils.queryNumEntries(this.getReadableDatabase(), TABLE_TODOS);
+    }
+
+    /**
+     * IDs of tasks with unsent local changes.
+     */
+    public Set<String> getPendingTaskIds() {
+        return CloudOutbox.pendingEntityIds(this.getReadableDatabase(), CloudOutbox.ENTITY_TASK);
+    }
+
+    /**
+     * Brings the local tasks in line with a full cloud snapshot. Only tasks that are new,
+     * changed or missing from the snapshot are written, all in a single transaction. Tasks with
+     * unsent local changes are left alone. Nothing is sent back to the cloud.
+     *
+     * @return The applied diff, or null if the transaction was rolled back.
+     */
+    public SnapshotReconciler.Diff<Task> reconcileSnapshot(List<Task> snapshot) {
+        return reconcileSnapshot(snapshot, Collections.emptySet());
+    }
+
+    /**
+     * Like {@link #reconcileSnapshot(List)}, but also leaves {@code protectedIds} alone. Pass the
+     * pending IDs from before the snapshot was requested: a create that was sent and left the
+     * outbox while the snapshot was downloading is neither pending nor in the snapshot.
+     *
+     * @return The applied diff, or null if the transaction was rolled back.
+     */
+    public SnapshotReconciler.Diff<Task> reconcileSnapshot(List<Task> snapshot, Set<String> protectedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_TASK));
+            SnapshotReconciler.Diff<Task> diff = SnapshotReconciler.diff(getContentHashes(db), snapshot,
+                    Task::getId, task -> ContentHash.of(task), pendingIds);
+            List<Task> writes = diff.getWrites();
+            if (upsertTasks(writes) != writes.size()
+                    || deleteTasksByIds(diff.getDeletes()) != diff.getDeletes().size()) {
+                return null;
+            }
+            db.setTransactionSuccessful();
+            Log.d("TodoDatabaseHelper", "Reconciled " + snapshot.size() + " cloud tasks: " + diff);
+            return diff;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Reconciles one chunk of a streamed cloud snapshot in its own transaction: tasks that are
+     * new or changed are written, unchanged ones and those with unsent local changes or in
+     * {@code protectedIds} are skipped. Call {@link #deleteMissingFromSnapshot(Set, Set)} once the
+     * whole snapshot was read. Nothing is sent back to the cloud.
+     *
+     * @return Number of written tasks, or -1 if the transaction was rolled back.
+     */
+    public int reconcileSnapshotChunk(List<Task> chunk, Set<String> protectedIds) {
+        List<String> ids = new ArrayList<>(chunk.size());
+        for (Task task : chunk) {
+            ids.add(task.getId());
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_TASK));
+            // Only the rows of this chunk are compared, deletes are left to deleteMissingFromSnapshot
+            List<Task> writes = SnapshotReconciler.diff(getContentHashes(db, ids), chunk,
+                    Task::getId, task -> ContentHash.of(task), pendingIds).getWrites();
+            if (upsertTasks(writes) != writes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return writes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes the tasks a finished cloud snapshot no longer contains, except those with unsent
+     * local changes or in {@code protectedIds}. Nothing is sent back to the cloud.
+     *
+     * @param snapshotIds IDs of all tasks in the snapshot.
+     * @return Number of deleted tasks, or -1 if the transaction was rolled back.
+     */
+    public int deleteMissingFromSnapshot(Set<String> snapshotIds, Set<String> protectedIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Set<String> pendingIds = new HashSet<>(protectedIds);
+            pendingIds.addAll(CloudOutbox.pendingEntityIds(db, CloudOutbox.ENTITY_TASK));
+            List<String> deletes = new ArrayList<>();
+            try (Cursor cursor = db.query(TABLE_TODOS, new String[]{COLUMN_ID}, null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    String id = cursor.getString(0);
+                    if (!snapshotIds.contains(id) && !pendingIds.contains(id)) {
+                        deletes.add(id);
+                    }
+                }
+            }
+            if (deleteTasksByIds(deletes) != deletes.size()) {
+                return -1;
+            }
+            db.setTransactionSuccessful();
+            return deletes.size();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Map<String, Long> getContentHashes(SQLiteDatabase db) {
+        return getContentHashes(db, null);
+    }
+
+    /**
+     * @param ids Rows to look up, or null for all rows.
+     */
+    private Map<String, Long> getContentHashes(SQLiteDatabase db, List<String> ids) {
+        String selection = null;
+        String[] selectionArgs = null;
+        if (ids != null) {
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < ids.size(); i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            selection = COLUMN_ID + " IN (" + placeholders + ")";
+            selectionArgs = ids.toArray(new String[0]);
+        }
+        Map<String, Long> hashes = new HashMap<>();
+        try (Cursor cursor = db.query(TABLE_TODOS, new String[]{COLUMN_ID, COLUMN_CONTENT_HASH},
+                selection, selectionArgs, null, null, null)) {
+            while (cursor.moveToNext()) {
+                hashes.put(cursor.getString(0), cursor.isNull(1) ? null : cursor.getLong(1));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * @return Number of written tasks, or -1 if the transaction was rolled back.
+     */
+    private int writeTasks(List<Task> tasks, String insertVerb) {
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(insertVerb + " INTO " + TABLE_TODOS + " (" +
+                COLUMN_ID + ", " + COLUMN_TASK_TITLE + ", " + COLUMN_CATEGORY + ", " +
+                COLUMN_DESCRIPTION + ", " + COLUMN_PRIORITY + ", " + COLUMN_CONTENT_HASH +
+                ") VALUES (?, ?, ?, ?, ?, ?)");
+        int rowsWritten = 0;
+        db.beginTransaction();
+        try {
+            for (Task task : tasks) {
+                if (task == null) {
+                    continue;
+                }
+                insert.clearBindings();
+                bindTask(insert, task);
+                if (insert.executeInsert() != -1) {
+                    rowsWritten++;
+                }
+            }
+            db.setTransactionSuccessful();
+            Log.d("TodoDatabaseHelper", "Wrote " + rowsWritten + " of " + tasks.size() + " tasks.");
+        } catch (Exception e) {
+            Log.e("TodoDatabaseHelper", "Error writing tasks in batch.", e);
+            rowsWritten = -1;
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        return rowsWritten;
+    }
+
+    private void bindTask(SQLiteStatement statement, Task task) {
+        statement.bindString(1, task.getId());
+        statement.bindString(2, task.getTask());
+        if (task.getCategory() != null) {
+            statement.bindString(3, task.getCategory().getName());
+        }
+        if (task.getDescription() != null) {
+            statement.bindString(4, task.getDescription());
+        }
+        if (task.getPriority() != null) {
+            statement.bindLong(5, task.getPriority().getValue());
         }
+        statement.bindLong(6, ContentHash.of(task));
     }
 
 }
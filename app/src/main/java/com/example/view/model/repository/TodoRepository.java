@@ -0,0 +1,40 @@
+package com.example.view.model.repository;
+
+import android.util.Log;
+
+import com.example.view.model.todo.Task;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous access to the tasks stored in {@link TodoDatabaseHelper}.
+ * All operations run on the {@link DatabaseExecutor}; callbacks are invoked on a worker thread.
+ */
+public class TodoRepository {
+    private final TodoDatabaseHelper todoDatabaseHelper;
+
+    public TodoRepository(TodoDatabaseHelper todoDatabaseHelper) {
+        this.todoDatabaseHelper = todoDatabaseHelper;
+    }
+
+    public Future<List<Task>> getAllTasksAsync(RepositoryCallback<List<Task>> callback) {
+        return DatabaseExecutor.read(todoDatabaseHelper::getAllTasks, callback);
+    }
+
+    public Future<Task> insertTaskAsync(Task task, RepositoryCallback<Task> callback) {
+        return DatabaseExecutor.write(() -> {
+            todoDatabaseHelper.insertTask(task);
+            Log.d("TodoRepository", "Task inserted: " + task.getTask());
+            return task;
+        }, callback);
+    }
+
+    public Future<Void> deleteAllTasksAsync(RepositoryCallback<Void> callback) {
+        return DatabaseExecutor.write(() -> {
+            todoDatabaseHelper.deleteAllTasks();
+            Log.d("TodoRepository", "All tasks deleted");
+            return null;
+        }, callback);
+    }
+}
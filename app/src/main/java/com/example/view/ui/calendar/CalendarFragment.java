@@ -1,5 +1,6 @@
 package com.example.view.ui.calendar;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -15,6 +16,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.view.R;
+import com.example.view.control.bluetooth.DeviceListActivity;
 import com.example.view.control.calendar.CalendarViewModel;
 import com.example.view.control.calendar.CalendarViewModelFactory;
 import com.example.view.model.calendar.Event;
@@ -31,6 +33,7 @@ public class CalendarFragment extends Fragment {
     private CalendarView calendarView;
     private LinearLayout eventsContainer;
     private FloatingActionButton fabAddEvent;
+    private FloatingActionButton fabShareDay;
 
     // Data
     private CalendarViewModel calendarViewModel;
@@ -45,6 +48,7 @@ public class CalendarFragment extends Fragment {
         calendarView = view.findViewById(R.id.calendarView);
         eventsContainer = view.findViewById(R.id.eventsContainer);
         fabAddEvent = view.findViewById(R.id.fabAddEvent);
+        fabShareDay = view.findViewById(R.id.fabShareDay);
 
         // Set up ViewModel
         CalendarViewModelFactory factory = new CalendarViewModelFactory(requireContext());
@@ -79,6 +83,16 @@ public class CalendarFragment extends Fragment {
 
     private void setupFab() {
         fabAddEvent.setOnClickListener(v -> showAddEventDialog());
+        fabShareDay.setOnClickListener(v -> shareSelectedDay());
+    }
+
+    // Sends every event of the selected day to a paired device in one Bluetooth session
+    private void shareSelectedDay() {
+        LocalDateTime dayStart = selectedDate.toLocalDate().atStartOfDay();
+        Intent intent = new Intent(requireContext(), DeviceListActivity.class);
+        intent.putExtra(DeviceListActivity.EXTRA_SHARE_RANGE_START, dayStart);
+        intent.putExtra(DeviceListActivity.EXTRA_SHARE_RANGE_END, dayStart.plusDays(1));
+        startActivity(intent);
     }
 
     private void showAddEventDialog() {
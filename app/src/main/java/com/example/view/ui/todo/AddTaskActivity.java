@@ -33,7 +33,7 @@ public class AddTaskActivity extends AppCompatActivity {
         setContentView(R.layout.activity_add_task);
 
         // Initialize TodoDatabaseHelper
-        TodoDatabaseHelper todoDatabaseHelper = new TodoDatabaseHelper(this);
+        TodoDatabaseHelper todoDatabaseHelper = TodoDatabaseHelper.getInstance(this);
 
         // Initialize ViewModel with custom factory
         TodoViewModelFactory factory = new TodoViewModelFactory(todoDatabaseHelper);
@@ -45,7 +45,7 @@ public class TodoFragment extends Fragment {
         super.onAttach(context);
 
         // Initialize TodoDatabaseHelper
-        TodoDatabaseHelper todoDatabaseHelper = new TodoDatabaseHelper(context);
+        TodoDatabaseHelper todoDatabaseHelper = TodoDatabaseHelper.getInstance(context);
 
         // Initialize TodoViewModel using ViewModelFactory
         TodoViewModelFactory factory = new TodoViewModelFactory(todoDatabaseHelper);
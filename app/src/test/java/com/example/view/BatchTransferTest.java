@@ -0,0 +1,154 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.view.control.bluetooth.BatchReceiver;
+import com.example.view.control.bluetooth.BatchSender;
+import com.example.view.control.bluetooth.ShareProtocol;
+import com.example.view.model.calendar.Event;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.ProtocolException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchTransferTest {
+
+    private final AtomicInteger chunksSent = new AtomicInteger();
+    private final AtomicInteger chunksAcknowledged = new AtomicInteger();
+    private final AtomicInteger maxUnacknowledged = new AtomicInteger();
+
+    @Test
+    public void testSemesterIsStreamedInWindowedChunks() throws Exception {
+        List<Event> semester = events(523);
+        List<List<Event>> transactions = Collections.synchronizedList(new ArrayList<>());
+
+        int received = transfer(semester, new BatchSender(50, 4), events -> {
+            transactions.add(events);
+            pause();
+            return events.size();
+        });
+
+        assertEquals(523, received);
+        assertEquals(11, transactions.size());
+        List<String> ids = new ArrayList<>();
+        for (List<Event> transaction : transactions) {
+            assertTrue(transaction.size() <= 50);
+            for (Event event : transaction) {
+                ids.add(event.getId());
+            }
+        }
+        for (int i = 0; i < semester.size(); i++) {
+            assertEquals(semester.get(i).getId(), ids.get(i));
+        }
+        assertTrue("unacknowledged " + maxUnacknowledged.get(), maxUnacknowledged.get() <= 4);
+        assertTrue(maxUnacknowledged.get() > 1);
+    }
+
+    @Test
+    public void testFailedChunkAbortsSender() throws Exception {
+        AtomicInteger stored = new AtomicInteger();
+        try {
+            transfer(events(200), new BatchSender(50, 2), events -> stored.incrementAndGet() == 3 ? -1 : events.size());
+            fail("Sender must notice the failed chunk");
+        } catch (IOException expected) {
+            assertEquals(3, stored.get());
+        }
+    }
+
+    @Test
+    public void testUnexpectedFrameIsAnsweredWithError() throws Exception {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        ShareProtocol.writeIntFrame(sent, ShareProtocol.TYPE_BATCH_START, 1);
+        ShareProtocol.writeEvent(sent, events(1).get(0));
+        ByteArrayInputStream in = new ByteArrayInputStream(sent.toByteArray());
+        ByteArrayOutputStream answer = new ByteArrayOutputStream();
+
+        try {
+            new BatchReceiver(events -> events.size()).receive(ShareProtocol.readFrame(in), in, answer);
+            fail("An event frame inside a batch must be rejected");
+        } catch (ProtocolException expected) {
+            // The sender waits for an ack, so it has to get one before the connection closes
+            assertFalse(ShareProtocol.readAck(new ByteArrayInputStream(answer.toByteArray())));
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        assertEquals(0, transfer(new ArrayList<>(), new BatchSender(), events -> events.size()));
+    }
+
+    private int transfer(List<Event> events, BatchSender sender, BatchReceiver.ChunkStore store) throws Exception {
+        PipedInputStream receiverIn = new PipedInputStream(256 * 1024);
+        OutputStream senderOut = counting(new PipedOutputStream(receiverIn), chunksSent);
+        PipedInputStream senderIn = new PipedInputStream(256 * 1024);
+        OutputStream receiverOut = counting(new PipedOutputStream(senderIn), chunksAcknowledged);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> receiver = executor.submit(() ->
+                    new BatchReceiver(store).receive(ShareProtocol.readFrame(receiverIn), receiverIn, receiverOut));
+            try {
+                sender.send(events, senderIn, senderOut);
+            } finally {
+                senderOut.close();
+            }
+            return receiver.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Every frame is written with one call, so counting writes counts frames.
+     */
+    private OutputStream counting(OutputStream out, AtomicInteger frames) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b) throws IOException {
+                out.write(b);
+                if (b[5] == ShareProtocol.TYPE_CHUNK || b[5] == ShareProtocol.TYPE_CHUNK_ACK) {
+                    frames.incrementAndGet();
+                    maxUnacknowledged.accumulateAndGet(chunksSent.get() - chunksAcknowledged.get(), Math::max);
+                }
+            }
+        };
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 15);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime lecture = start.plusDays(i % 120).plusHours(i % 5 * 2);
+            events.add(new Event("lecture-" + i, "Vorlesung " + i, "Uni", lecture, lecture.plusMinutes(90),
+                    0, "Hörsaal " + (i % 7), "Keine", "", new ArrayList<>()));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.ChangeNotifier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class ChangeNotifierTest {
+
+    private MockWebServer server;
+    private ChangeNotifier notifier;
+
+    private final BlockingQueue<WebSocket> serverSockets = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ChangeNotifier.ChangeHint> hints = new LinkedBlockingQueue<>();
+    private final CountDownLatch connected = new CountDownLatch(2);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        notifier = new ChangeNotifier(new OkHttpClient(), new ChangeNotifier.Listener() {
+            @Override
+            public void onConnected() {
+                connected.countDown();
+            }
+
+            @Override
+            public void onChangeHint(ChangeNotifier.ChangeHint hint) {
+                hints.add(hint);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        notifier.stop();
+        server.shutdown();
+    }
+
+    @Test
+    public void testPushedHintArrivesWithinOneSecond() throws Exception {
+        server.enqueue(upgrade());
+        notifier.start(server.url("/api/changes?param=uuid"));
+        WebSocket serverSocket = serverSockets.poll(5, TimeUnit.SECONDS);
+
+        long sentAt = System.nanoTime();
+        serverSocket.send("{\"entity\":\"event\",\"id\":\"42\",\"operation\":\"update\"}");
+        ChangeNotifier.ChangeHint hint = hints.poll(1, TimeUnit.SECONDS);
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt);
+
+        assertEquals("event", hint.getEntity());
+        assertEquals("42", hint.getId());
+        assertEquals("update", hint.getOperation());
+        assertTrue("Hint took " + latencyMillis + " ms", latencyMillis < 1000);
+        assertEquals("/api/changes?param=uuid", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void testMalformedHintIsIgnored() throws Exception {
+        server.enqueue(upgrade());
+        notifier.start(server.url("/api/changes?param=uuid"));
+        WebSocket serverSocket = serverSockets.poll(5, TimeUnit.SECONDS);
+
+        serverSocket.send("not json");
+        serverSocket.send("{\"entity\":\"task\",\"id\":\"7\",\"operation\":\"delete\"}");
+
+        assertEquals("7", hints.poll(1, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void testReconnectsAfterServerClosesChannel() throws Exception {
+        server.enqueue(upgrade());
+        server.enqueue(upgrade());
+        notifier.start(server.url("/api/changes?param=uuid"));
+
+        serverSockets.poll(5, TimeUnit.SECONDS).close(1001, "restart");
+
+        // Second connect reports onConnected again, so missed hints are fetched
+        assertTrue(connected.await(10, TimeUnit.SECONDS));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private MockResponse upgrade() {
+        return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                serverSockets.add(webSocket);
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                webSocket.close(1000, null);
+            }
+        });
+    }
+}
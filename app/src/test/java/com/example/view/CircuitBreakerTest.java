@@ -0,0 +1,142 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.view.control.cloud.CircuitBreaker;
+import com.example.view.control.cloud.CircuitOpenException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class CircuitBreakerTest {
+
+    private static final String ENDPOINT = "GET /api/tasks";
+
+    private MockWebServer server;
+    private CircuitBreaker circuitBreaker;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        circuitBreaker = new CircuitBreaker(3, 200L, 1_000L);
+        client = new OkHttpClient.Builder().addInterceptor(circuitBreaker).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailuresAndFailsFast() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+            assertEquals(503, call());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(ENDPOINT));
+
+        long startNanos = System.nanoTime();
+        try {
+            call();
+            fail("Open circuit must not send the request");
+        } catch (CircuitOpenException expected) {
+            // fails without waiting for a timeout
+        }
+        assertTrue(System.nanoTime() - startNanos < 100_000_000L);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testSuccessfulTrialClosesCircuit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            call();
+        }
+        Thread.sleep(250);
+
+        server.enqueue(new MockResponse().setBody("[]"));
+        assertEquals(200, call());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(ENDPOINT));
+    }
+
+    @Test
+    public void testFailedTrialReopensCircuit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            call();
+        }
+        Thread.sleep(250);
+
+        server.enqueue(new MockResponse().setResponseCode(500));
+        assertEquals(500, call());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(ENDPOINT));
+
+        // Cooldown doubled, so the old cooldown is not enough anymore
+        Thread.sleep(250);
+        try {
+            call();
+            fail("Circuit must stay open after a failed trial");
+        } catch (CircuitOpenException expected) {
+            assertEquals(4, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testRuntimeExceptionDuringTrialReleasesIt() throws Exception {
+        AtomicBoolean failLocally = new AtomicBoolean();
+        client = client.newBuilder().addInterceptor(chain -> {
+            if (failLocally.get()) {
+                throw new IllegalStateException("Broken converter");
+            }
+            return chain.proceed(chain.request());
+        }).build();
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            call();
+        }
+        Thread.sleep(250);
+
+        failLocally.set(true);
+        try {
+            call();
+            fail("Local failure must reach the caller");
+        } catch (IllegalStateException expected) {
+            // the trial ended without an answer from the endpoint
+        }
+
+        failLocally.set(false);
+        server.enqueue(new MockResponse().setBody("[]"));
+        assertEquals(200, call());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(ENDPOINT));
+    }
+
+    @Test
+    public void testClientErrorsDoNotOpenCircuit() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(404));
+            assertEquals(404, call());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(ENDPOINT));
+    }
+
+    private int call() throws IOException {
+        Request request = new Request.Builder().url(server.url("/api/tasks")).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+}
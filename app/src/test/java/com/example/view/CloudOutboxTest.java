@@ -0,0 +1,129 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.view.model.repository.CloudOutbox;
+import com.example.view.model.repository.EventDatabaseHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CloudOutboxTest {
+
+    private EventDatabaseHelper dbHelper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        dbHelper = EventDatabaseHelper.getInstance(context);
+        db = dbHelper.getWritableDatabase();
+        // Start from an empty outbox
+        CloudOutbox.remove(db, sequences(CloudOutbox.peek(db, Integer.MAX_VALUE)));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void testEntriesArePeekedInEnqueueOrder() {
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_CREATE, "1", "{\"id\":\"1\"}");
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_UPDATE, "1", "{\"id\":\"1\"}");
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_DELETE, "2", null);
+
+        List<CloudOutbox.Entry> entries = CloudOutbox.peek(db, 10);
+
+        assertEquals(3, entries.size());
+        assertEquals(CloudOutbox.OPERATION_CREATE, entries.get(0).getOperation());
+        assertEquals(CloudOutbox.OPERATION_UPDATE, entries.get(1).getOperation());
+        assertEquals(CloudOutbox.OPERATION_DELETE, entries.get(2).getOperation());
+        assertTrue(entries.get(0).getSequence() < entries.get(1).getSequence());
+        assertNull(entries.get(2).getPayload());
+        assertEquals(0, entries.get(0).getAttempts());
+        assertFalse(entries.get(0).isSent());
+    }
+
+    @Test
+    public void testPeekReturnsOnlyTheOldestEntries() {
+        for (int i = 0; i < 5; i++) {
+            CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_DELETE, String.valueOf(i), null);
+        }
+
+        List<CloudOutbox.Entry> entries = CloudOutbox.peek(db, 2);
+
+        assertEquals(2, entries.size());
+        assertEquals("0", entries.get(0).getEntityId());
+        assertEquals("1", entries.get(1).getEntityId());
+    }
+
+    @Test
+    public void testRemoveDeletesOnlyTheGivenEntries() {
+        for (int i = 0; i < 3; i++) {
+            CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_DELETE, String.valueOf(i), null);
+        }
+        List<CloudOutbox.Entry> entries = CloudOutbox.peek(db, 10);
+
+        CloudOutbox.remove(db, Arrays.asList(entries.get(0).getSequence(), entries.get(2).getSequence()));
+
+        List<CloudOutbox.Entry> remaining = CloudOutbox.peek(db, 10);
+        assertEquals(1, remaining.size());
+        assertEquals("1", remaining.get(0).getEntityId());
+    }
+
+    @Test
+    public void testRescheduledEntryStaysAtTheHead() {
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_CREATE, "1", "{\"id\":\"1\"}");
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_CREATE, "2", "{\"id\":\"2\"}");
+        CloudOutbox.Entry head = CloudOutbox.peek(db, 1).get(0);
+
+        long nextAttemptAt = System.currentTimeMillis() + 60_000L;
+        CloudOutbox.reschedule(db, head.getSequence(), 1, nextAttemptAt);
+
+        // Later entries must not overtake the one that is waiting for its retry
+        CloudOutbox.Entry retried = CloudOutbox.peek(db, 1).get(0);
+        assertEquals(head.getSequence(), retried.getSequence());
+        assertEquals(1, retried.getAttempts());
+        assertEquals(nextAttemptAt, retried.getNextAttemptAt());
+        assertEquals(head.getIdempotencyKey(), retried.getIdempotencyKey());
+    }
+
+    @Test
+    public void testMarkedEntriesAreReplayedWithTheSameKey() {
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_UPDATE, "1", "{\"id\":\"1\"}");
+        CloudOutbox.enqueue(db, CloudOutbox.ENTITY_EVENT, CloudOutbox.OPERATION_UPDATE, "2", "{\"id\":\"2\"}");
+        List<CloudOutbox.Entry> entries = CloudOutbox.peek(db, 10);
+
+        CloudOutbox.markSent(db, Collections.singletonList(entries.get(0).getSequence()));
+
+        List<CloudOutbox.Entry> marked = CloudOutbox.peek(db, 10);
+        assertTrue(marked.get(0).isSent());
+        assertFalse(marked.get(1).isSent());
+        assertEquals(entries.get(0).getIdempotencyKey(), marked.get(0).getIdempotencyKey());
+        assertNotEquals(marked.get(0).getIdempotencyKey(), marked.get(1).getIdempotencyKey());
+    }
+
+    private static List<Long> sequences(List<CloudOutbox.Entry> entries) {
+        List<Long> sequences = new ArrayList<>();
+        for (CloudOutbox.Entry entry : entries) {
+            sequences.add(entry.getSequence());
+        }
+        return sequences;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.CloudSession;
+import com.example.view.control.cloud.RestApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class CloudSessionTest {
+
+    private MockWebServer server;
+    private RestApiService.ApiService apiService;
+    private final InMemoryPreferences preferences = new InMemoryPreferences();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(RestApiService.ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testCallAfterRegistrationRunsAtOnce() {
+        preferences.edit().putString("UUID", "uuid-1").apply();
+        CloudSession session = new CloudSession(preferences, () -> apiService, 10L);
+
+        List<String> uuids = new ArrayList<>();
+        session.whenReady(uuids::add);
+
+        // Runs on the calling thread without asking the server
+        assertEquals(Collections.singletonList("uuid-1"), uuids);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void testCallBeforeRegistrationWaitsForUuid() throws Exception {
+        server.enqueue(new MockResponse().setBody("uuid-1"));
+        CloudSession session = new CloudSession(preferences, () -> apiService, 10L);
+
+        BlockingQueue<String> uuids = new LinkedBlockingQueue<>();
+        session.whenReady(uuids::add);
+
+        assertEquals("uuid-1", uuids.poll(10, TimeUnit.SECONDS));
+        assertEquals("uuid-1", session.getUuid());
+        assertEquals("uuid-1", preferences.getString("UUID", null));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testQueuedCallsAreReleasedInOrder() throws Exception {
+        CountDownLatch respond = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                respond.await(10, TimeUnit.SECONDS);
+                return new MockResponse().setBody("uuid-1");
+            }
+        });
+        CloudSession session = new CloudSession(preferences, () -> apiService, 10L);
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(4);
+        session.whenReady(uuid -> {
+            order.add(1);
+            done.countDown();
+            // Queued while the others are released, so it has to wait for them
+            session.whenReady(later -> {
+                order.add(4);
+                done.countDown();
+            });
+        });
+        for (int i = 2; i <= 3; i++) {
+            int position = i;
+            session.whenReady(uuid -> {
+                order.add(position);
+                done.countDown();
+            });
+        }
+        respond.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3, 4), order);
+        // Calls during a running registration do not send another request
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testFailedRegistrationIsRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("uuid-1"));
+        CloudSession session = new CloudSession(preferences, () -> apiService, 10L);
+
+        BlockingQueue<String> uuids = new LinkedBlockingQueue<>();
+        session.whenReady(uuids::add);
+
+        assertEquals("uuid-1", uuids.poll(10, TimeUnit.SECONDS));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testFailedRegistrationWithoutWaitingCallsIsNotRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        CloudSession session = new CloudSession(preferences, () -> apiService, 10L);
+
+        session.register();
+        server.takeRequest(10, TimeUnit.SECONDS);
+        Thread.sleep(200);
+
+        assertEquals(1, server.getRequestCount());
+        assertNull(session.getUuid());
+    }
+}
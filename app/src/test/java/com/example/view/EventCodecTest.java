@@ -0,0 +1,137 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.example.view.control.cloud.ParsingAndSerializer.EventCodec;
+import com.example.view.control.cloud.ParsingAndSerializer.IsoDateTime;
+import com.example.view.control.cloud.ParsingAndSerializer.LocalDateTimeDeserializer;
+import com.example.view.control.cloud.ParsingAndSerializer.LocalDateTimeSerializer;
+import com.example.view.control.cloud.ParsingAndSerializer.ResponseParser;
+import com.example.view.control.cloud.ParsingAndSerializer.TaskCodec;
+import com.example.view.model.calendar.Event;
+import com.example.view.model.todo.Category;
+import com.example.view.model.todo.Priority;
+import com.example.view.model.todo.Task;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventCodecTest {
+
+    private static final Type EVENT_LIST = new TypeToken<List<Event>>() {}.getType();
+
+    private final Gson reflectiveGson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeSerializer())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeDeserializer())
+            .create();
+
+    private final Gson codecGson = new GsonBuilder()
+            .registerTypeAdapter(Event.class, new EventCodec())
+            .registerTypeAdapter(Task.class, new TaskCodec())
+            .create();
+
+    @Test
+    public void testWritesSameJsonAsReflectiveGson() {
+        Event event = createSampleEvent("1", LocalDateTime.of(2024, 5, 1, 10, 0, 30));
+        Event withNulls = new Event("2", "Title", null, null, null, 0, null, null, null, null);
+        Task task = new Task("3", "Aufgabe", Category.UNIVERSITY, null, Priority.URGENT_IMPORTANT);
+
+        assertEquals(reflectiveGson.toJson(event), codecGson.toJson(event));
+        assertEquals(reflectiveGson.toJson(withNulls), codecGson.toJson(withNulls));
+        assertEquals(reflectiveGson.toJson(task), codecGson.toJson(task));
+    }
+
+    @Test
+    public void testReadsServerEventFormat() throws Exception {
+        Event event = ResponseParser.parseEvent("{\"event_id\":\"1\",\"title\":\"Meeting\",\"category\":\"work\","
+                + "\"startDateTime\":\"2024-05-01T10:00:00.250+02:00\",\"endDateTime\":\"2024-05-01T11:00\","
+                + "\"travelTime\":\"15\",\"repetition\":null,\"unknown\":{\"nested\":true},\"participants\":[\"A\"]}");
+
+        assertEquals("WORK", event.getCategory());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0, 0, 250_000_000), event.getStartDateTime());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 11, 0), event.getEndDateTime());
+        assertEquals(15, event.getTravelTime());
+        assertNull(event.getRepetition());
+        assertEquals(List.of("A"), event.getParticipants());
+    }
+
+    @Test
+    public void testIsoDateTimeMatchesFormatter() {
+        LocalDateTime[] samples = {
+                LocalDateTime.of(2024, 1, 2, 3, 4),
+                LocalDateTime.of(1999, 12, 31, 23, 59, 59),
+                LocalDateTime.of(2024, 2, 29, 0, 0, 0, 123_000_000),
+                LocalDateTime.of(2024, 2, 29, 0, 0, 0, 1)
+        };
+        for (LocalDateTime sample : samples) {
+            String expected = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(sample);
+            assertEquals(expected, IsoDateTime.format(sample));
+            assertEquals(sample, IsoDateTime.parse(expected));
+        }
+    }
+
+    @Test
+    public void testEventListRoundTrip() throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(createSampleEvent(String.valueOf(i), LocalDateTime.of(2024, 5, 1, 10, 0, 0, i * 1_000_000).plusHours(i)));
+        }
+        events.add(new Event("nulls", "Only a title", null, null, null, 0, null, null, null, null));
+        events.add(new Event("escapes", "Quote \" and \\ \n Umlaut ä", "WORK", null, null, -5, "", "", "",
+                new ArrayList<>()));
+
+        List<Event> parsed = ResponseParser.parseEventList(codecGson.toJson(events, EVENT_LIST));
+
+        assertEquals(events.size(), parsed.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertSameEvent(events.get(i), parsed.get(i));
+        }
+    }
+
+    @Test
+    public void testTaskListRoundTrip() throws Exception {
+        List<Task> tasks = List.of(
+                new Task("1", "Aufgabe", Category.UNIVERSITY, "Beschreibung", Priority.URGENT_IMPORTANT),
+                new Task("2", "Ohne alles", null, null, Priority.NOT_URGENT_NOT_IMPORTANT));
+
+        List<Task> parsed = ResponseParser.parseTaskList(codecGson.toJson(tasks));
+
+        assertEquals(tasks.size(), parsed.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).getId(), parsed.get(i).getId());
+            assertEquals(tasks.get(i).getTitle(), parsed.get(i).getTitle());
+            assertEquals(tasks.get(i).getCategory(), parsed.get(i).getCategory());
+            assertEquals(tasks.get(i).getDescription(), parsed.get(i).getDescription());
+            assertEquals(tasks.get(i).getPriority(), parsed.get(i).getPriority());
+        }
+    }
+
+    private static void assertSameEvent(Event expected, Event actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getStartDateTime(), actual.getStartDateTime());
+        assertEquals(expected.getEndDateTime(), actual.getEndDateTime());
+        assertEquals(expected.getTravelTime(), actual.getTravelTime());
+        assertEquals(expected.getLocation(), actual.getLocation());
+        assertEquals(expected.getRepetition(), actual.getRepetition());
+        assertEquals(expected.getNotes(), actual.getNotes());
+        // Missing participants are read as an empty list
+        assertEquals(expected.getParticipants() == null ? List.of() : expected.getParticipants(),
+                actual.getParticipants());
+    }
+
+    private Event createSampleEvent(String id, LocalDateTime start) {
+        return new Event(id, "Event " + id, "WORK", start, start.plusHours(1), 30, "Berlin",
+                null, "Description of the event", List.of("John Doe", "Jane Doe"));
+    }
+}
@@ -2,21 +2,31 @@ package com.example.view;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 
 import androidx.test.core.app.ApplicationProvider;
 
 import com.example.view.model.calendar.Event;
+import com.example.view.model.repository.CloudOutbox;
 import com.example.view.model.repository.EventDatabaseHelper;
+import com.example.view.model.repository.SnapshotReconciler;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class EventDatabaseHelperTest {
 
@@ -25,8 +35,12 @@ public class EventDatabaseHelperTest {
     @Before
     public void setUp() {
         Context context = ApplicationProvider.getApplicationContext();
-        dbHelper = new EventDatabaseHelper(context);
+        dbHelper = EventDatabaseHelper.getInstance(context);
         dbHelper.onUpgrade(dbHelper.getWritableDatabase(), 1, 1); // Clean up the database
+        // Edits queued by earlier tests would shield their IDs from remote changes
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        CloudOutbox.remove(db, CloudOutbox.peek(db, Integer.MAX_VALUE).stream()
+                .map(CloudOutbox.Entry::getSequence).collect(Collectors.toList()));
     }
 
     @After
@@ -82,13 +96,202 @@ public class EventDatabaseHelperTest {
         assertEquals("Updated Meeting", events.get(0).getTitle());
     }
 
+    @Test
+    public void testGetEventsBetween() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 13, 0, 0);
+        dbHelper.insertEvent(createSampleEvent("1", "Same day", day.withHour(10), day.withHour(11)));
+        dbHelper.insertEvent(createSampleEvent("2", "Multi day", day.minusDays(2), day.plusHours(8)));
+        dbHelper.insertEvent(createSampleEvent("3", "Previous day", day.minusDays(1), day.minusHours(1)));
+        dbHelper.insertEvent(createSampleEvent("4", "Next day", day.plusDays(1), day.plusDays(1).plusHours(1)));
+
+        List<Event> events = dbHelper.getEventsBetween(day, day.plusDays(1));
+        assertEquals(2, events.size());
+        assertEquals("Multi day", events.get(0).getTitle());
+        assertEquals("Same day", events.get(1).getTitle());
+    }
+
+    @Test
+    public void testInsertAndDeleteEventsInBatch() {
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(createSampleEvent(String.valueOf(i), "Event " + i));
+        }
+
+        assertEquals(100, dbHelper.insertEvents(batch));
+        assertEquals(0, dbHelper.insertEvents(batch.subList(0, 10))); // Existing IDs are skipped
+        assertEquals(100, dbHelper.getAllEvents().size());
+
+        assertEquals(50, dbHelper.deleteEventsByIds(
+                batch.stream().limit(50).map(Event::getId).collect(Collectors.toList())));
+        assertEquals(50, dbHelper.getAllEvents().size());
+    }
+
+    @Test
+    public void testApplyRemoteChanges() {
+        dbHelper.insertEvents(List.of(createSampleEvent("1", "Old"), createSampleEvent("2", "Deleted remotely")));
+
+        boolean applied = dbHelper.applyRemoteChanges(
+                List.of(createSampleEvent("1", "Changed remotely"), createSampleEvent("3", "Created remotely")),
+                List.of("2"));
+
+        assertTrue(applied);
+        List<String> titles = dbHelper.getAllEvents().stream().map(Event::getTitle).collect(Collectors.toList());
+        assertEquals(2, titles.size());
+        assertTrue(titles.contains("Changed remotely"));
+        assertTrue(titles.contains("Created remotely"));
+    }
+
+    @Test
+    public void testApplyRemoteChangesKeepsQueuedLocalEdits() {
+        dbHelper.insertEvents(List.of(createSampleEvent("edited", "Old"), createSampleEvent("deleted", "Old")));
+        // Both edits are still waiting in the outbox
+        dbHelper.updateEvent(createSampleEvent("edited", "Edited locally"));
+        dbHelper.updateEvent(createSampleEvent("deleted", "Edited locally too"));
+
+        assertTrue(dbHelper.applyRemoteChanges(
+                List.of(createSampleEvent("edited", "Changed remotely"), createSampleEvent("new", "Created remotely")),
+                List.of("deleted")));
+
+        List<String> titles = dbHelper.getAllEvents().stream().map(Event::getTitle).collect(Collectors.toList());
+        assertTrue(titles.contains("Edited locally"));
+        assertTrue(titles.contains("Edited locally too"));
+        assertTrue(titles.contains("Created remotely"));
+        assertFalse(titles.contains("Changed remotely"));
+    }
+
+    @Test
+    public void testApplyRemoteChangesIgnoresUnknownDeletedIds() {
+        assertTrue(dbHelper.applyRemoteChanges(List.of(createSampleEvent("1", "Created remotely")),
+                List.of("never-downloaded")));
+        assertEquals(1, dbHelper.getAllEvents().size());
+    }
+
+    @Test
+    public void testApplyRemoteChangesReportsRolledBackDelete() {
+        dbHelper.insertEvents(List.of(createSampleEvent("1", "Old"), createSampleEvent("2", "Deleted remotely")));
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.execSQL("CREATE TEMP TRIGGER fail_delete BEFORE DELETE ON events BEGIN SELECT RAISE(ABORT, 'disk full'); END");
+        try {
+            boolean applied = dbHelper.applyRemoteChanges(
+                    List.of(createSampleEvent("1", "Changed remotely")), List.of("2"));
+
+            // The sync token must not move past changes that were never applied
+            assertFalse(applied);
+            List<String> titles = dbHelper.getAllEvents().stream().map(Event::getTitle).collect(Collectors.toList());
+            assertTrue(titles.contains("Old"));
+            assertTrue(titles.contains("Deleted remotely"));
+        } finally {
+            db.execSQL("DROP TRIGGER fail_delete");
+        }
+    }
+
+    @Test
+    public void testReconcileSnapshotWritesOnlyDiff() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Event unchanged = createSampleEvent("1", "Unchanged", start, start.plusHours(1));
+        dbHelper.insertEvents(List.of(unchanged, createSampleEvent("2", "Old", start, start.plusHours(1)),
+                createSampleEvent("3", "Deleted remotely", start, start.plusHours(1))));
+
+        SnapshotReconciler.Diff<Event> diff = dbHelper.reconcileSnapshot(List.of(unchanged,
+                createSampleEvent("2", "Changed remotely", start, start.plusHours(1)),
+                createSampleEvent("4", "Created remotely", start, start.plusHours(1))));
+
+        assertEquals(1, diff.getInserts().size());
+        assertEquals(1, diff.getUpdates().size());
+        assertEquals(List.of("3"), diff.getDeletes());
+        List<String> titles = dbHelper.getAllEvents().stream().map(Event::getTitle).collect(Collectors.toList());
+        assertEquals(3, titles.size());
+        assertTrue(titles.contains("Changed remotely"));
+
+        // A second refresh with the same data writes nothing
+        assertTrue(dbHelper.reconcileSnapshot(dbHelper.getAllEvents()).isEmpty());
+    }
+
+    @Test
+    public void testReconcileSnapshotKeepsProtectedIds() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        // Created locally and sent while the snapshot was downloading, so it is in neither
+        dbHelper.insertEvents(List.of(createSampleEvent("1", "Sent during download", start, start.plusHours(1)),
+                createSampleEvent("2", "Deleted remotely", start, start.plusHours(1))));
+
+        SnapshotReconciler.Diff<Event> diff = dbHelper.reconcileSnapshot(List.of(), Set.of("1"));
+
+        assertEquals(List.of("2"), diff.getDeletes());
+        assertEquals(List.of("Sent during download"),
+                dbHelper.getAllEvents().stream().map(Event::getTitle).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSnapshotChunksAreReconciledBeforeMissingEventsAreDeleted() {
+        // Missing events are deleted, so start from an empty table
+        dbHelper.deleteEventsByIds(dbHelper.getAllEvents().stream().map(Event::getId).collect(Collectors.toList()));
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 0);
+        dbHelper.insertEvents(List.of(createSampleEvent("1", "Old", start, start.plusHours(1)),
+                createSampleEvent("2", "Deleted remotely", start, start.plusHours(1))));
+
+        // Each chunk is committed on its own, nothing is deleted yet
+        assertEquals(2, dbHelper.reconcileSnapshotChunk(List.of(createSampleEvent("1", "Changed remotely", start,
+                start.plusHours(1)), createSampleEvent("3", "Created remotely", start, start.plusHours(1))), Set.of()));
+        assertEquals(3, dbHelper.countEvents());
+
+        assertEquals(1, dbHelper.deleteMissingFromSnapshot(Set.of("1", "3"), Set.of()));
+        assertEquals(List.of("Changed remotely", "Created remotely"), dbHelper.getAllEvents().stream()
+                .map(Event::getTitle).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testUpgradeFromTextTimestampsSkipsMalformedRows() {
+        // Schema of version 6, before timestamps were stored as epoch milliseconds
+        SQLiteDatabase legacy = SQLiteDatabase.create(null);
+        legacy.execSQL("CREATE TABLE events (_id TEXT PRIMARY KEY, title TEXT NOT NULL, " +
+                "start_time TEXT NOT NULL, end_time TEXT NOT NULL, location TEXT, travel_time INTEGER, " +
+                "repetition TEXT, description TEXT, category TEXT, participants TEXT)");
+        insertLegacyEvent(legacy, "ok", "2024-10-14T08:15", "2024-10-14T09:00");
+        insertLegacyEvent(legacy, "bad-start", "Montag 8 Uhr", "2024-10-14T09:00");
+        insertLegacyEvent(legacy, "bad-end", "2024-10-14T10:00", "");
+
+        dbHelper.onUpgrade(legacy, 6, 10);
+
+        ZoneId zone = ZoneId.systemDefault();
+        long okStart = LocalDateTime.of(2024, 10, 14, 8, 15).atZone(zone).toInstant().toEpochMilli();
+        long okEnd = LocalDateTime.of(2024, 10, 14, 9, 0).atZone(zone).toInstant().toEpochMilli();
+        long badEndStart = LocalDateTime.of(2024, 10, 14, 10, 0).atZone(zone).toInstant().toEpochMilli();
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = legacy.rawQuery("SELECT _id, start_millis, end_millis, time_zone FROM events " +
+                "ORDER BY start_millis", null)) {
+            while (cursor.moveToNext()) {
+                rows.add(cursor.getString(0) + " " + cursor.getLong(1) + " " + cursor.getLong(2) + " "
+                        + cursor.getString(3));
+            }
+        }
+        assertEquals(List.of("ok " + okStart + " " + okEnd + " " + zone.getId(),
+                "bad-end " + badEndStart + " " + badEndStart + " " + zone.getId()), rows);
+        // Tables added after version 6 exist as well
+        assertTrue(CloudOutbox.peek(legacy, 10).isEmpty());
+        legacy.close();
+    }
+
+    private static void insertLegacyEvent(SQLiteDatabase db, String id, String start, String end) {
+        ContentValues values = new ContentValues();
+        values.put("_id", id);
+        values.put("title", "Event " + id);
+        values.put("start_time", start);
+        values.put("end_time", end);
+        values.put("category", "Work");
+        db.insertOrThrow("events", null, values);
+    }
+
     private Event createSampleEvent(String id, String title) {
+        return createSampleEvent(id, title, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+    }
+
+    private Event createSampleEvent(String id, String title, LocalDateTime start, LocalDateTime end) {
         return new Event(
                 id,
                 title,
                 "Work",
-                LocalDateTime.now(),
-                LocalDateTime.now().plusHours(1),
+                start,
+                end,
                 30,
                 "Berlin",
                 "Weekly",
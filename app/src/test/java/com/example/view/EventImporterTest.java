@@ -0,0 +1,102 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.view.control.cloud.EventImporter;
+
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventImporterTest {
+
+    @Test
+    public void testChunksAreCommittedWhileTheStreamIsRead() throws IOException {
+        String json = events(500);
+        CountingReader reader = new CountingReader(new StringReader(json));
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Long> readAtCommit = new ArrayList<>();
+
+        int written = new EventImporter(chunk -> {
+            chunkSizes.add(chunk.size());
+            readAtCommit.add(reader.charsRead);
+            // One event per chunk has a pending local change and is skipped
+            return chunk.size() - 1;
+        }, 200).importEvents(reader);
+
+        assertEquals(List.of(200, 200, 100), chunkSizes);
+        assertEquals(497, written);
+        // The first chunks are written before the rest of the response has arrived
+        assertTrue("read " + readAtCommit.get(0) + " of " + json.length(), readAtCommit.get(0) < json.length() / 2);
+        assertTrue(readAtCommit.get(1) < json.length());
+    }
+
+    @Test
+    public void testRolledBackChunkStopsTheImport() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        EventImporter importer = new EventImporter(chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunkSizes.size() == 2 ? -1 : chunk.size();
+        }, 200);
+
+        try {
+            importer.importEvents(new StringReader(events(500)));
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected, the first chunk stays committed
+        }
+        assertEquals(List.of(200, 200), chunkSizes);
+    }
+
+    @Test(expected = IOException.class)
+    public void testEventWithoutTitleFailsTheImport() throws IOException {
+        new EventImporter(chunk -> chunk.size(), 200).importEvents(new StringReader("[{\"event_id\":\"1\"}]"));
+    }
+
+    private static String events(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"event_id\":\"").append(i).append("\",\"title\":\"Event ").append(i)
+                    .append("\",\"category\":\"work\",\"startDateTime\":\"2024-05-01T10:00:00\"")
+                    .append(",\"endDateTime\":\"2024-05-01T11:00:00\",\"travelTime\":\"15\"")
+                    .append(",\"participants\":[\"John Doe\"]}");
+        }
+        return json.append("]").toString();
+    }
+
+    private static final class CountingReader extends FilterReader {
+        private volatile long charsRead;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                charsRead++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                charsRead += n;
+            }
+            return n;
+        }
+    }
+}
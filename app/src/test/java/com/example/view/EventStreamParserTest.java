@@ -0,0 +1,57 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.view.control.cloud.ParsingAndSerializer.EventStreamParser;
+import com.example.view.model.calendar.Event;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventStreamParserTest {
+
+    @Test
+    public void testParsesEventsInChunks() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 450; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"event_id\":\"").append(i).append("\",\"title\":\"Event ").append(i)
+                    .append("\",\"category\":\"work\",\"startDateTime\":\"2024-05-01T10:00:00\"")
+                    .append(",\"endDateTime\":\"2024-05-01T11:00:00\",\"travelTime\":\"15\"")
+                    .append(",\"participants\":[\"John Doe\"]}");
+        }
+        json.append("]");
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Event> lastChunk = new ArrayList<>();
+        int count = EventStreamParser.parse(new StringReader(json.toString()), 200, chunk -> {
+            chunkSizes.add(chunk.size());
+            lastChunk.clear();
+            lastChunk.addAll(chunk);
+        });
+
+        assertEquals(450, count);
+        assertEquals(List.of(200, 200, 50), chunkSizes);
+        Event last = lastChunk.get(lastChunk.size() - 1);
+        assertEquals("449", last.getId());
+        assertEquals("WORK", last.getCategory());
+        assertEquals(15, last.getTravelTime());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), last.getStartDateTime());
+    }
+
+    @Test
+    public void testEmptyArrayProducesNoChunks() throws IOException {
+        List<Integer> chunkSizes = new ArrayList<>();
+        int count = EventStreamParser.parse(new StringReader("[]"), 10, chunk -> chunkSizes.add(chunk.size()));
+
+        assertEquals(0, count);
+        assertEquals(0, chunkSizes.size());
+    }
+}
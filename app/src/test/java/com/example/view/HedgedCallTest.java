@@ -0,0 +1,128 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.HedgedCall;
+import com.example.view.control.cloud.RestApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.POST;
+
+public class HedgedCallTest {
+
+    private static final long SLOW_MILLIS = 2_000L;
+
+    interface ShareApi {
+        @POST("share")
+        Call<ResponseBody> share(@Body RequestBody event);
+    }
+
+    private MockWebServer server;
+    private RestApiService.ApiService apiService;
+    private ShareApi shareApi;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse().setBody("attempt " + requests.incrementAndGet());
+                if (requests.get() == 1) {
+                    // First attempt hits a slow server thread
+                    response.setHeadersDelay(SLOW_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                return response;
+            }
+        });
+        server.start();
+
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .build();
+        apiService = retrofit.create(RestApiService.ApiService.class);
+        shareApi = retrofit.create(ShareApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testHedgeCutsTailLatency() throws Exception {
+        long startNanos = System.nanoTime();
+        HedgedCall.enqueue(apiService.getSharedEvent("42"), 100L, collector());
+
+        Object result = results.poll(5, TimeUnit.SECONDS);
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertEquals("attempt 2", result);
+        assertTrue("Hedged call took " + latencyMillis + " ms", latencyMillis < SLOW_MILLIS / 2);
+        // Loser is cancelled and never delivered
+        assertEquals(null, results.poll(SLOW_MILLIS + 500, TimeUnit.MILLISECONDS));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testWithoutHedgeSlowAttemptDecides() throws Exception {
+        long startNanos = System.nanoTime();
+        HedgedCall.enqueue(apiService.getSharedEvent("42"), 10 * SLOW_MILLIS, collector());
+
+        assertEquals("attempt 1", results.poll(5, TimeUnit.SECONDS));
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        assertTrue(latencyMillis >= SLOW_MILLIS);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testWritesAreNeverHedged() throws Exception {
+        RequestBody event = RequestBody.create(MediaType.get("application/json"), "{}");
+        HedgedCall.enqueue(shareApi.share(event), 100L, collector());
+
+        assertEquals("attempt 1", results.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+    }
+
+    private Callback<ResponseBody> collector() {
+        return new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                try {
+                    results.add(response.body().string());
+                } catch (Exception e) {
+                    results.add(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                results.add(t);
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.IdempotencyKeys;
+import com.example.view.control.cloud.InFlightRequests;
+import com.example.view.control.cloud.RestApiService;
+import com.example.view.model.todo.Category;
+import com.example.view.model.todo.Priority;
+import com.example.view.model.todo.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class IdempotencyTest {
+
+    private MockWebServer server;
+    private RestApiService.ApiService apiService;
+
+    // Server-Ersatz: führt jeden Idempotency-Key nur einmal aus
+    private final Set<String> appliedKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger appliedWrites = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String key = request.getHeader(IdempotencyKeys.HEADER);
+                if (key == null || appliedKeys.add(key)) {
+                    appliedWrites.incrementAndGet();
+                }
+                return new MockResponse().setResponseCode(200).setHeadersDelay(200, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(RestApiService.ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testRepeatedWriteGetsNewKeyAndIsApplied() throws Exception {
+        Task a = new Task("1", "Aufgabe", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT);
+        Task b = new Task("1", "Geändert", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT);
+
+        // A, B und wieder A: jede Änderung ist gewollt und muss beim Server ankommen
+        for (Task task : new Task[]{a, b, a}) {
+            CountDownLatch response = new CountDownLatch(1);
+            InFlightRequests.enqueue(IdempotencyKeys.forContent("PUT tasks", "uuid", RestApiService.toJson(task)),
+                    key -> apiService.sendUpdatedTodo(task, "uuid", key), countingDown(response));
+            assertTrue(response.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(3, appliedKeys.size());
+        assertEquals(3, appliedWrites.get());
+    }
+
+    @Test
+    public void testRetryOfSameCallKeepsKey() throws Exception {
+        Task task = new Task("1", "Aufgabe", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT);
+        List<Call<ResponseBody>> sent = new ArrayList<>();
+        CountDownLatch response = new CountDownLatch(1);
+        InFlightRequests.enqueue(IdempotencyKeys.forContent("POST tasks", "uuid", RestApiService.toJson(task)), key -> {
+            Call<ResponseBody> call = apiService.sendNewToDo(task, "uuid", key);
+            sent.add(call);
+            return call;
+        }, countingDown(response));
+        assertTrue(response.await(5, TimeUnit.SECONDS));
+
+        // Antwort ging verloren, der Aufruf wird wiederholt
+        assertTrue(sent.get(0).clone().execute().isSuccessful());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, appliedWrites.get());
+    }
+
+    @Test
+    public void testIdenticalInFlightRequestsAreSentOnce() throws Exception {
+        Task task = new Task("1", "Aufgabe", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT);
+        String contentKey = IdempotencyKeys.forContent("POST tasks", "uuid", RestApiService.toJson(task));
+        CountDownLatch responses = new CountDownLatch(2);
+        Callback<ResponseBody> callback = countingDown(responses);
+
+        assertTrue(InFlightRequests.enqueue(contentKey, key -> apiService.sendNewToDo(task, "uuid", key), callback));
+        assertFalse(InFlightRequests.enqueue(contentKey, key -> apiService.sendNewToDo(task, "uuid", key), callback));
+
+        assertTrue(responses.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, appliedWrites.get());
+    }
+
+    private static Callback<ResponseBody> countingDown(CountDownLatch latch) {
+        return new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.view;
+
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link SharedPreferences} backed by a map, for classes under test that only need to store a few
+ * values. Edits are applied at once on both {@link Editor#apply()} and {@link Editor#commit()};
+ * change listeners are not supported.
+ */
+public class InMemoryPreferences implements SharedPreferences {
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        return get(key, defValue);
+    }
+
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        return get(key, defValues);
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        return get(key, defValue);
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        return get(key, defValue);
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        return get(key, defValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        return get(key, defValue);
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new InMemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T get(String key, T defValue) {
+        return values.containsKey(key) ? (T) values.get(key) : defValue;
+    }
+
+    private class InMemoryEditor implements Editor {
+
+        private final Map<String, Object> changes = new HashMap<>();
+        private final Set<String> removals = new HashSet<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            return put(key, values == null ? null : new HashSet<>(values));
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor remove(String key) {
+            removals.add(key);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            synchronized (InMemoryPreferences.this) {
+                if (clear) {
+                    values.clear();
+                }
+                for (String key : removals) {
+                    values.remove(key);
+                }
+                for (Map.Entry<String, Object> change : changes.entrySet()) {
+                    if (change.getValue() == null) {
+                        // Like SharedPreferences, putting null removes the key
+                        values.remove(change.getKey());
+                    } else {
+                        values.put(change.getKey(), change.getValue());
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+
+        private Editor put(String key, Object value) {
+            changes.put(key, value);
+            return this;
+        }
+    }
+}
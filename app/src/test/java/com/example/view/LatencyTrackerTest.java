@@ -0,0 +1,45 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.view.control.cloud.LatencyTracker;
+
+import org.junit.Test;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testUsesMaximumTimeoutUntilEnoughSamples() {
+        LatencyTracker tracker = new LatencyTracker(1_000L, 20_000L);
+        for (int i = 0; i < 10; i++) {
+            tracker.record("getAllToDo", 100);
+        }
+        assertEquals(-1, tracker.percentile("getAllToDo", 0.95));
+        assertEquals(20_000L, tracker.timeoutMillis("getAllToDo"));
+    }
+
+    @Test
+    public void testPercentilesOfRecentCalls() {
+        LatencyTracker tracker = new LatencyTracker(1_000L, 20_000L);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record("getSharedEvent", i * 10);
+        }
+        // Only the last 64 calls (370..1000 ms) are kept
+        assertEquals(370, tracker.percentile("getSharedEvent", 0));
+        assertEquals(680, tracker.percentile("getSharedEvent", 0.5));
+        assertEquals(970, tracker.percentile("getSharedEvent", 0.95));
+    }
+
+    @Test
+    public void testTimeoutFollowsLatencyWithinBounds() {
+        LatencyTracker tracker = new LatencyTracker(1_000L, 5_000L);
+        for (int i = 0; i < 64; i++) {
+            tracker.record("fast", 100);
+            tracker.record("medium", 600);
+            tracker.record("slow", 4_000);
+        }
+        assertEquals(1_000L, tracker.timeoutMillis("fast"));
+        assertEquals(1_800L, tracker.timeoutMillis("medium"));
+        assertEquals(5_000L, tracker.timeoutMillis("slow"));
+    }
+}
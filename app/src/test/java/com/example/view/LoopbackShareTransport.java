@@ -0,0 +1,83 @@
+package com.example.view;
+
+import com.example.view.control.bluetooth.ShareConnection;
+import com.example.view.control.bluetooth.ShareTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * {@link ShareTransport} over TCP on the loopback interface, so sharing can be run and measured
+ * on any machine. Like a room with one device in receive mode, there is one receiver per
+ * transport: {@link #listen()} binds a free port and every address connects to it. TCP is used
+ * rather than in-memory pipes because it has real socket buffers and close semantics.
+ */
+public class LoopbackShareTransport implements ShareTransport {
+
+    private volatile int port = -1;
+
+    @Override
+    public ShareConnection connect(String address) throws IOException {
+        if (port < 0) {
+            throw new ConnectException("No receiver is listening for " + address);
+        }
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        // Frames are flushed as a whole, Nagle would only delay the acks
+        socket.setTcpNoDelay(true);
+        return new SocketConnection(socket);
+    }
+
+    @Override
+    public Acceptor listen() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        port = serverSocket.getLocalPort();
+        return new Acceptor() {
+            @Override
+            public ShareConnection accept() throws IOException {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                return new SocketConnection(socket);
+            }
+
+            @Override
+            public void close() throws IOException {
+                port = -1;
+                serverSocket.close();
+            }
+        };
+    }
+
+    private static final class SocketConnection implements ShareConnection {
+
+        private final Socket socket;
+
+        SocketConnection(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return socket.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !socket.isClosed();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.BatchRequest;
+import com.example.view.control.cloud.OutboxCoalescer;
+import com.example.view.control.cloud.OutboxSender;
+import com.example.view.control.cloud.RestApiService;
+import com.example.view.model.repository.CloudOutbox;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class OutboxCoalescerTest {
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testCreateThenDeleteCancelsOut() {
+        OutboxCoalescer.Result result = OutboxCoalescer.coalesce(Arrays.asList(
+                entry(1, CloudOutbox.OPERATION_CREATE, "a", "{\"id\":\"a\"}"),
+                entry(2, CloudOutbox.OPERATION_UPDATE, "a", "{\"id\":\"a\",\"task\":\"x\"}"),
+                entry(3, CloudOutbox.OPERATION_DELETE, "a", null)));
+
+        assertTrue(result.getOperations().isEmpty());
+        assertEquals(Arrays.asList(1L, 2L, 3L), result.getCancelledSequences());
+    }
+
+    @Test
+    public void testRepeatedUpdatesKeepLastPayload() {
+        OutboxCoalescer.Result result = OutboxCoalescer.coalesce(Arrays.asList(
+                entry(1, CloudOutbox.OPERATION_UPDATE, "a", "{\"task\":\"first\"}"),
+                entry(2, CloudOutbox.OPERATION_CREATE, "b", "{\"task\":\"other\"}"),
+                entry(3, CloudOutbox.OPERATION_UPDATE, "a", "{\"task\":\"last\"}")));
+
+        List<OutboxCoalescer.Operation> operations = result.getOperations();
+        assertEquals(2, operations.size());
+        assertEquals("a", operations.get(0).getEntityId());
+        assertEquals(CloudOutbox.OPERATION_UPDATE, operations.get(0).getOperation());
+        assertEquals("{\"task\":\"last\"}", operations.get(0).getPayload());
+        assertEquals(Arrays.asList(1L, 3L), operations.get(0).getSequences());
+        assertEquals(CloudOutbox.OPERATION_CREATE, operations.get(1).getOperation());
+    }
+
+    @Test
+    public void testCreateThenUpdateStaysCreate() {
+        OutboxCoalescer.Result result = OutboxCoalescer.coalesce(Arrays.asList(
+                entry(1, CloudOutbox.OPERATION_CREATE, "a", "{\"task\":\"first\"}"),
+                entry(2, CloudOutbox.OPERATION_UPDATE, "a", "{\"task\":\"second\"}")));
+
+        assertEquals(1, result.getOperations().size());
+        assertEquals(CloudOutbox.OPERATION_CREATE, result.getOperations().get(0).getOperation());
+        assertEquals("{\"task\":\"second\"}", result.getOperations().get(0).getPayload());
+    }
+
+    @Test
+    public void testDeletesAreSentInOneBatchRequest() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        // Wie deleteAllTasks: viele Löschungen, die früher einzeln gesendet wurden
+        CloudOutbox.Entry[] entries = new CloudOutbox.Entry[200];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = entry(i + 1, CloudOutbox.OPERATION_DELETE, "task-" + i, null);
+        }
+        OutboxCoalescer.Result result = OutboxCoalescer.coalesce(Arrays.asList(entries));
+
+        RestApiService.ApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(RestApiService.ApiService.class);
+        List<Long> removed = new ArrayList<>();
+        boolean sent = new OutboxSender(apiService, "uuid").send(result.getOperations(), new OutboxSender.Outbox() {
+            @Override
+            public void remove(List<Long> sequences) {
+                removed.addAll(sequences);
+            }
+
+            @Override
+            public void markSent(List<Long> sequences) {
+            }
+        });
+
+        // The drainer peeks this many entries per round
+        assertTrue(entries.length <= OutboxSender.MAX_BATCH_SIZE);
+        assertTrue(sent);
+        assertEquals(entries.length, removed.size());
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/api/batch?param=uuid", request.getPath());
+        assertEquals(BatchRequest.from(result.getOperations()).getIdempotencyKey(), request.getHeader("Idempotency-Key"));
+
+        JsonArray operations = new JsonParser().parse(request.getBody().readUtf8())
+                .getAsJsonObject().getAsJsonArray("operations");
+        assertEquals(200, operations.size());
+        JsonObject first = operations.get(0).getAsJsonObject();
+        assertEquals(CloudOutbox.ENTITY_TASK, first.get("entity").getAsString());
+        assertEquals(CloudOutbox.OPERATION_DELETE, first.get("operation").getAsString());
+        assertEquals("task-0", first.get("id").getAsString());
+        assertEquals("key-1", first.get("idempotencyKey").getAsString());
+    }
+
+    @Test
+    public void testSentOperationIsReplayedUnchanged() {
+        OutboxCoalescer.Result result = OutboxCoalescer.coalesce(Arrays.asList(
+                new CloudOutbox.Entry(1, CloudOutbox.ENTITY_TASK, CloudOutbox.OPERATION_CREATE, "a",
+                        "{\"id\":\"a\"}", 1, 0, "key-1", true),
+                entry(2, CloudOutbox.OPERATION_DELETE, "a", null)));
+
+        // The create may already exist in the cloud, so it must not cancel out
+        List<OutboxCoalescer.Operation> operations = result.getOperations();
+        assertEquals(2, operations.size());
+        assertEquals(CloudOutbox.OPERATION_CREATE, operations.get(0).getOperation());
+        assertEquals("key-1", operations.get(0).getIdempotencyKey());
+        assertEquals(CloudOutbox.OPERATION_DELETE, operations.get(1).getOperation());
+        assertTrue(result.getCancelledSequences().isEmpty());
+    }
+
+    private static CloudOutbox.Entry entry(long sequence, String operation, String id, String payload) {
+        return new CloudOutbox.Entry(sequence, CloudOutbox.ENTITY_TASK, operation, id, payload, 0, 0,
+                "key-" + sequence, false);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.CircuitBreaker;
+import com.example.view.control.cloud.OutboxCoalescer;
+import com.example.view.control.cloud.OutboxDrainer;
+import com.example.view.control.cloud.OutboxSender;
+import com.example.view.control.cloud.RestApiService;
+import com.example.view.control.cloud.TokenBucket;
+import com.example.view.model.repository.CloudOutbox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class OutboxDrainerTest {
+
+    private MockWebServer server;
+    private final List<Long> removed = new ArrayList<>();
+    private final List<Long> markedSent = new ArrayList<>();
+    private final OutboxSender.Outbox outbox = new OutboxSender.Outbox() {
+        @Override
+        public void remove(List<Long> sequences) {
+            removed.addAll(sequences);
+        }
+
+        @Override
+        public void markSent(List<Long> sequences) {
+            markedSent.addAll(sequences);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testOpenCircuitLeavesOperationUnsent() {
+        RestApiService.ApiService apiService = apiService(new OkHttpClient.Builder()
+                .addInterceptor(new CircuitBreaker(1, 60_000L, 60_000L)).build());
+        server.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals(503, OutboxSender.execute(apiService.deleteEventInCloud("1", "uuid", "key-1"), "delete 1"));
+
+        // Not "maybe delivered", so the entry is neither marked as sent nor excluded from coalescing
+        assertEquals(OutboxSender.NOT_SENT,
+                OutboxSender.execute(apiService.deleteEventInCloud("1", "uuid", "key-1"), "delete 1"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testRateLimitedOperationIsUnsent() {
+        RestApiService.ApiService apiService = apiService(new OkHttpClient.Builder()
+                .addInterceptor(new TokenBucket(1, 0.1)).build());
+        server.enqueue(new MockResponse().setResponseCode(204));
+        assertEquals(204, OutboxSender.execute(apiService.deleteEventInCloud("1", "uuid", "key-1"), "delete 1"));
+
+        assertEquals(OutboxSender.NOT_SENT,
+                OutboxSender.execute(apiService.deleteEventInCloud("2", "uuid", "key-2"), "delete 2"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testLostResponseMayHaveBeenDelivered() {
+        RestApiService.ApiService apiService = apiService(new OkHttpClient());
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        assertEquals(0, OutboxSender.execute(apiService.deleteEventInCloud("1", "uuid", "key-1"), "delete 1"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testRejectedBatchDropsOnlyOffendingOperation() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400));
+        server.enqueue(new MockResponse().setResponseCode(204));
+        server.enqueue(new MockResponse().setResponseCode(400));
+        server.enqueue(new MockResponse().setResponseCode(204));
+        OutboxSender sender = new OutboxSender(apiService(new OkHttpClient()), "uuid");
+
+        assertTrue(sender.send(deletes("a", "b", "c"), outbox));
+
+        assertEquals("/api/batch?param=uuid", server.takeRequest().getPath());
+        assertDelete("a", server.takeRequest());
+        assertDelete("b", server.takeRequest());
+        assertDelete("c", server.takeRequest());
+        assertEquals(Arrays.asList(1L, 2L, 3L), removed);
+        assertEquals(3, sender.getSentCount());
+    }
+
+    @Test
+    public void testTransientFailureAfterRejectedBatchKeepsTheRest() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(422));
+        server.enqueue(new MockResponse().setResponseCode(204));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        OutboxSender sender = new OutboxSender(apiService(new OkHttpClient()), "uuid");
+
+        assertFalse(sender.send(deletes("a", "b", "c"), outbox));
+
+        // "c" is never sent, so it cannot overtake "b"
+        assertEquals(3, server.getRequestCount());
+        assertEquals(Arrays.asList(1L), removed);
+        assertEquals(Arrays.asList(2L), markedSent);
+    }
+
+    @Test
+    public void testAcceptedBatchRemovesAllEntries() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        OutboxSender sender = new OutboxSender(apiService(new OkHttpClient()), "uuid");
+
+        assertTrue(sender.send(deletes("a", "b"), outbox));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(Arrays.asList(1L, 2L), removed);
+        assertEquals(2, sender.getSentCount());
+    }
+
+    @Test
+    public void testRetryBackoffGrowsUpToTheCap() {
+        for (int attempts = 1; attempts <= 30; attempts++) {
+            long ceiling = Math.min(2_000L << Math.min(attempts - 1, 20), 10 * 60_000L);
+            long backoff = OutboxDrainer.backoffMillis(attempts);
+            // Jitter stays in the upper half, so a retry never comes earlier than half the ceiling
+            assertTrue("attempt " + attempts + ": " + backoff, backoff >= ceiling / 2 && backoff <= ceiling);
+        }
+    }
+
+    private static List<OutboxCoalescer.Operation> deletes(String... ids) {
+        List<CloudOutbox.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            entries.add(new CloudOutbox.Entry(i + 1, CloudOutbox.ENTITY_TASK, CloudOutbox.OPERATION_DELETE,
+                    ids[i], null, 0, 0, "key-" + (i + 1), false));
+        }
+        return OutboxCoalescer.coalesce(entries).getOperations();
+    }
+
+    private static void assertDelete(String id, RecordedRequest request) {
+        assertEquals("DELETE", request.getMethod());
+        assertEquals(id, request.getRequestUrl().queryParameter("idOfDeletedTask"));
+    }
+
+    private RestApiService.ApiService apiService(OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(RestApiService.ApiService.class);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.Page;
+import com.example.view.control.cloud.PagedDownloader;
+import com.example.view.control.cloud.RestApiService;
+import com.example.view.model.todo.Category;
+import com.example.view.model.todo.Priority;
+import com.example.view.model.todo.Task;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class PagedDownloaderTest {
+
+    private static final Type TASK_PAGE = new TypeToken<Page<Task>>() {}.getType();
+    private static final int TASK_COUNT = 1050;
+
+    private MockWebServer server;
+    private RestApiService.ApiService apiService;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger largestPage = new AtomicInteger();
+    private volatile boolean includeTotal = true;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    HttpUrl url = request.getRequestUrl();
+                    int page = Integer.parseInt(url.queryParameter("page"));
+                    int limit = Integer.parseInt(url.queryParameter("limit"));
+                    Thread.sleep(50);
+                    return new MockResponse().setBody(page(page, limit))
+                            .setHeader("Sync-Token", "token-" + page);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(RestApiService.ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testPagesAreFetchedWithBoundedParallelism() throws Exception {
+        Set<String> committed = ConcurrentHashMap.newKeySet();
+        List<Integer> commitOrder = new ArrayList<>();
+
+        int downloaded = new PagedDownloader(100, 3).download(TASK_PAGE,
+                (page, limit) -> apiService.getToDoPage("uuid", page, limit),
+                (int page, List<Task> tasks) -> {
+                    synchronized (commitOrder) {
+                        commitOrder.add(page);
+                    }
+                    largestPage.accumulateAndGet(tasks.size(), Math::max);
+                    for (Task task : tasks) {
+                        committed.add(task.getId());
+                    }
+                });
+
+        assertEquals(TASK_COUNT, downloaded);
+        assertEquals(TASK_COUNT, committed.size());
+        assertEquals(11, server.getRequestCount());
+        // First screenful is committed before the other pages are requested
+        assertEquals(Integer.valueOf(0), commitOrder.get(0));
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(largestPage.get() <= 100);
+    }
+
+    @Test
+    public void testPagesAreWalkedWithoutTotal() throws Exception {
+        includeTotal = false;
+        AtomicInteger committed = new AtomicInteger();
+
+        int downloaded = new PagedDownloader(100, 3).download(TASK_PAGE,
+                (page, limit) -> apiService.getToDoPage("uuid", page, limit),
+                (int page, List<Task> tasks) -> committed.addAndGet(tasks.size()));
+
+        assertEquals(TASK_COUNT, downloaded);
+        assertEquals(TASK_COUNT, committed.get());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    public void testSyncTokenOfFirstPageIsKept() throws Exception {
+        PagedDownloader downloader = new PagedDownloader(100, 3);
+
+        downloader.download(TASK_PAGE,
+                (page, limit) -> apiService.getToDoPage("uuid", page, limit),
+                (int page, List<Task> tasks) -> {
+                });
+
+        // Later pages may be served from a newer state, only the first one is a safe starting point
+        assertEquals("token-0", downloader.getSyncToken());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailedPageAbortsDownload() throws Exception {
+        new PagedDownloader(100, 3).download(TASK_PAGE,
+                (page, limit) -> apiService.getToDoPage("uuid", page == 5 ? -1 : page, limit),
+                (int page, List<Task> tasks) -> {
+                });
+    }
+
+    private String page(int page, int limit) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Unknown page");
+        }
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        int end = Math.min(TASK_COUNT, (page + 1) * limit);
+        for (int i = page * limit; i < end; i++) {
+            if (i > page * limit) {
+                json.append(',');
+            }
+            json.append(RestApiService.toJson(new Task("task-" + i, "Aufgabe " + i, Category.WORK,
+                    "Beschreibung", Priority.URGENT_IMPORTANT)));
+        }
+        json.append(']');
+        if (includeTotal) {
+            json.append(",\"total\":").append(TASK_COUNT);
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.bluetooth.BatchedEventWriter;
+import com.example.view.control.bluetooth.PeerConnection;
+import com.example.view.control.bluetooth.ReceiveServer;
+import com.example.view.control.bluetooth.ShareConnection;
+import com.example.view.model.calendar.Event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PeerConnectionTest {
+
+    private final AtomicInteger dials = new AtomicInteger();
+    private final AtomicInteger shares = new AtomicInteger();
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final List<Event> storedVersions = Collections.synchronizedList(new ArrayList<>());
+    private final BlockingQueue<PipedInputStream> serverInputs = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService idleScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final BatchedEventWriter writer = new BatchedEventWriter(payloads -> {
+        int[] inserted = new int[payloads.size()];
+        for (int i = 0; i < payloads.size(); i++) {
+            storedVersions.addAll(payloads.get(i));
+            for (Event event : payloads.get(i)) {
+                stored.add(event.getId());
+            }
+            inserted[i] = payloads.get(i).size();
+        }
+        return inserted;
+    });
+
+    private final ReceiveServer server = new ReceiveServer(writer, new ReceiveServer.Listener() {
+        @Override
+        public void onEventReceived(Event event) {
+            shares.incrementAndGet();
+        }
+
+        @Override
+        public void onBatchReceived(int count) {
+            shares.incrementAndGet();
+        }
+
+        @Override
+        public void onLegacyShare(String idOfSharedEvent) {
+        }
+    });
+
+    @After
+    public void tearDown() {
+        writer.stop();
+        idleScheduler.shutdownNow();
+    }
+
+    @Test
+    public void testRepeatedSharesReuseTheConnection() throws Exception {
+        writer.start();
+        PeerConnection peer = new PeerConnection("AA:BB", this::dial, idleScheduler, 60_000L);
+        for (int i = 0; i < 3; i++) {
+            assertNull(share(peer, Collections.singletonList(event("e" + i, "v1"))));
+        }
+        assertEquals(1, dials.get());
+        assertEquals(3, awaitShares(3));
+        assertEquals(3, stored.size());
+    }
+
+    @Test
+    public void testSharesQueuedDuringASendAreCoalesced() throws Exception {
+        writer.start();
+        PeerConnection peer = new PeerConnection("AA:BB", this::dial, idleScheduler, 60_000L);
+        CountDownLatch done = new CountDownLatch(11);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        PeerConnection.ShareCallback callback = (count, error) -> {
+            delivered.add(error == null ? count : -1);
+            done.countDown();
+        };
+        peer.share(events("first", 200), callback);
+        for (int i = 0; i < 10; i++) {
+            // The same event shared again is only sent in its latest version
+            peer.share(Collections.singletonList(event("edited", "v" + i)), callback);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        // Each share reports its own events, not the merged batch
+        assertEquals(Integer.valueOf(200), delivered.get(0));
+        assertEquals(Collections.nCopies(10, 1), delivered.subList(1, 11));
+
+        // The first share may already be in flight when the edits are queued
+        assertTrue("shares " + shares.get(), shares.get() <= 2);
+        assertEquals(201, stored.size());
+        Event last = storedVersions.get(storedVersions.size() - 1);
+        assertEquals("edited", last.getId());
+        assertEquals("v9", last.getTitle());
+    }
+
+    @Test
+    public void testDeadPooledConnectionIsReplaced() throws Exception {
+        writer.start();
+        PeerConnection peer = new PeerConnection("AA:BB", this::dial, idleScheduler, 60_000L);
+        assertNull(share(peer, Collections.singletonList(event("before", "v1"))));
+
+        // Receiver went away, e.g. receive mode was closed and reopened
+        serverInputs.take().close();
+
+        assertNull(share(peer, Collections.singletonList(event("after", "v1"))));
+        assertEquals(2, dials.get());
+        assertTrue(stored.contains("after"));
+    }
+
+    @Test
+    public void testIdleConnectionIsClosed() throws Exception {
+        writer.start();
+        PeerConnection peer = new PeerConnection("AA:BB", this::dial, idleScheduler, 50L);
+        assertNull(share(peer, Collections.singletonList(event("a", "v1"))));
+        Thread.sleep(200);
+        assertNull(share(peer, Collections.singletonList(event("b", "v1"))));
+        assertEquals(2, dials.get());
+    }
+
+    /**
+     * The receiver acks before it notifies its listener, so the count may lag behind the callback.
+     */
+    private int awaitShares(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shares.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return shares.get();
+    }
+
+    private IOException share(PeerConnection peer, List<Event> events) throws InterruptedException {
+        BlockingQueue<Object> result = new LinkedBlockingQueue<>();
+        peer.share(events, (delivered, error) -> result.add(error != null ? error : delivered));
+        Object outcome = result.poll(10, TimeUnit.SECONDS);
+        return outcome instanceof IOException ? (IOException) outcome : null;
+    }
+
+    /**
+     * Connects to a {@link ReceiveServer} through pipes, one server thread per connection.
+     */
+    private ShareConnection dial() throws IOException {
+        dials.incrementAndGet();
+        PipedInputStream serverIn = new PipedInputStream(256 * 1024);
+        PipedOutputStream clientOut = new PipedOutputStream(serverIn);
+        PipedInputStream clientIn = new PipedInputStream(256 * 1024);
+        PipedOutputStream serverOut = new PipedOutputStream(clientIn);
+        serverInputs.add(serverIn);
+
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.handle(serverIn, serverOut);
+                serverOut.close();
+            } catch (IOException e) {
+                // Connection closed by one of the tests
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        return new ShareConnection() {
+            private volatile boolean open = true;
+
+            @Override
+            public InputStream getInputStream() {
+                return clientIn;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return clientOut;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() throws IOException {
+                open = false;
+                clientOut.close();
+                clientIn.close();
+            }
+        };
+    }
+
+    private static List<Event> events(String prefix, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(event(prefix + "-" + i, "v1"));
+        }
+        return events;
+    }
+
+    private static Event event(String id, String title) {
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 15);
+        return new Event(id, title, "Team", start, start.plusMinutes(30), 0, "", "Keine", "",
+                new ArrayList<>());
+    }
+}
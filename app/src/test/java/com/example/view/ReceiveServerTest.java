@@ -0,0 +1,286 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.view.control.bluetooth.BatchSender;
+import com.example.view.control.bluetooth.BatchedEventWriter;
+import com.example.view.control.bluetooth.ReceiveServer;
+import com.example.view.control.bluetooth.ShareConnection;
+import com.example.view.control.bluetooth.ShareProtocol;
+import com.example.view.model.calendar.Event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReceiveServerTest {
+
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final AtomicInteger batchesReceived = new AtomicInteger();
+    private final List<Event> singleEvents = new ArrayList<>();
+    private final List<String> legacyShares = new ArrayList<>();
+
+    private final BatchedEventWriter writer = new BatchedEventWriter(payloads -> {
+        transactions.incrementAndGet();
+        sleep(10);
+        int[] inserted = new int[payloads.size()];
+        for (int i = 0; i < payloads.size(); i++) {
+            for (Event event : payloads.get(i)) {
+                if (stored.add(event.getId())) {
+                    inserted[i]++;
+                }
+            }
+        }
+        return inserted;
+    });
+
+    private final ReceiveServer server = new ReceiveServer(writer, new ReceiveServer.Listener() {
+        @Override
+        public void onEventReceived(Event event) {
+            synchronized (singleEvents) {
+                singleEvents.add(event);
+            }
+        }
+
+        @Override
+        public void onBatchReceived(int count) {
+            batchesReceived.incrementAndGet();
+        }
+
+        @Override
+        public void onLegacyShare(String idOfSharedEvent) {
+            legacyShares.add(idOfSharedEvent);
+        }
+    });
+
+    @After
+    public void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    public void testTeamPushesToOneDeviceAtOnce() throws Exception {
+        writer.start();
+        int senders = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(2 * senders);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int s = 0; s < senders; s++) {
+            List<Event> events = events("sender" + s, 120);
+            PipedInputStream serverIn = new PipedInputStream(256 * 1024);
+            PipedOutputStream clientOut = new PipedOutputStream(serverIn);
+            PipedInputStream clientIn = new PipedInputStream(256 * 1024);
+            PipedOutputStream serverOut = new PipedOutputStream(clientIn);
+
+            results.add(pool.submit(() -> {
+                server.handle(serverIn, serverOut);
+                return null;
+            }));
+            results.add(pool.submit(() -> {
+                go.await();
+                new BatchSender(20, 4).send(events, clientIn, clientOut);
+                // The receiver keeps serving the connection until the sender closes it
+                clientOut.close();
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> result : results) {
+            result.get(20, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(senders * 120, stored.size());
+        assertEquals(senders, batchesReceived.get());
+        // 36 chunks arrive concurrently, the single writer merges them into fewer commits
+        assertTrue("transactions " + transactions.get(), transactions.get() < senders * 6);
+    }
+
+    @Test
+    public void testSingleEventIsStoredAndAcknowledged() throws Exception {
+        writer.start();
+        PipedInputStream serverIn = new PipedInputStream();
+        PipedOutputStream clientOut = new PipedOutputStream(serverIn);
+        PipedInputStream clientIn = new PipedInputStream();
+        PipedOutputStream serverOut = new PipedOutputStream(clientIn);
+
+        Event event = events("single", 1).get(0);
+        ShareProtocol.writeEvent(clientOut, event);
+        clientOut.close();
+        server.handle(serverIn, serverOut);
+
+        assertTrue(ShareProtocol.readAck(clientIn));
+        assertTrue(stored.contains(event.getId()));
+        assertEquals(event.getId(), singleEvents.get(0).getId());
+    }
+
+    @Test
+    public void testRepeatedPayloadCountsOnlyNewEvents() {
+        writer.start();
+        List<Event> first = events("repeat", 3);
+        List<Event> overlapping = new ArrayList<>(first.subList(1, 3));
+        overlapping.addAll(events("other", 2));
+
+        assertEquals(3, writer.write(first));
+        assertEquals(0, writer.write(first));
+        assertEquals(2, writer.write(overlapping));
+    }
+
+    @Test
+    public void testFailedStoreIsAnsweredWithError() throws Exception {
+        BatchedEventWriter failingWriter = new BatchedEventWriter(payloads -> null);
+        failingWriter.start();
+        try {
+            ReceiveServer failingServer = new ReceiveServer(failingWriter, new ReceiveServer.Listener() {
+                @Override
+                public void onEventReceived(Event event) {
+                    singleEvents.add(event);
+                }
+
+                @Override
+                public void onBatchReceived(int count) {
+                }
+
+                @Override
+                public void onLegacyShare(String idOfSharedEvent) {
+                }
+            });
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            ShareProtocol.writeEvent(request, events("single", 1).get(0));
+            ByteArrayOutputStream answer = new ByteArrayOutputStream();
+
+            try {
+                failingServer.handle(new ByteArrayInputStream(request.toByteArray()), answer);
+                fail("A lost event must not be reported as received");
+            } catch (IOException expected) {
+                assertFalse(ShareProtocol.readAck(new ByteArrayInputStream(answer.toByteArray())));
+                assertTrue(singleEvents.isEmpty());
+            }
+        } finally {
+            failingWriter.stop();
+        }
+    }
+
+    @Test
+    public void testLegacyIdArrivingInPiecesIsReadCompletely() throws Exception {
+        PipedInputStream serverIn = new PipedInputStream();
+        PipedOutputStream clientOut = new PipedOutputStream(serverIn);
+        String id = "3f2b8c1e-6a4d-4e0b-9c7a-2d5e8f1a0b6c";
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> sender = pool.submit(() -> {
+            clientOut.write(id.substring(0, 10).getBytes(StandardCharsets.UTF_8));
+            clientOut.flush();
+            sleep(100);
+            clientOut.write(id.substring(10).getBytes(StandardCharsets.UTF_8));
+            clientOut.close();
+            return null;
+        });
+        server.handle(serverIn, new ByteArrayOutputStream());
+        sender.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(Collections.singletonList(id), legacyShares);
+    }
+
+    @Test
+    public void testConnectionsBeyondPoolAndQueueAreClosed() throws Exception {
+        LoopbackShareTransport transport = new LoopbackShareTransport();
+        ReceiveServer smallServer = new ReceiveServer(writer, new ReceiveServer.Listener() {
+            @Override
+            public void onEventReceived(Event event) {
+            }
+
+            @Override
+            public void onBatchReceived(int count) {
+            }
+
+            @Override
+            public void onLegacyShare(String idOfSharedEvent) {
+            }
+        }, 1);
+        smallServer.start(transport);
+        List<ShareConnection> connections = new ArrayList<>();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // The first sender keeps the only worker busy, the second waits in the queue
+            connections.add(transport.connect("AA:01"));
+            connections.add(transport.connect("AA:02"));
+            ShareConnection rejected = transport.connect("AA:03");
+            connections.add(rejected);
+
+            Future<Integer> read = pool.submit(() -> rejected.getInputStream().read());
+            assertEquals(-1, (int) read.get(5, TimeUnit.SECONDS));
+        } finally {
+            for (ShareConnection connection : connections) {
+                connection.close();
+            }
+            pool.shutdownNow();
+            smallServer.stop();
+        }
+    }
+
+    @Test
+    public void testServerCanBeStartedAgain() throws Exception {
+        LoopbackShareTransport transport = new LoopbackShareTransport();
+        server.start(transport);
+        server.stop();
+        server.start(transport);
+        try (ShareConnection connection = transport.connect("AA:01")) {
+            Event event = events("restart", 1).get(0);
+            ShareProtocol.writeEvent(connection.getOutputStream(), event);
+
+            assertTrue(ShareProtocol.readAck(connection.getInputStream()));
+            assertTrue(stored.contains(event.getId()));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testStoppedWriterRejectsEvents() {
+        writer.start();
+        writer.stop();
+        assertEquals(-1, writer.write(events("late", 1)));
+    }
+
+    private static List<Event> events(String prefix, int count) {
+        List<Event> events = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 15);
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(prefix + "-" + i, "Termin " + i, "Team", start.plusHours(i),
+                    start.plusHours(i).plusMinutes(30), 0, "", "Keine", "", new ArrayList<>()));
+        }
+        return events;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
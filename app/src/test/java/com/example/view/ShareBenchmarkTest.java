@@ -0,0 +1,326 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.example.view.control.bluetooth.BatchedEventWriter;
+import com.example.view.control.bluetooth.BluetoothConnectionService;
+import com.example.view.control.bluetooth.ReceiveServer;
+import com.example.view.control.bluetooth.ShareConnection;
+import com.example.view.control.bluetooth.ShareProtocol;
+import com.example.view.control.bluetooth.ShareTransport;
+import com.example.view.model.calendar.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the sender of {@link BluetoothConnectionService} against the receiver of
+ * ReceiveModeActivity over {@link LoopbackShareTransport} and prints frames per second, bytes per
+ * second and share latency. The receiver stores in memory, so the numbers show the protocol and
+ * threading, not SQLite. Frames and bytes are counted on the sender's end of each connection.
+ * Only runs on request: {@code ./gradlew testDebugUnitTest -Pbenchmark}.
+ */
+public class ShareBenchmarkTest {
+
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final BatchedEventWriter writer = new BatchedEventWriter(payloads -> {
+        int[] inserted = new int[payloads.size()];
+        for (int i = 0; i < payloads.size(); i++) {
+            for (Event event : payloads.get(i)) {
+                if (stored.add(event.getId())) {
+                    inserted[i]++;
+                }
+            }
+        }
+        return inserted;
+    });
+    private final ReceiveServer server = new ReceiveServer(writer, new ReceiveServer.Listener() {
+        @Override
+        public void onEventReceived(Event event) {
+        }
+
+        @Override
+        public void onBatchReceived(int count) {
+        }
+
+        @Override
+        public void onLegacyShare(String idOfSharedEvent) {
+        }
+    });
+
+    private final CountingTransport transport = new CountingTransport(new LoopbackShareTransport());
+    private final BluetoothConnectionService sender = new BluetoothConnectionService(transport, 60_000L);
+
+    private boolean started;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue("Benchmark, run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+        server.start(transport);
+        started = true;
+    }
+
+    @After
+    public void tearDown() {
+        sender.close();
+        if (started) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void benchmarkSingleEventShares() throws Exception {
+        // Aufwärmen
+        for (int i = 0; i < 200; i++) {
+            share("AA:01", events("warmup" + i, 1));
+        }
+        reset();
+
+        int shares = 1000;
+        long[] latencies = new long[shares];
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < shares; i++) {
+            latencies[i] = share("AA:01", events("single" + i, 1));
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        assertEquals(1200, stored.size());
+        report("single", elapsedNanos, latencies);
+    }
+
+    @Test
+    public void benchmarkBatchShares() throws Exception {
+        share("AA:01", events("warmup", 2000));
+        reset();
+
+        int batches = 10;
+        int batchSize = 2000;
+        long[] latencies = new long[batches];
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < batches; i++) {
+            latencies[i] = share("AA:01", events("batch" + i, batchSize));
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        assertEquals(2000 + batches * batchSize, stored.size());
+        report("batch of " + batchSize, elapsedNanos, latencies);
+    }
+
+    @Test
+    public void benchmarkConcurrentSenders() throws Exception {
+        share("AA:01", events("warmup", 500));
+        reset();
+
+        int senders = 4;
+        int batchSize = 2000;
+        BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        long startNanos = System.nanoTime();
+        for (int s = 0; s < senders; s++) {
+            sender.share("AA:0" + s, events("sender" + s, batchSize), (delivered, error) ->
+                    results.add(error != null ? error : System.nanoTime() - startNanos));
+        }
+        long[] latencies = new long[senders];
+        for (int s = 0; s < senders; s++) {
+            Object result = results.poll(30, TimeUnit.SECONDS);
+            if (!(result instanceof Long)) {
+                throw new AssertionError("Share failed: " + result);
+            }
+            latencies[s] = (Long) result;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        assertEquals(500 + senders * batchSize, stored.size());
+        report(senders + " senders", elapsedNanos, latencies);
+    }
+
+    /**
+     * Shares and waits for the acknowledgement.
+     *
+     * @return Latency in nanoseconds.
+     */
+    private long share(String address, List<Event> events) throws InterruptedException {
+        BlockingQueue<Object> result = new LinkedBlockingQueue<>();
+        long startNanos = System.nanoTime();
+        sender.share(address, events, (delivered, error) -> result.add(error != null ? error : delivered));
+        Object outcome = result.poll(30, TimeUnit.SECONDS);
+        long latencyNanos = System.nanoTime() - startNanos;
+        if (!(outcome instanceof Integer)) {
+            throw new AssertionError("Share failed: " + outcome);
+        }
+        return latencyNanos;
+    }
+
+    private void reset() {
+        transport.reset();
+    }
+
+    /**
+     * Every frame passes the sender's end once, chunks outgoing and acks incoming.
+     */
+    private void report(String name, long elapsedNanos, long[] latencies) {
+        double seconds = elapsedNanos / 1e9;
+        long frames = transport.frames.get();
+        long bytes = transport.bytesSent.get() + transport.bytesReceived.get();
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%s: %d frames, %.0f frames/s, %.1f KiB/s, latency p50 %.2f ms, p95 %.2f ms%n", name,
+                frames, frames / seconds, bytes / 1024.0 / seconds,
+                sorted[sorted.length / 2] / 1e6, sorted[(int) Math.ceil(sorted.length * 0.95) - 1] / 1e6);
+    }
+
+    private static List<Event> events(String prefix, int count) {
+        List<Event> events = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 15);
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(prefix + "-" + i, "Termin " + i, "Team", start.plusHours(i),
+                    start.plusHours(i).plusMinutes(30), 15, "Raum 2", "Keine", "Wöchentliches Treffen",
+                    new ArrayList<>(Collections.singletonList("Team"))));
+        }
+        return events;
+    }
+
+    /**
+     * Counts the bytes and frames on the sender side of every connection.
+     */
+    private static final class CountingTransport implements ShareTransport {
+
+        final AtomicLong bytesSent = new AtomicLong();
+        final AtomicLong bytesReceived = new AtomicLong();
+        final AtomicLong frames = new AtomicLong();
+        private final ShareTransport delegate;
+
+        CountingTransport(ShareTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        void reset() {
+            bytesSent.set(0);
+            bytesReceived.set(0);
+            frames.set(0);
+        }
+
+        @Override
+        public ShareConnection connect(String address) throws IOException {
+            ShareConnection connection = delegate.connect(address);
+            FrameCounter incoming = new FrameCounter(frames);
+            FrameCounter outgoing = new FrameCounter(frames);
+            InputStream in = new FilterInputStream(connection.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytesReceived.incrementAndGet();
+                        incoming.update(new byte[]{(byte) b}, 0, 1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        bytesReceived.addAndGet(read);
+                        incoming.update(buffer, offset, read);
+                    }
+                    return read;
+                }
+            };
+            OutputStream out = new FilterOutputStream(connection.getOutputStream()) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytesSent.incrementAndGet();
+                    outgoing.update(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] buffer, int offset, int length) throws IOException {
+                    out.write(buffer, offset, length);
+                    bytesSent.addAndGet(length);
+                    outgoing.update(buffer, offset, length);
+                }
+            };
+            return new ShareConnection() {
+                @Override
+                public InputStream getInputStream() {
+                    return in;
+                }
+
+                @Override
+                public OutputStream getOutputStream() {
+                    return out;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return connection.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    connection.close();
+                }
+            };
+        }
+
+        @Override
+        public Acceptor listen() throws IOException {
+            return delegate.listen();
+        }
+    }
+
+    /**
+     * Follows the frame boundaries of one direction of a connection, using the payload length
+     * in each {@link ShareProtocol} header to skip to the next frame.
+     */
+    private static final class FrameCounter {
+
+        private final AtomicLong frames;
+        private final byte[] header = new byte[ShareProtocol.HEADER_SIZE];
+        private int headerRead;
+        private long remaining;
+
+        FrameCounter(AtomicLong frames) {
+            this.frames = frames;
+        }
+
+        void update(byte[] buffer, int offset, int length) {
+            int end = offset + length;
+            while (offset < end) {
+                if (remaining > 0) {
+                    int skipped = (int) Math.min(remaining, end - offset);
+                    remaining -= skipped;
+                    offset += skipped;
+                    continue;
+                }
+                header[headerRead++] = buffer[offset++];
+                if (headerRead == header.length) {
+                    // Magic, version and type come before the payload length
+                    remaining = ByteBuffer.wrap(header, 6, 4).getInt() + ShareProtocol.TRAILER_SIZE;
+                    headerRead = 0;
+                    frames.incrementAndGet();
+                }
+            }
+        }
+    }
+}
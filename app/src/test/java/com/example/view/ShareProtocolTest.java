@@ -0,0 +1,83 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.bluetooth.ShareProtocol;
+import com.example.view.model.calendar.Event;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.ProtocolException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+public class ShareProtocolTest {
+
+    @Test
+    public void testEventRoundTrip() throws Exception {
+        Event event = event();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ShareProtocol.writeEvent(out, event);
+
+        byte[] bytes = out.toByteArray();
+        assertEquals(ShareProtocol.HEADER_SIZE + ShareProtocol.encodeEvent(event).length + ShareProtocol.TRAILER_SIZE,
+                bytes.length);
+
+        ShareProtocol.Frame frame = ShareProtocol.readFrame(new ByteArrayInputStream(bytes));
+        assertEquals(ShareProtocol.TYPE_EVENT, frame.getType());
+        assertEquals(event.toString(), ShareProtocol.decodeEvent(frame.getPayload()).toString());
+    }
+
+    @Test
+    public void testAckRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ShareProtocol.writeAck(out, ShareProtocol.ACK_OK);
+        ShareProtocol.writeAck(out, ShareProtocol.ACK_ERROR);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertTrue(ShareProtocol.readAck(in));
+        assertEquals(false, ShareProtocol.readAck(in));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testCorruptedPayloadIsRejected() throws Exception {
+        byte[] bytes = frameBytes();
+        bytes[ShareProtocol.HEADER_SIZE + 3] ^= 0x20;
+        ShareProtocol.readFrame(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testUnknownVersionIsRejected() throws Exception {
+        byte[] bytes = frameBytes();
+        bytes[4] = 99;
+        ShareProtocol.readFrame(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testPlainEventIdIsNotAFrame() throws Exception {
+        ShareProtocol.readFrame(new ByteArrayInputStream("3f2a9c1e-0000-4000-8000-000000000001".getBytes()));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedFrameIsRejected() throws Exception {
+        byte[] bytes = frameBytes();
+        ShareProtocol.readFrame(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 5)));
+    }
+
+    private static byte[] frameBytes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ShareProtocol.writeEvent(out, event());
+        return out.toByteArray();
+    }
+
+    private static Event event() {
+        LocalDateTime start = LocalDateTime.of(2024, 10, 14, 8, 15);
+        return new Event("3f2a9c1e-0000-4000-8000-000000000001", "Vorlesung Mathe – Übung", "Uni",
+                start, start.plusMinutes(90), 15, "Hörsaal 2", "Wöchentlich", "Skript mitbringen",
+                Arrays.asList("Anna", "Ben"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.control.cloud.SharedEventCache;
+import com.example.view.model.calendar.Event;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class SharedEventCacheTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<Consumer<Event>> pending = new ArrayList<>();
+
+    private final SharedEventCache.Loader deferredLoader = (id, onLoaded) -> {
+        fetches.incrementAndGet();
+        pending.add(onLoaded);
+    };
+
+    private final SharedEventCache.Loader immediateLoader = (id, onLoaded) -> {
+        fetches.incrementAndGet();
+        onLoaded.accept(event(id));
+    };
+
+    @Test
+    public void testConcurrentCallersShareOneFetch() {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L);
+        List<Event> received = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cache.get("room", deferredLoader, received::add);
+        }
+        assertEquals(1, fetches.get());
+
+        Event event = event("room");
+        pending.get(0).accept(event);
+        assertEquals(5, received.size());
+        for (Event each : received) {
+            assertEquals("room", each.getId());
+        }
+    }
+
+    @Test
+    public void testCallersGetTheirOwnCopy() {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L);
+        List<Event> received = new ArrayList<>();
+        cache.get("room", deferredLoader, received::add);
+        cache.get("room", deferredLoader, received::add);
+        pending.get(0).accept(event("room"));
+
+        assertNotSame(received.get(0), received.get(1));
+        received.get(0).setTitle("Geändert");
+        received.get(0).getParticipants().add("Mallory");
+        Event cached = cache.getIfPresent("room");
+        assertEquals("Geteilt room", cached.getTitle());
+        assertTrue(cached.getParticipants().isEmpty());
+        assertEquals("Geteilt room", received.get(1).getTitle());
+    }
+
+    @Test
+    public void testThrowingLoaderFailsWaitingCallers() {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L);
+        List<Event> received = new ArrayList<>();
+        cache.get("42", (id, onLoaded) -> {
+            throw new IllegalStateException("offline");
+        }, received::add);
+
+        assertEquals(1, received.size());
+        assertNull(received.get(0));
+        // The failed load no longer blocks the ID
+        cache.get("42", immediateLoader, received::add);
+        assertEquals("42", received.get(1).getId());
+    }
+
+    @Test
+    public void testLoaderWithoutCallbackTimesOut() throws Exception {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L, 50L);
+        BlockingQueue<Optional<Event>> received = new LinkedBlockingQueue<>();
+        cache.get("42", deferredLoader, event -> received.add(Optional.ofNullable(event)));
+
+        assertEquals(Optional.empty(), received.poll(1, TimeUnit.SECONDS));
+        cache.get("42", immediateLoader, event -> received.add(Optional.ofNullable(event)));
+        assertEquals("42", received.poll(1, TimeUnit.SECONDS).get().getId());
+
+        // A late answer of the timed out load is ignored
+        pending.get(0).accept(event("late"));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCachedEventIsServedWithoutFetch() {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L);
+        List<Event> received = new ArrayList<>();
+        cache.get("42", immediateLoader, received::add);
+        cache.get("42", immediateLoader, received::add);
+
+        assertEquals(1, fetches.get());
+        assertNotSame(received.get(0), received.get(1));
+        assertEquals("42", received.get(1).getId());
+    }
+
+    @Test
+    public void testExpiredEventIsFetchedAgain() throws Exception {
+        SharedEventCache cache = new SharedEventCache(8, 50L);
+        cache.get("42", immediateLoader, event -> { });
+        Thread.sleep(80);
+
+        assertNull(cache.getIfPresent("42"));
+        cache.get("42", immediateLoader, event -> { });
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEventIsEvicted() {
+        SharedEventCache cache = new SharedEventCache(2, 60_000L);
+        cache.put("a", event("a"));
+        cache.put("b", event("b"));
+        cache.getIfPresent("a");
+        cache.put("c", event("c"));
+
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("a", cache.getIfPresent("a").getId());
+        assertEquals("c", cache.getIfPresent("c").getId());
+    }
+
+    @Test
+    public void testFailedFetchIsNotCached() {
+        SharedEventCache cache = new SharedEventCache(8, 60_000L);
+        List<Event> received = new ArrayList<>();
+        cache.get("42", deferredLoader, received::add);
+        pending.get(0).accept(null);
+
+        assertEquals(1, received.size());
+        assertNull(received.get(0));
+        cache.get("42", deferredLoader, received::add);
+        assertEquals(2, fetches.get());
+    }
+
+    private static Event event(String id) {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        return new Event(id, "Geteilt " + id, "Arbeit", start, start.plusHours(1), 0,
+                "Raum 1", "Keine", "", new ArrayList<>());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.view.model.repository.ContentHash;
+import com.example.view.model.repository.SnapshotReconciler;
+import com.example.view.model.todo.Category;
+import com.example.view.model.todo.Priority;
+import com.example.view.model.todo.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SnapshotReconcilerTest {
+
+    @Test
+    public void testUnchangedSnapshotProducesNoWrites() {
+        List<Task> snapshot = new ArrayList<>();
+        Map<String, Long> local = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            Task task = task(String.valueOf(i), "Aufgabe " + i);
+            snapshot.add(task);
+            local.put(task.getId(), ContentHash.of(task));
+        }
+
+        SnapshotReconciler.Diff<Task> diff = diff(local, snapshot, Collections.emptySet());
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testOnlyChangedRowsAreWritten() {
+        Map<String, Long> local = new HashMap<>();
+        local.put("same", ContentHash.of(task("same", "Gleich")));
+        local.put("changed", ContentHash.of(task("changed", "Alt")));
+        local.put("gone", ContentHash.of(task("gone", "Gelöscht")));
+        local.put("legacy", null);
+
+        SnapshotReconciler.Diff<Task> diff = diff(local, List.of(task("same", "Gleich"),
+                task("changed", "Neu"), task("new", "Neu angelegt"), task("legacy", "Ohne Hash")),
+                Collections.emptySet());
+
+        assertEquals(List.of("new"), ids(diff.getInserts()));
+        assertEquals(Set.of("changed", "legacy"), Set.copyOf(ids(diff.getUpdates())));
+        assertEquals(List.of("gone"), diff.getDeletes());
+    }
+
+    @Test
+    public void testPendingLocalChangesAreKept() {
+        Map<String, Long> local = new HashMap<>();
+        local.put("edited", ContentHash.of(task("edited", "Lokal bearbeitet")));
+        local.put("created", ContentHash.of(task("created", "Noch nicht gesendet")));
+
+        SnapshotReconciler.Diff<Task> diff = diff(local, List.of(task("edited", "Stand der Cloud")),
+                Set.of("edited", "created"));
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testHashCoversEveryField() {
+        long hash = ContentHash.of(task("1", "Aufgabe"));
+
+        assertEquals(hash, ContentHash.of(task("1", "Aufgabe")));
+        assertNotEquals(hash, ContentHash.of(new Task("1", "Aufgabe", Category.WORK, "Beschreibung",
+                Priority.NOT_URGENT_IMPORTANT)));
+        assertNotEquals(hash, ContentHash.of(new Task("1", "Aufgabe", Category.WORK, null,
+                Priority.URGENT_IMPORTANT)));
+        assertNotEquals(ContentHash.of(task("1", "ab")), ContentHash.of(task("1a", "b")));
+    }
+
+    private static SnapshotReconciler.Diff<Task> diff(Map<String, Long> local, List<Task> snapshot, Set<String> pending) {
+        return SnapshotReconciler.diff(local, snapshot, Task::getId, task -> ContentHash.of(task), pending);
+    }
+
+    private static List<String> ids(List<Task> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private static Task task(String id, String title) {
+        return new Task(id, title, Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT);
+    }
+}
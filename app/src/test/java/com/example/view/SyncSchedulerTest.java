@@ -0,0 +1,94 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.view.control.cloud.DeltaSync;
+import com.example.view.control.cloud.SyncReporter;
+import com.example.view.control.cloud.SyncScheduler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SyncSchedulerTest {
+
+    @Test
+    public void testIdleSyncsBackOffUpToTheMaximum() {
+        long interval = SyncScheduler.MIN_INTERVAL_MILLIS;
+        List<Long> minutes = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            interval = SyncScheduler.nextInterval(interval, 0);
+            minutes.add(TimeUnit.MILLISECONDS.toMinutes(interval));
+        }
+
+        assertEquals(Arrays.asList(30L, 60L, 120L, 240L, 360L, 360L, 360L), minutes);
+    }
+
+    @Test
+    public void testSyncWithChangesResetsTheInterval() {
+        assertEquals(SyncScheduler.MIN_INTERVAL_MILLIS,
+                SyncScheduler.nextInterval(SyncScheduler.MAX_INTERVAL_MILLIS, 1));
+        assertEquals(SyncScheduler.MIN_INTERVAL_MILLIS,
+                SyncScheduler.nextInterval(SyncScheduler.MIN_INTERVAL_MILLIS, 200));
+    }
+
+    @Test
+    public void testFailedSyncKeepsTheInterval() {
+        long interval = TimeUnit.HOURS.toMillis(2);
+        assertEquals(interval, SyncScheduler.nextInterval(interval, DeltaSync.FAILED));
+    }
+
+    @Test
+    public void testSentOperationsCountAsChanges() {
+        SyncReporter reporter = new SyncReporter();
+        List<Integer> outcomes = new ArrayList<>();
+
+        reporter.addListener(outcomes::add);
+        reporter.onSent(3);
+        reporter.onSyncFinished(0, 0);
+
+        reporter.addListener(outcomes::add);
+        reporter.onSyncFinished(0, 0);
+
+        // Reported once, the next idle sync starts from zero
+        assertEquals(Arrays.asList(3, 0), outcomes);
+    }
+
+    @Test
+    public void testSentOperationsAreKeptAcrossFailedSyncs() {
+        SyncReporter reporter = new SyncReporter();
+        List<Integer> outcomes = new ArrayList<>();
+
+        reporter.addListener(outcomes::add);
+        reporter.onSent(2);
+        reporter.onSyncFailed();
+
+        reporter.addListener(outcomes::add);
+        reporter.onSent(1);
+        reporter.onSyncFinished(4, DeltaSync.FAILED);
+
+        reporter.addListener(outcomes::add);
+        reporter.onSyncFinished(4, 5);
+
+        assertEquals(Arrays.asList(DeltaSync.FAILED, DeltaSync.FAILED, 12), outcomes);
+    }
+
+    @Test
+    public void testListenersAreNotifiedOnce() {
+        SyncReporter reporter = new SyncReporter();
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+
+        reporter.addListener(first::add);
+        reporter.addListener(second::add);
+        reporter.onSyncFinished(1, 0);
+        reporter.onSyncFinished(0, 1);
+
+        assertEquals(Collections.singletonList(1), first);
+        assertEquals(Collections.singletonList(1), second);
+    }
+}
@@ -3,9 +3,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 
 import androidx.test.core.app.ApplicationProvider;
 
+import com.example.view.model.repository.CloudOutbox;
 import com.example.view.model.repository.TodoDatabaseHelper;
 import com.example.view.model.todo.Category;
 import com.example.view.model.todo.Priority;
@@ -15,7 +17,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class TodoDatabaseHelperTest {
 
@@ -24,8 +28,12 @@ public class TodoDatabaseHelperTest {
     @Before
     public void setUp() {
         Context context = ApplicationProvider.getApplicationContext();
-        dbHelper = new TodoDatabaseHelper(context);
+        dbHelper = TodoDatabaseHelper.getInstance(context);
         dbHelper.deleteAllTasks(); // Datenbank vor jedem Test bereinigen
+        // Von früheren Tests eingereihte Änderungen würden ihre IDs vor Cloudänderungen schützen
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        CloudOutbox.remove(db, CloudOutbox.peek(db, Integer.MAX_VALUE).stream()
+                .map(CloudOutbox.Entry::getSequence).collect(Collectors.toList()));
     }
 
     @After
@@ -82,4 +90,38 @@ public class TodoDatabaseHelperTest {
         assertEquals(1, tasks.size());
         assertEquals("Aufgabe 2", tasks.get(0).getTask());
     }
+
+    @Test
+    public void testApplyRemoteChangesKeepsQueuedLocalEdits() {
+        // Created locally and still waiting in the outbox
+        dbHelper.insertTask(new Task("1", "Lokal", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT));
+        dbHelper.insertTask(new Task("2", "Auch lokal", Category.WORK, "Beschreibung", Priority.URGENT_IMPORTANT));
+
+        assertTrue(dbHelper.applyRemoteChanges(
+                Arrays.asList(new Task("1", "Aus der Cloud", Category.WORK, null, Priority.URGENT_IMPORTANT)),
+                Arrays.asList("2")));
+
+        List<Task> tasks = dbHelper.getAllTasks();
+        assertEquals(2, tasks.size());
+        assertTrue(tasks.stream().anyMatch(task -> task.getTask().equals("Lokal")));
+        assertTrue(tasks.stream().anyMatch(task -> task.getTask().equals("Auch lokal")));
+    }
+
+    @Test
+    public void testUpsertTasks() {
+        Task task1 = new Task("1", "Aufgabe 1", Category.WORK, "Beschreibung 1", Priority.URGENT_IMPORTANT);
+        Task task2 = new Task("2", "Aufgabe 2", Category.UNIVERSITY, "Beschreibung 2", Priority.NOT_URGENT_IMPORTANT);
+
+        assertEquals(2, dbHelper.upsertTasks(Arrays.asList(task1, task2)));
+
+        Task task1Edited = new Task("1", "Aufgabe 1 geändert", Category.WORK, null, Priority.URGENT_IMPORTANT);
+        dbHelper.upsertTasks(Arrays.asList(task1Edited));
+
+        List<Task> tasks = dbHelper.getAllTasks();
+        assertEquals(2, tasks.size());
+        assertTrue(tasks.stream().anyMatch(task -> task.getTask().equals("Aufgabe 1 geändert")));
+
+        assertEquals(2, dbHelper.deleteTasksByIds(Arrays.asList("1", "2")));
+        assertTrue(dbHelper.getAllTasks().isEmpty());
+    }
 }
@@ -0,0 +1,72 @@
+package com.example.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.view.control.cloud.RateLimitedException;
+import com.example.view.control.cloud.TokenBucket;
+
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstUpToCapacityIsImmediate() {
+        TokenBucket bucket = new TokenBucket(5, 1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void testEmptyBucketReportsTimeUntilNextToken() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(0, bucket.tryAcquire());
+
+        long firstWait = bucket.tryAcquire();
+        long secondWait = bucket.tryAcquire();
+        assertTrue("first wait " + firstWait, firstWait > 0 && firstWait <= 100);
+        // A rejected request does not take the next token
+        assertTrue("second wait " + secondWait, secondWait > 0 && secondWait <= firstWait);
+    }
+
+    @Test
+    public void testRequestWithoutTokenFailsWithoutWaiting() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new TokenBucket(1, 0.1)).build();
+        Request request = new Request.Builder().url(server.url("/api/tasks")).build();
+        server.enqueue(new MockResponse());
+        client.newCall(request).execute().close();
+
+        long startNanos = System.nanoTime();
+        try {
+            client.newCall(request).execute().close();
+            fail("Request without a token must not be sent");
+        } catch (RateLimitedException expected) {
+            assertTrue(expected.getRetryAfterMillis() > 0);
+        }
+        assertTrue(System.nanoTime() - startNanos < 100_000_000L);
+        assertEquals(1, server.getRequestCount());
+        server.shutdown();
+    }
+
+    @Test
+    public void testTokensRefillOverTime() throws Exception {
+        TokenBucket bucket = new TokenBucket(2, 20);
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+        assertTrue(bucket.tryAcquire() > 0);
+
+        Thread.sleep(120);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+    }
+}